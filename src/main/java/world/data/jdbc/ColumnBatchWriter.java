@@ -0,0 +1,61 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+
+/**
+ * Receives query results one value at a time, in batches of rows, for
+ * {@link DataWorldResultSet#exportBatches(int, ColumnBatchWriter)}.
+ * <p>
+ * This is designed for copying results into columnar formats such as Apache Arrow {@code VectorSchemaRoot}
+ * batches without the overhead of JDBC getters and without boxing primitive values.  Column indexes are 1-based
+ * like JDBC, row indexes are 0-based within the current batch.
+ * <p>
+ * Each column is written using a single method based on its {@link java.sql.ResultSetMetaData#getColumnType(int)}:
+ * <ul>
+ * <li>{@code BOOLEAN}, {@code BIT} - {@link #writeBoolean}</li>
+ * <li>{@code TINYINT}, {@code SMALLINT}, {@code INTEGER}, {@code BIGINT} - {@link #writeLong}</li>
+ * <li>{@code REAL}, {@code FLOAT}, {@code DOUBLE} - {@link #writeDouble}</li>
+ * <li>{@code DECIMAL}, {@code NUMERIC} - {@link #writeDecimal}</li>
+ * <li>Everything else - {@link #writeString}, using the same value as {@link java.sql.ResultSet#getString(int)}</li>
+ * </ul>
+ * Missing values are always written using {@link #writeNull}.
+ */
+public interface ColumnBatchWriter {
+
+    /** Called before the first value of each batch. */
+    void startBatch() throws SQLException;
+
+    void writeNull(int column, int row) throws SQLException;
+
+    void writeBoolean(int column, int row, boolean value) throws SQLException;
+
+    void writeLong(int column, int row, long value) throws SQLException;
+
+    void writeDouble(int column, int row, double value) throws SQLException;
+
+    void writeDecimal(int column, int row, BigDecimal value) throws SQLException;
+
+    void writeString(int column, int row, String value) throws SQLException;
+
+    /** Called after the last value of each batch with the number of rows in the batch. */
+    void endBatch(int rowCount) throws SQLException;
+}
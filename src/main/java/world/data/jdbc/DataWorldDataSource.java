@@ -0,0 +1,207 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc;
+
+import world.data.jdbc.internal.connections.ConnectionFactory;
+import world.data.jdbc.internal.connections.PooledConnectionImpl;
+
+import javax.sql.ConnectionPoolDataSource;
+import javax.sql.DataSource;
+import javax.sql.PooledConnection;
+import java.io.PrintWriter;
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static world.data.jdbc.internal.util.Conditions.check;
+
+/**
+ * A {@link DataSource} for SQL and SPARQL queries against a data.world dataset.
+ * <p>
+ * Unlike {@link Driver#connect}, connections from a data source share one HTTP transport, thread pool and cache of
+ * parsed queries, so they're cheap to open and close.  Connection pools can use it as a
+ * {@link ConnectionPoolDataSource}.  Close the data source to release the shared transport once it's no longer
+ * needed.
+ * <p>
+ * Configure the data source with the same url and properties accepted by {@link Driver#connect}, eg.
+ * <pre>
+ * DataWorldDataSource dataSource = new DataWorldDataSource("jdbc:data:world:sql:dave:lahman-sabremetrics-dataset");
+ * dataSource.setPassword(authToken);
+ * </pre>
+ * The configuration can't be changed once connections have been opened.
+ */
+public class DataWorldDataSource implements DataSource, ConnectionPoolDataSource, AutoCloseable {
+    private String url;
+    private final Properties properties = new Properties();
+    private int loginTimeout;
+    private PrintWriter logWriter;
+    private ConnectionFactory shared;  // guarded by 'this'
+    private boolean closed;  // guarded by 'this'
+
+    public DataWorldDataSource() {
+    }
+
+    public DataWorldDataSource(String url) {
+        this.url = url;
+    }
+
+    public synchronized String getUrl() {
+        return url;
+    }
+
+    public synchronized void setUrl(String url) {
+        checkNotStarted();
+        this.url = url;
+    }
+
+    /** Sets the data.world API token used to authenticate queries. */
+    public synchronized void setPassword(String password) {
+        setProperty(Driver.PARAM_PASSWORD, password);
+    }
+
+    /** Sets a connection property, see the {@code PARAM_*} constants in {@link Driver}. */
+    public synchronized void setProperty(String name, String value) {
+        checkNotStarted();
+        if (value != null) {
+            properties.setProperty(name, value);
+        } else {
+            properties.remove(name);
+        }
+    }
+
+    /** Returns a copy of the connection properties. */
+    public synchronized Properties getProperties() {
+        Properties copy = new Properties();
+        copy.putAll(properties);
+        return copy;
+    }
+
+    @Override
+    public DataWorldConnection getConnection() throws SQLException {
+        return getConnectionFactory().newConnection();
+    }
+
+    /**
+     * Returns a connection authenticated with {@code password}.  The user name is ignored.  Connections with a
+     * password other than the data source's own get a dedicated transport that's closed with the connection.
+     */
+    @Override
+    public DataWorldConnection getConnection(String username, String password) throws SQLException {
+        if (password == null || Objects.equals(password, getProperties().getProperty(Driver.PARAM_PASSWORD))) {
+            return getConnection();
+        }
+        return createConnectionFactory(password).newDedicatedConnection();
+    }
+
+    @Override
+    public PooledConnection getPooledConnection() throws SQLException {
+        return new PooledConnectionImpl(getConnectionFactory(), null);
+    }
+
+    @Override
+    public PooledConnection getPooledConnection(String username, String password) throws SQLException {
+        if (password == null || Objects.equals(password, getProperties().getProperty(Driver.PARAM_PASSWORD))) {
+            return getPooledConnection();
+        }
+        ConnectionFactory factory = createConnectionFactory(password);
+        return new PooledConnectionImpl(factory, factory);
+    }
+
+    private synchronized ConnectionFactory getConnectionFactory() throws SQLException {
+        check(!closed, "Data source is closed");
+        if (shared == null) {
+            shared = Driver.createConnectionFactory(url, properties);
+        }
+        return shared;
+    }
+
+    private ConnectionFactory createConnectionFactory(String password) throws SQLException {
+        Properties props = getProperties();
+        props.setProperty(Driver.PARAM_PASSWORD, password);
+        return Driver.createConnectionFactory(getUrl(), props);
+    }
+
+    private void checkNotStarted() {
+        if (shared != null || closed) {
+            throw new IllegalStateException("Data source configuration can't be changed after connections have been opened");
+        }
+    }
+
+    /**
+     * Closes the shared transport.  Connections opened from the data source can't execute queries afterwards.
+     */
+    @Override
+    public void close() throws SQLException {
+        ConnectionFactory factory;
+        synchronized (this) {
+            closed = true;
+            factory = shared;
+            shared = null;
+        }
+        if (factory != null) {
+            try {
+                factory.close();
+            } catch (Exception e) {
+                throw new SQLException("Unable to close data source.", e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized PrintWriter getLogWriter() {
+        return logWriter;
+    }
+
+    @Override
+    public synchronized void setLogWriter(PrintWriter out) {
+        this.logWriter = out;
+    }
+
+    /**
+     * Stores the login timeout without using it.  Opening a connection doesn't contact the server, so there's no
+     * login to wait for.  Use the {@link Driver#PARAM_CONNECT_TIMEOUT} property to limit how long each query waits
+     * to connect.
+     */
+    @Override
+    public synchronized void setLoginTimeout(int seconds) {
+        this.loginTimeout = seconds;
+    }
+
+    @Override
+    public synchronized int getLoginTimeout() {
+        return loginTimeout;
+    }
+
+    @Override
+    public Logger getParentLogger() {
+        return Logger.getLogger(getClass().getPackage().getName());
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        check(isWrapperFor(iface), "Not a wrapper for the desired interface");
+        return iface.cast(this);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return DataWorldDataSource.class.equals(iface);
+    }
+}
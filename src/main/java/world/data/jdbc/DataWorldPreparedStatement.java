@@ -19,11 +19,20 @@
  */
 package world.data.jdbc;
 
+import java.nio.channels.WritableByteChannel;
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
 
 /**
  * Extends {@link PreparedStatement} with data.world-specific extensions.
  */
 public interface DataWorldPreparedStatement extends PreparedStatement, DataWorldStatement {
-    // Nothing to add
+
+    /**
+     * Executes the prepared query with the current parameters and writes its results to a channel, see
+     * {@link DataWorldStatement#exportTo(String, WritableByteChannel, ExportFormat)}.
+     *
+     * @return the number of bytes written
+     */
+    long exportTo(WritableByteChannel out, ExportFormat format) throws SQLException;
 }
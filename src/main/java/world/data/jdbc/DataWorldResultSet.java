@@ -0,0 +1,67 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.stream.Stream;
+
+/**
+ * Extends {@link ResultSet} with data.world-specific extensions.
+ * <p>
+ * Obtain an instance via {@code resultSet.unwrap(DataWorldResultSet.class)}.
+ */
+public interface DataWorldResultSet extends ResultSet {
+
+    /**
+     * Copies the remaining rows of the result set into a {@link ColumnBatchWriter}, one batch of rows at a time.
+     * <p>
+     * Reading starts with the row after the current row and continues to the end of the result set, so callers
+     * that haven't called {@link #next()} yet will receive all the rows.  Column types are determined by
+     * {@link java.sql.ResultSetMetaData#getColumnType(int)}, see {@link ColumnBatchWriter} for details.
+     *
+     * @param batchSize the maximum number of rows in each batch
+     * @param writer    the target of the copy
+     */
+    void exportBatches(int batchSize, ColumnBatchWriter writer) throws SQLException;
+
+    /**
+     * Returns a lazily evaluated stream of the remaining rows of the result set, mapped to objects.
+     * <p>
+     * Closing the stream closes the result set, releasing any network connection or temporary files associated
+     * with it.  Parallel streams read rows from the server sequentially, in batches, and invoke the mapper on the
+     * rows of each batch concurrently.  A {@code SQLException} thrown while reading or mapping rows is rethrown as
+     * an {@link UncheckedSQLException}.
+     * <p>
+     * The result set must not be used directly while the stream is in use.
+     *
+     * @param mapper a function that maps the current row of a result set to an object
+     */
+    <T> Stream<T> stream(RowMapper<T> mapper) throws SQLException;
+
+    /**
+     * Reads the remaining rows of the result set into memory and returns them as a new disconnected,
+     * scroll-insensitive result set.  This result set is closed.
+     * <p>
+     * Rows are stored column by column using primitive arrays and dictionary encoding where possible, which
+     * typically takes a fraction of the memory of copying the individual values.  The returned result set may be
+     * scrolled and iterated repeatedly and remains usable after the statement and connection are closed.
+     */
+    DataWorldResultSet materialize() throws SQLException;
+}
@@ -19,6 +19,7 @@
  */
 package world.data.jdbc;
 
+import java.nio.channels.WritableByteChannel;
 import java.sql.SQLException;
 import java.sql.Statement;
 
@@ -59,6 +60,20 @@ public interface DataWorldStatement extends Statement {
      */
     void setJdbcCompatibilityLevel(JdbcCompatibility compatibilityLevel) throws SQLException;
 
+    /**
+     * Executes a query and writes its results to a channel, without creating a result set.
+     * <p>
+     * When the server can produce the requested format the response is copied to the channel as it arrives,
+     * without being parsed.  Otherwise the rows are parsed and re-serialized.  The query timeout covers the
+     * entire export, and writing to a slow channel holds the HTTP connection open.  The channel is not closed.
+     *
+     * @param query  the query to execute
+     * @param out    the target of the export
+     * @param format the format to write
+     * @return the number of bytes written
+     */
+    long exportTo(String query, WritableByteChannel out, ExportFormat format) throws SQLException;
+
     @Override
     DataWorldConnection getConnection() throws SQLException;
 }
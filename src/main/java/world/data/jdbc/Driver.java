@@ -19,13 +19,15 @@
 package world.data.jdbc;
 
 import lombok.extern.java.Log;
-import world.data.jdbc.internal.connections.ConnectionImpl;
-import world.data.jdbc.internal.query.QueryEngine;
-import world.data.jdbc.internal.query.SparqlEngine;
-import world.data.jdbc.internal.query.SqlEngine;
-import world.data.jdbc.internal.transport.HttpQueryApi;
-import world.data.jdbc.internal.transport.QueryApi;
+import world.data.jdbc.internal.connections.ConnectionConfig;
+import world.data.jdbc.internal.connections.ConnectionFactory;
+import world.data.jdbc.internal.metrics.QueryListeners;
+import world.data.jdbc.internal.transport.RequestCompression;
+import world.data.jdbc.internal.transport.RetryPolicy;
+import world.data.jdbc.internal.transport.TransportOptions;
+import world.data.jdbc.internal.util.LruMap;
 import world.data.jdbc.internal.util.Versions;
+import world.data.jdbc.metrics.QueryListener;
 
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
@@ -34,11 +36,14 @@ import java.net.URLDecoder;
 import java.sql.DriverManager;
 import java.sql.DriverPropertyInfo;
 import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import static world.data.jdbc.internal.util.Conditions.check;
+import static world.data.jdbc.internal.util.Optionals.or;
 
 /**
  * A JDBC driver for SQL and SPARQL queries against datasets hosted on <a href="https://data.world">data.world</a>.
@@ -66,10 +71,105 @@ public final class Driver implements java.sql.Driver {
      */
     public static final String PARAM_JDBC_COMPATIBILITY = "jdbcCompatibility";
 
+    /**
+     * Constant for the connection URL parameter which registers one or more comma-separated
+     * {@link world.data.jdbc.metrics.QueryListener} class names.
+     */
+    public static final String PARAM_METRICS_LISTENER = "metricsListener";
+
+    /**
+     * Constant for the connection URL parameter which sets the maximum time to establish a connection to the
+     * server, in milliseconds.
+     */
+    public static final String PARAM_CONNECT_TIMEOUT = "connectTimeout";
+
+    /**
+     * Constant for the connection URL parameter which sets the maximum time to wait for the server to send data,
+     * in milliseconds.  See {@link java.sql.Connection#setNetworkTimeout}.
+     */
+    public static final String PARAM_NETWORK_TIMEOUT = "networkTimeout";
+
+    /**
+     * Constant for the connection URL parameter which sets the default query timeout, in seconds, for statements
+     * that don't call {@link java.sql.Statement#setQueryTimeout}.
+     */
+    public static final String PARAM_QUERY_TIMEOUT = "queryTimeout";
+
+    /**
+     * Constant for the connection URL parameter which sets the maximum number of attempts for queries that fail
+     * with transient errors such as 503 Service Unavailable, including the first attempt.  Set to 1 to disable
+     * retries.
+     */
+    public static final String PARAM_RETRY_MAX_ATTEMPTS = "retryMaxAttempts";
+
+    /**
+     * Constant for the connection URL parameter which sets the initial backoff between retries, in milliseconds.
+     */
+    public static final String PARAM_RETRY_BACKOFF = "retryBackoff";
+
+    /**
+     * Constant for the connection URL parameter which enables hedged requests: if a query hasn't received a response
+     * within this percentile (1-99) of recent response times, a duplicate request is sent and the first response is
+     * used.  Disabled by default.
+     */
+    public static final String PARAM_HEDGE_PERCENTILE = "hedgePercentile";
+
+    /**
+     * Constant for the connection URL parameter which enables a circuit breaker: once this percentage (1-100) of
+     * recent requests to the endpoint fail with server errors or timeouts, queries fail immediately for a while
+     * instead of waiting on an unhealthy server.  Disabled by default.
+     */
+    public static final String PARAM_CIRCUIT_BREAKER_THRESHOLD = "circuitBreakerThreshold";
+
+    /**
+     * Constant for the connection URL parameter which sets the maximum number of concurrent requests to the
+     * endpoint across all connections in the JVM.  The effective limit adapts to errors and timeouts, and queries
+     * over the limit wait up to the connect timeout, or the query timeout if the connect timeout is zero.  Unlimited
+     * by default.
+     */
+    public static final String PARAM_MAX_CONCURRENT_QUERIES = "maxConcurrentQueries";
+
+    /**
+     * Constant for the connection URL parameter which sets the maximum number of requests per minute to the
+     * endpoint, shared by all connections in the JVM that use the same auth token.  Queries over the limit wait up
+     * to 30 seconds for their turn.  The rate is lowered automatically after 429 responses.  Unlimited by default.
+     */
+    public static final String PARAM_RATE_LIMIT = "rateLimit";
+
+    /**
+     * Constant for the connection URL parameter which sets how many requests may be sent in a burst before the
+     * rate limit applies.  Defaults to one second's worth of requests.
+     */
+    public static final String PARAM_RATE_LIMIT_BURST = "rateLimitBurst";
+
+    /**
+     * Constant for the connection URL parameter which compresses large request bodies, such as queries with big
+     * {@code VALUES} blocks: {@code gzip}, {@code deflate} or {@code none}.  Disabled by default.
+     */
+    public static final String PARAM_REQUEST_COMPRESSION = "requestCompression";
+
+    /**
+     * Constant for the connection URL parameter which sets the minimum size of a request body before it's
+     * compressed, in bytes.  Defaults to 8192.
+     */
+    public static final String PARAM_REQUEST_COMPRESSION_THRESHOLD = "requestCompressionThreshold";
+
+    /**
+     * Constant for the connection URL parameter which, when {@code true}, registers an MBean with the platform MBean
+     * server exposing the connection's in-flight queries, download pool and error counts.  The MBean is unregistered
+     * when the connection is closed.  Disabled by default.
+     */
+    public static final String PARAM_JMX = "jmx";
+
     public static final String VERSION = Versions.findVersionString();
 
     private static final int[] VERSION_NUMBERS = Versions.parseVersionNumbers(VERSION);
 
+    /** Maximum number of distinct url and properties combinations whose parsed configuration is kept. */
+    private static final int CONFIG_CACHE_SIZE = 64;
+
+    private static final Map<ConfigKey, ConnectionConfig> CONFIG_CACHE = new LruMap<>(CONFIG_CACHE_SIZE);
+
     static {
         try {
             register();
@@ -92,6 +192,80 @@ public final class Driver implements java.sql.Driver {
         if (!acceptsURL(url)) {
             return null;
         }
+        return createConnectionFactory(url, props).newDedicatedConnection();
+    }
+
+    /**
+     * Creates the transport and query engine for connections to the dataset.
+     */
+    static ConnectionFactory createConnectionFactory(String url, Properties props) throws SQLException {
+        return getConfig(url, props).newConnectionFactory();
+    }
+
+    /**
+     * Returns the parsed url and properties.  Pools open connections with the same url and properties over and
+     * over, so the parsed configuration is cached.  The password, from either the url or the properties, isn't
+     * part of the cached configuration, it's applied to the configuration returned for each connection.
+     */
+    static ConnectionConfig getConfig(String url, Properties props) throws SQLException {
+        check(url != null && (url.startsWith(SQL_PREFIX) || url.startsWith(SPARQL_PREFIX)),
+                "Invalid jdbc url, expected '%s' or '%s': %s", SQL_PREFIX, SPARQL_PREFIX, url);
+
+        // Keep the auth token out of the static cache
+        Map<String, String> settings = new HashMap<>();
+        String password = null;
+        if (props != null) {
+            for (String key : props.stringPropertyNames()) {
+                if (PARAM_PASSWORD.equalsIgnoreCase(key)) {
+                    password = props.getProperty(key);
+                } else {
+                    settings.put(key, props.getProperty(key));
+                }
+            }
+        }
+        // A password in the url takes precedence over the password property
+        String[] urlParts = url.split(";");
+        StringBuilder urlWithoutPassword = new StringBuilder(urlParts[0]);
+        for (int i = 1; i < urlParts.length; i++) {
+            String[] pair = urlParts[i].split("=", 2);
+            if (pair.length == 2 && PARAM_PASSWORD.equalsIgnoreCase(pair[0])) {
+                password = urlDecode(pair[1]);
+            } else {
+                urlWithoutPassword.append(';').append(urlParts[i]);
+            }
+        }
+        String cacheUrl = urlWithoutPassword.toString();
+
+        ConfigKey key = new ConfigKey(cacheUrl, settings);
+        ConnectionConfig config;
+        synchronized (CONFIG_CACHE) {
+            config = CONFIG_CACHE.get(key);
+        }
+        if (config == null) {
+            // Parse outside the lock, a race just parses the same configuration twice
+            config = parseConfig(cacheUrl, settings);
+            synchronized (CONFIG_CACHE) {
+                CONFIG_CACHE.put(key, config);
+            }
+        }
+        if (password != null) {
+            config = config.toBuilder().password(password).build();
+        }
+        return config;
+    }
+
+    // Visible for testing
+    static Map<String, ConnectionConfig> getCachedConfigs() {
+        Map<String, ConnectionConfig> configs = new HashMap<>();
+        synchronized (CONFIG_CACHE) {
+            for (Map.Entry<ConfigKey, ConnectionConfig> entry : CONFIG_CACHE.entrySet()) {
+                configs.put(entry.getKey().getUrl(), entry.getValue());
+            }
+        }
+        return configs;
+    }
+
+    private static ConnectionConfig parseConfig(String url, Map<String, String> props) throws SQLException {
 
         Properties effectiveProps = new Properties();
         String[] urlParts = url.split(";");
@@ -101,11 +275,8 @@ public final class Driver implements java.sql.Driver {
         effectiveProps.setProperty("agentid", urlFields[4]);
         effectiveProps.setProperty("datasetid", urlFields[5]);
         effectiveProps.setProperty("querybaseurl", "https://query.data.world");
-        if (props != null) {
-            for (String key : props.stringPropertyNames()) {
-                String value = props.getProperty(key);
-                effectiveProps.setProperty(key.toLowerCase(), value);
-            }
+        for (Map.Entry<String, String> entry : props.entrySet()) {
+            effectiveProps.setProperty(entry.getKey().toLowerCase(), entry.getValue());
         }
         for (int i = 1; i < urlParts.length; i++) {
             String[] pair = urlParts[i].split("=", 2);
@@ -117,27 +288,77 @@ public final class Driver implements java.sql.Driver {
         String lang = effectiveProps.getProperty("lang");
         String agentId = effectiveProps.getProperty("agentid");
         String datasetId = effectiveProps.getProperty("datasetid");
-        String password = effectiveProps.getProperty(PARAM_PASSWORD);
         JdbcCompatibility jdbcCompatibility = getProperty(effectiveProps, PARAM_JDBC_COMPATIBILITY, JdbcCompatibility.class);
-
-        // Create the QueryApi responsible for low-level HTTP details
-        URL queryEndpoint = getQueryEndpoint(queryBaseUrl, lang, agentId, datasetId);
-        String userAgent = String.format("DwJdbc-%s/%s", lang, Driver.VERSION);
-        QueryApi queryApi = new HttpQueryApi(queryEndpoint, userAgent, password);
-
-        // Create the QueryEngine responsible for query language-specific behavior
-        QueryEngine queryEngine;
-        if ("sparql".equals(lang)) {
-            queryEngine = new SparqlEngine(queryApi, agentId, datasetId);
-        } else if ("sql".equals(lang)) {
-            queryEngine = new SqlEngine(queryApi, agentId, datasetId);
-        } else {
-            throw new SQLException("Unknown query language: " + lang);
+        QueryListener listener = QueryListeners.create(effectiveProps.getProperty(PARAM_METRICS_LISTENER.toLowerCase()));
+        TransportOptions.Builder transportOptions = TransportOptions.builder();
+        int networkTimeout = or(getIntProperty(effectiveProps, PARAM_NETWORK_TIMEOUT), 0);
+        Integer connectTimeout = getIntProperty(effectiveProps, PARAM_CONNECT_TIMEOUT);
+        if (connectTimeout != null) {
+            transportOptions.connectTimeoutMillis(connectTimeout);
         }
+        Integer queryTimeout = getIntProperty(effectiveProps, PARAM_QUERY_TIMEOUT);
+        if (queryTimeout != null) {
+            transportOptions.queryTimeoutSeconds(queryTimeout);
+        }
+        RetryPolicy.Builder retryPolicy = RetryPolicy.DEFAULTS.toBuilder();
+        Integer retryMaxAttempts = getIntProperty(effectiveProps, PARAM_RETRY_MAX_ATTEMPTS);
+        if (retryMaxAttempts != null) {
+            check(retryMaxAttempts >= 1, "Invalid %s, must be at least 1: %s", PARAM_RETRY_MAX_ATTEMPTS, retryMaxAttempts);
+            retryPolicy.maxAttempts(retryMaxAttempts);
+        }
+        Integer retryBackoff = getIntProperty(effectiveProps, PARAM_RETRY_BACKOFF);
+        if (retryBackoff != null) {
+            retryPolicy.initialBackoffMillis(retryBackoff);
+        }
+        transportOptions.retryPolicy(retryPolicy.build());
+        Integer hedgePercentile = getIntProperty(effectiveProps, PARAM_HEDGE_PERCENTILE);
+        if (hedgePercentile != null) {
+            check(hedgePercentile < 100, "Invalid %s, must be between 0 and 99: %s", PARAM_HEDGE_PERCENTILE, hedgePercentile);
+            transportOptions.hedgePercentile(hedgePercentile);
+        }
+        Integer circuitBreakerThreshold = getIntProperty(effectiveProps, PARAM_CIRCUIT_BREAKER_THRESHOLD);
+        if (circuitBreakerThreshold != null) {
+            check(circuitBreakerThreshold <= 100, "Invalid %s, must be between 0 and 100: %s", PARAM_CIRCUIT_BREAKER_THRESHOLD, circuitBreakerThreshold);
+            transportOptions.circuitBreakerThreshold(circuitBreakerThreshold);
+        }
+        Integer maxConcurrentQueries = getIntProperty(effectiveProps, PARAM_MAX_CONCURRENT_QUERIES);
+        if (maxConcurrentQueries != null) {
+            transportOptions.maxConcurrentQueries(maxConcurrentQueries);
+        }
+        Integer rateLimit = getIntProperty(effectiveProps, PARAM_RATE_LIMIT);
+        if (rateLimit != null) {
+            transportOptions.rateLimitPerMinute(rateLimit);
+        }
+        Integer rateLimitBurst = getIntProperty(effectiveProps, PARAM_RATE_LIMIT_BURST);
+        if (rateLimitBurst != null) {
+            transportOptions.rateLimitBurst(rateLimitBurst);
+        }
+        RequestCompression requestCompression = getProperty(effectiveProps, PARAM_REQUEST_COMPRESSION, RequestCompression.class);
+        if (requestCompression != null) {
+            transportOptions.requestCompression(requestCompression);
+        }
+        Integer requestCompressionThreshold = getIntProperty(effectiveProps, PARAM_REQUEST_COMPRESSION_THRESHOLD);
+        if (requestCompressionThreshold != null) {
+            transportOptions.requestCompressionThreshold(requestCompressionThreshold);
+        }
+        Boolean jmx = getBooleanProperty(effectiveProps, PARAM_JMX);
+        if (jmx != null) {
+            transportOptions.jmxEnabled(jmx);
+        }
+
+        check("sparql".equals(lang) || "sql".equals(lang), "Unknown query language: %s", lang);
 
-        ConnectionImpl connection = new ConnectionImpl(queryEngine, jdbcCompatibility);
-        connection.getResources().register(queryApi);
-        return connection;
+        return ConnectionConfig.builder()
+                .queryEndpoint(getQueryEndpoint(queryBaseUrl, lang, agentId, datasetId))
+                .userAgent(String.format("DwJdbc-%s/%s", lang, Driver.VERSION))
+                .lang(lang)
+                .agentId(agentId)
+                .datasetId(datasetId)
+                .jdbcCompatibility(jdbcCompatibility)
+                .networkTimeoutMillis(networkTimeout)
+                .listener(listener)
+                .transportOptions(transportOptions.build())
+                .build();
     }
 
     private static URL getQueryEndpoint(String queryBaseUrl, String lang, String agentId, String datasetId) throws SQLException {
@@ -154,6 +375,30 @@ public final class Driver implements java.sql.Driver {
         return value != null && !value.isEmpty() ? Enum.valueOf(enumClass, value.toUpperCase()) : null;
     }
 
+    private static Integer getIntProperty(Properties props, String key) throws SQLException {
+        String value = props.getProperty(key.toLowerCase());
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            int number = Integer.parseInt(value.trim());
+            check(number >= 0, "Invalid %s, must be non-negative: %s", key, value);
+            return number;
+        } catch (NumberFormatException e) {
+            throw new SQLException(String.format("Invalid %s, expected an integer: %s", key, value), e);
+        }
+    }
+
+    private static Boolean getBooleanProperty(Properties props, String key) throws SQLException {
+        String value = props.getProperty(key.toLowerCase());
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        check("true".equalsIgnoreCase(value.trim()) || "false".equalsIgnoreCase(value.trim()),
+                "Invalid %s, expected true or false: %s", key, value);
+        return Boolean.parseBoolean(value.trim());
+    }
+
     private static String urlDecode(String string) {
         try {
             return URLDecoder.decode(string, "UTF-8");
@@ -188,6 +433,13 @@ public final class Driver implements java.sql.Driver {
         return false;
     }
 
+    @lombok.Value
+    private static class ConfigKey {
+        private final String url;
+        @lombok.ToString.Exclude
+        private final Map<String, String> props;
+    }
+
     // Java6/7 compatibility
     @Override
     public Logger getParentLogger() {
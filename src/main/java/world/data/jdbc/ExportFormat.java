@@ -0,0 +1,48 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc;
+
+/**
+ * Output formats for {@link DataWorldStatement#exportTo(String, java.nio.channels.WritableByteChannel, ExportFormat)}.
+ */
+public enum ExportFormat {
+
+    /**
+     * Comma-separated values as described by <a href="https://tools.ietf.org/html/rfc4180">RFC 4180</a>, with a
+     * header row of column names.  RDF terms are written as their lexical form, IRI or blank node label.
+     */
+    CSV("text/csv"),
+
+    /**
+     * <a href="https://www.w3.org/TR/n-triples/">N-Triples</a>, for SPARQL {@code CONSTRUCT} and {@code DESCRIBE}
+     * queries.
+     */
+    N_TRIPLES("application/n-triples");
+
+    private final String mediaType;
+
+    ExportFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    /** Returns the internet media type of the format, as sent in an 'Accept' header. */
+    public String getMediaType() {
+        return mediaType;
+    }
+}
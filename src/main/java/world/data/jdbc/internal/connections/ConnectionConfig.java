@@ -0,0 +1,69 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.connections;
+
+import world.data.jdbc.JdbcCompatibility;
+import world.data.jdbc.internal.query.QueryEngine;
+import world.data.jdbc.internal.query.SparqlEngine;
+import world.data.jdbc.internal.query.SqlEngine;
+import world.data.jdbc.internal.transport.HttpQueryApi;
+import world.data.jdbc.internal.transport.TransportOptions;
+import world.data.jdbc.metrics.QueryListener;
+
+import java.net.URL;
+import java.sql.SQLException;
+
+/**
+ * The parsed, immutable settings for connections to a dataset.  Parsing the jdbc url and properties is done once
+ * per distinct url and properties, new connections only create their transport and query engine.
+ */
+@lombok.Value
+@lombok.Builder(builderClassName = "Builder", toBuilder = true)
+public final class ConnectionConfig {
+    private final URL queryEndpoint;
+    private final String userAgent;
+    @lombok.ToString.Exclude
+    private final String password;
+    private final String lang;
+    private final String agentId;
+    private final String datasetId;
+    private final JdbcCompatibility jdbcCompatibility;
+    private final int networkTimeoutMillis;
+    private final QueryListener listener;
+    private final TransportOptions transportOptions;
+
+    /** Creates the transport and query engine for one or more connections with these settings. */
+    public ConnectionFactory newConnectionFactory() throws SQLException {
+        // Create the QueryApi responsible for low-level HTTP details
+        HttpQueryApi queryApi = new HttpQueryApi(queryEndpoint, userAgent, password, listener, transportOptions);
+
+        // Create the QueryEngine responsible for query language-specific behavior
+        QueryEngine queryEngine;
+        if ("sparql".equals(lang)) {
+            queryEngine = new SparqlEngine(queryApi, agentId, datasetId);
+        } else if ("sql".equals(lang)) {
+            queryEngine = new SqlEngine(queryApi, agentId, datasetId);
+        } else {
+            queryApi.close();
+            throw new SQLException("Unknown query language: " + lang);
+        }
+
+        return new ConnectionFactory(queryApi, queryEngine, jdbcCompatibility, networkTimeoutMillis);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.connections;
+
+import world.data.jdbc.JdbcCompatibility;
+import world.data.jdbc.internal.query.QueryEngine;
+import world.data.jdbc.internal.transport.QueryApi;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Creates connections that share a single transport and query engine.  Connections are cheap to create since the
+ * HTTP client, thread pool and parsed query cache are shared.  Closing the factory closes the transport.
+ */
+public final class ConnectionFactory implements AutoCloseable {
+    private final QueryApi queryApi;
+    private final QueryEngine queryEngine;
+    private final JdbcCompatibility jdbcCompatibility;
+    private final int networkTimeoutMillis;
+
+    public ConnectionFactory(QueryApi queryApi, QueryEngine queryEngine, JdbcCompatibility jdbcCompatibility,
+                             int networkTimeoutMillis) {
+        this.queryApi = requireNonNull(queryApi, "queryApi");
+        this.queryEngine = requireNonNull(queryEngine, "queryEngine");
+        this.jdbcCompatibility = jdbcCompatibility;
+        this.networkTimeoutMillis = networkTimeoutMillis;
+    }
+
+    public ConnectionImpl newConnection() throws SQLException {
+        return new ConnectionImpl(queryEngine, jdbcCompatibility, networkTimeoutMillis);
+    }
+
+    /** Returns a connection that owns the transport and closes it when the connection is closed. */
+    public ConnectionImpl newDedicatedConnection() throws SQLException {
+        ConnectionImpl connection = newConnection();
+        connection.getResources().register(queryApi);
+        return connection;
+    }
+
+    @Override
+    public void close() throws IOException {
+        queryApi.close();
+    }
+}
@@ -28,6 +28,7 @@ import world.data.jdbc.internal.query.QueryEngine;
 import world.data.jdbc.internal.statements.CallableStatementImpl;
 import world.data.jdbc.internal.statements.PreparedStatementImpl;
 import world.data.jdbc.internal.statements.StatementImpl;
+import world.data.jdbc.internal.types.ArrayImpl;
 import world.data.jdbc.internal.util.ResourceContainer;
 import world.data.jdbc.internal.util.ResourceManager;
 import world.data.jdbc.internal.util.WarningList;
@@ -41,6 +42,7 @@ import java.sql.NClob;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLPermission;
 import java.sql.SQLWarning;
 import java.sql.SQLXML;
 import java.sql.Savepoint;
@@ -50,6 +52,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
 
 import static java.util.Objects.requireNonNull;
 import static world.data.jdbc.internal.util.Conditions.check;
@@ -81,6 +84,11 @@ import static world.data.jdbc.internal.util.Optionals.or;
  * manipulation of incoming command text as well as manipulation of the parsed
  * SPARQL queries and updates as desired.
  * </p>
+ * <p>
+ * Connections are thread-safe.  Many threads may create and execute statements concurrently on one connection,
+ * sharing its transport and metadata.  Prepared statement parameters and result sets should be used by one
+ * thread at a time.
+ * </p>
  */
 @Log
 public final class ConnectionImpl implements DataWorldConnection, ResourceContainer {
@@ -89,9 +97,10 @@ public final class ConnectionImpl implements DataWorldConnection, ResourceContai
     private final ResourceManager resources = new ResourceManager();
     private final WarningList warnings = new WarningList();
 
-    private Properties clientInfo = new Properties();
-    private JdbcCompatibility compatibilityLevel;
-    private boolean closed;
+    private volatile Properties clientInfo = new Properties();
+    private volatile JdbcCompatibility compatibilityLevel;
+    private volatile int networkTimeoutMillis;
+    private final AtomicBoolean closed = new AtomicBoolean();
 
     private final AtomicBoolean warnedReadOnly = new AtomicBoolean();
     private final AtomicBoolean warnedTransactionIsolation = new AtomicBoolean();
@@ -101,9 +110,11 @@ public final class ConnectionImpl implements DataWorldConnection, ResourceContai
      *
      * @throws SQLException Thrown if the arguments are invalid
      */
-    public ConnectionImpl(QueryEngine queryEngine, JdbcCompatibility compatibilityLevel) throws SQLException {
+    public ConnectionImpl(QueryEngine queryEngine, JdbcCompatibility compatibilityLevel, int networkTimeoutMillis)
+            throws SQLException {
         this.queryEngine = requireNonNull(queryEngine, "queryEngine");
         this.compatibilityLevel = or(compatibilityLevel, queryEngine.getDefaultCompatibilityLevel());
+        this.networkTimeoutMillis = networkTimeoutMillis;
         this.metadata = queryEngine.getDatabaseMetaData(this);
     }
 
@@ -159,9 +170,15 @@ public final class ConnectionImpl implements DataWorldConnection, ResourceContai
 
     @Override
     public final void close() throws SQLException {
-        if (closed) {
+        // Mark the connection closed first so statements created concurrently by other threads fail instead of
+        // registering after their connection closed its open statements
+        if (!closed.compareAndSet(false, true)) {
             return;
         }
+        closeResources();
+    }
+
+    private void closeResources() {
         log.fine("Closing connection...");
         try {
             // Close statements that are still open
@@ -169,7 +186,6 @@ public final class ConnectionImpl implements DataWorldConnection, ResourceContai
         } catch (Exception e) {
             log.warning("Unexpected trying to close resources: " + e);
         } finally {
-            closed = true;
             log.fine("Connection was closed");
         }
     }
@@ -181,7 +197,8 @@ public final class ConnectionImpl implements DataWorldConnection, ResourceContai
 
     @Override
     public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+        checkClosed();
+        return new ArrayImpl(typeName, elements);
     }
 
     @Override
@@ -280,7 +297,7 @@ public final class ConnectionImpl implements DataWorldConnection, ResourceContai
 
     @Override
     public boolean isClosed() {
-        return closed;
+        return closed.get();
     }
 
     @Override
@@ -290,8 +307,9 @@ public final class ConnectionImpl implements DataWorldConnection, ResourceContai
     }
 
     @Override
-    public boolean isValid(int timeout) {
-        return !closed;
+    public boolean isValid(int timeout) throws SQLException {
+        check(timeout >= 0, "Timeout must be >= 0");
+        return !closed.get() && queryEngine.isValid(timeout);
     }
 
     @Override
@@ -436,22 +454,54 @@ public final class ConnectionImpl implements DataWorldConnection, ResourceContai
         return queryEngine.getSchema();
     }
 
+    /**
+     * Cancels all queries in progress on this connection and marks it closed.  Statements and result sets are closed
+     * asynchronously using the specified executor.
+     */
     @Override
     public void abort(Executor executor) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+        check(executor != null, "Executor is required");
+        SecurityManager securityManager = System.getSecurityManager();
+        if (securityManager != null) {
+            securityManager.checkPermission(new SQLPermission("callAbort"));
+        }
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        for (Statement statement : resources.getAll(Statement.class)) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                log.log(Level.FINE, "Unable to cancel statement", e);
+            }
+        }
+        executor.execute(this::closeResources);
     }
 
     @Override
     public int getNetworkTimeout() throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+        checkClosed();
+        return networkTimeoutMillis;
     }
 
+    /**
+     * Sets the maximum time to wait for the server to send data, in milliseconds.  Zero means the wait is only
+     * limited by the query timeout.  The executor is unused since the timeout is applied to each new request.
+     * The timeout only applies to this connection, even if other connections share its transport.
+     */
     @Override
     public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+        checkClosed();
+        check(executor != null, "Executor is required");
+        check(milliseconds >= 0, "Network timeout must be non-negative");
+        SecurityManager securityManager = System.getSecurityManager();
+        if (securityManager != null) {
+            securityManager.checkPermission(new SQLPermission("setNetworkTimeout"));
+        }
+        this.networkTimeoutMillis = milliseconds;
     }
 
     private void checkClosed() throws SQLException {
-        check(!closed, "Connection is closed");
+        check(!closed.get(), "Connection is closed");
     }
 }
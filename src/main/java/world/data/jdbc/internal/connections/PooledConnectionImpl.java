@@ -0,0 +1,140 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.connections;
+
+import javax.sql.ConnectionEvent;
+import javax.sql.ConnectionEventListener;
+import javax.sql.PooledConnection;
+import javax.sql.StatementEventListener;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static java.util.Objects.requireNonNull;
+import static world.data.jdbc.internal.util.Conditions.check;
+
+/**
+ * A {@link PooledConnection} for connection pool managers.  There's no physical connection to keep open since
+ * queries are sent over a shared HTTP transport, so each call to {@link #getConnection()} returns a new lightweight
+ * connection from the {@link ConnectionFactory}.  Closing that connection notifies the pool manager that the pooled
+ * connection may be reused.
+ * <p>
+ * Statement events are never fired.  Prepared statements are cheap to recreate since parsed queries are cached by
+ * the shared query engine.
+ */
+public final class PooledConnectionImpl implements PooledConnection {
+    private final ConnectionFactory factory;
+    private final AutoCloseable cleanup;
+    private final List<ConnectionEventListener> listeners = new CopyOnWriteArrayList<>();
+    private final List<StatementEventListener> statementListeners = new CopyOnWriteArrayList<>();
+    /** Registered with the current connection, held here since connections only hold weak references to resources. */
+    private final AutoCloseable closeHook = this::connectionClosed;
+    private ConnectionImpl connection;  // guarded by 'this'
+    private boolean closed;  // guarded by 'this'
+
+    /**
+     * @param cleanup invoked when the pooled connection is closed, may be null
+     */
+    public PooledConnectionImpl(ConnectionFactory factory, AutoCloseable cleanup) {
+        this.factory = requireNonNull(factory, "factory");
+        this.cleanup = cleanup;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        ConnectionImpl previous;
+        ConnectionImpl next;
+        synchronized (this) {
+            check(!closed, "Pooled connection is closed");
+            // Opening a new connection handle closes the previous one, without notifying listeners
+            previous = detach();
+            next = connection = factory.newConnection();
+            next.getResources().register(closeHook);
+        }
+        if (previous != null) {
+            previous.close();
+        }
+        return next;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        ConnectionImpl previous;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            previous = detach();
+        }
+        try {
+            if (previous != null) {
+                previous.close();
+            }
+        } finally {
+            if (cleanup != null) {
+                try {
+                    cleanup.close();
+                } catch (Exception e) {
+                    throw new SQLException("Unable to close pooled connection.", e);
+                }
+            }
+        }
+    }
+
+    private ConnectionImpl detach() {
+        ConnectionImpl previous = connection;
+        if (previous != null) {
+            previous.getResources().remove(closeHook);
+            connection = null;
+        }
+        return previous;
+    }
+
+    private void connectionClosed() {
+        synchronized (this) {
+            connection = null;
+        }
+        ConnectionEvent event = new ConnectionEvent(this);
+        for (ConnectionEventListener listener : listeners) {
+            listener.connectionClosed(event);
+        }
+    }
+
+    @Override
+    public void addConnectionEventListener(ConnectionEventListener listener) {
+        listeners.add(requireNonNull(listener, "listener"));
+    }
+
+    @Override
+    public void removeConnectionEventListener(ConnectionEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void addStatementEventListener(StatementEventListener listener) {
+        statementListeners.add(requireNonNull(listener, "listener"));
+    }
+
+    @Override
+    public void removeStatementEventListener(StatementEventListener listener) {
+        statementListeners.remove(listener);
+    }
+}
@@ -18,17 +18,22 @@
 package world.data.jdbc.internal.metadata;
 
 import lombok.experimental.UtilityClass;
-import world.data.jdbc.internal.results.ResultSetImpl;
+import world.data.jdbc.RowMapper;
+import world.data.jdbc.UncheckedSQLException;
+import world.data.jdbc.internal.results.ValueResultSetImpl;
+import world.data.jdbc.internal.util.AbstractIterator;
 import world.data.jdbc.model.Iri;
 import world.data.jdbc.model.LiteralFactory;
 import world.data.jdbc.model.Node;
 import world.data.jdbc.vocab.Xsd;
 
 import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 import static java.sql.ResultSetMetaData.columnNoNulls;
@@ -1182,20 +1187,40 @@ class MetaDataSchema {
     }
 
     static ResultSet newResultSet(ColumnInfo[] columns, List<Object[]> rows) throws SQLException {
-        Node[][] nodes = new Node[rows.size()][columns.length];
-        for (int i = 0; i < nodes.length; i++) {
-            Object[] row = rows.get(i);
-            for (int j = 0; j < columns.length; j++) {
-                nodes[i][j] = toNode(row[j], columns[j].getType());
-            }
+        return new ValueResultSetImpl(null, new ResultSetMetaDataImpl(columns), rows.iterator(), converter(columns), null);
+    }
+
+    /**
+     * Executes a metadata query and returns a result set that maps its rows as the client reads them.  The
+     * statement is closed along with the returned result set.
+     */
+    static ResultSet newResultSet(ColumnInfo[] columns, PreparedStatement statement, RowMapper<Object[]> mapper)
+            throws SQLException {
+        ResultSet resultSet;
+        try {
+            resultSet = statement.executeQuery();
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
         }
-        return new ResultSetImpl(null, new ResultSetMetaDataImpl(columns), Arrays.asList(nodes));
+        Iterator<Object[]> rows = new AbstractIterator<Object[]>() {
+            @Override
+            protected Object[] computeNext() {
+                try {
+                    return resultSet.next() ? mapper.mapRow(resultSet) : endOfData();
+                } catch (SQLException e) {
+                    throw new UncheckedSQLException(e);
+                }
+            }
+        };
+        return new ValueResultSetImpl(null, new ResultSetMetaDataImpl(columns), rows, converter(columns), statement);
+    }
+
+    private static ValueResultSetImpl.ValueConverter converter(ColumnInfo[] columns) {
+        return (value, columnIndex) -> toNode(value, columns[columnIndex - 1].getType());
     }
 
     private static Node toNode(Object obj, int type) {
-        if (obj == null) {
-            return null;
-        }
         switch (type) {
             case Types.NVARCHAR:
                 String string = obj instanceof Iri ? ((Iri) obj).getIri() : (String) obj;
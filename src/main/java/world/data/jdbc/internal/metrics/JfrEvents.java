@@ -0,0 +1,174 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import world.data.jdbc.metrics.QueryPhase;
+
+import java.util.Map;
+
+/**
+ * Flight Recorder event definitions.  Only loaded by {@link JfrSupport} once it has checked that
+ * {@code jdk.jfr} is present.
+ */
+final class JfrEvents {
+    private static final String CATEGORY = "data.world JDBC";
+
+    private JfrEvents() {
+    }
+
+    static JfrSupport.QuerySpan beginQuery() {
+        QueryEvent event = new QueryEvent();
+        if (!event.isEnabled()) {
+            return JfrSupport.noopQuery();
+        }
+        event.begin();
+        return (query, stats) -> {
+            event.end();
+            if (event.shouldCommit()) {
+                event.queryId = query.getId();
+                event.language = getLanguage(query.getEndpoint());
+                event.endpoint = query.getEndpoint();
+                event.rowCount = stats.getRowCount();
+                event.requestBytes = stats.getRequestBytes();
+                event.responseBytes = stats.getResponseBytes();
+                event.spillBytes = stats.getSpillBytes();
+                Map<QueryPhase, Long> phases = stats.getPhaseNanos();
+                event.firstByteTime = phases.getOrDefault(QueryPhase.FIRST_BYTE, 0L);
+                event.downloadTime = phases.getOrDefault(QueryPhase.DOWNLOAD, 0L);
+                event.firstRowTime = phases.getOrDefault(QueryPhase.FIRST_ROW, 0L);
+                event.lastRowTime = phases.getOrDefault(QueryPhase.LAST_ROW, 0L);
+                event.error = stats.getError() != null ? stats.getError().toString() : null;
+                event.commit();
+            }
+        };
+    }
+
+    static JfrSupport.Span beginSpill() {
+        SpillEvent event = new SpillEvent();
+        if (!event.isEnabled()) {
+            return JfrSupport.noop();
+        }
+        event.begin();
+        return bytes -> {
+            event.fileSize = bytes;
+            event.commit();
+        };
+    }
+
+    static JfrSupport.Span beginAcquireWait() {
+        AcquireWaitEvent event = new AcquireWaitEvent();
+        if (!event.isEnabled()) {
+            return JfrSupport.noop();
+        }
+        event.begin();
+        return bytes -> {
+            event.bytesRequested = bytes;
+            event.commit();
+        };
+    }
+
+    /** Returns the query language from an endpoint of the form {@code <base>/<lang>/<agent>/<dataset>}. */
+    static String getLanguage(String endpoint) {
+        String[] segments = endpoint.split("/");
+        return segments.length >= 3 ? segments[segments.length - 3] : null;
+    }
+
+    @Name("world.data.jdbc.Query")
+    @Label("Query")
+    @Description("A query executed by the data.world JDBC driver, from the request until the result set is closed")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static class QueryEvent extends Event {
+        @Label("Query Id")
+        long queryId;
+
+        @Label("Language")
+        String language;
+
+        @Label("Endpoint")
+        String endpoint;
+
+        @Label("Row Count")
+        long rowCount;
+
+        @Label("Request Bytes")
+        @DataAmount
+        long requestBytes;
+
+        @Label("Response Bytes")
+        @DataAmount
+        long responseBytes;
+
+        @Label("Spill Bytes")
+        @DataAmount
+        long spillBytes;
+
+        @Label("Time To First Byte")
+        @Timespan
+        long firstByteTime;
+
+        @Label("Time To Download")
+        @Timespan
+        long downloadTime;
+
+        @Label("Time To First Row")
+        @Timespan
+        long firstRowTime;
+
+        @Label("Time To Last Row")
+        @Timespan
+        long lastRowTime;
+
+        @Label("Error")
+        String error;
+    }
+
+    @Name("world.data.jdbc.Spill")
+    @Label("Response Spill")
+    @Description("A query response downloaded to a temporary file because it was too big to buffer in memory")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static class SpillEvent extends Event {
+        @Label("File Size")
+        @DataAmount
+        long fileSize;
+    }
+
+    @Name("world.data.jdbc.AcquireWait")
+    @Label("Download Wait")
+    @Description("A reader blocked waiting for the background download of a spilled response to catch up")
+    @Category(CATEGORY)
+    @Enabled(false)
+    static class AcquireWaitEvent extends Event {
+        @Label("Bytes Requested")
+        @DataAmount
+        long bytesRequested;
+    }
+}
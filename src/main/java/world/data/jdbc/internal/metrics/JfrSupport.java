@@ -0,0 +1,90 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.metrics;
+
+import lombok.experimental.UtilityClass;
+import world.data.jdbc.metrics.QueryInfo;
+import world.data.jdbc.metrics.QueryStats;
+
+/**
+ * Emits JDK Flight Recorder events when the JVM supports them.
+ * <p>
+ * All events are disabled by default.  Enable them in a recording using the {@code world.data.jdbc.*} event names,
+ * eg. {@code -XX:StartFlightRecording:settings=profile} with a custom {@code .jfc} file.  This class doesn't
+ * reference {@code jdk.jfr} directly so the driver still works on JVMs without Flight Recorder.
+ */
+@UtilityClass
+public class JfrSupport {
+    private static final boolean AVAILABLE = isFlightRecorderPresent();
+
+    /** The end of a timed operation. */
+    public interface Span {
+        /** Completes the operation, recording the specified number of bytes. */
+        void end(long bytes);
+    }
+
+    /** The end of a query, from the request until the result set is closed. */
+    public interface QuerySpan {
+        /** Completes the query, recording its final statistics. */
+        void end(QueryInfo query, QueryStats stats);
+    }
+
+    private static final Span NOOP = bytes -> {};
+    private static final QuerySpan NOOP_QUERY = (query, stats) -> {};
+
+    /** Returns true if the JVM supports Flight Recorder events. */
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    /**
+     * Starts timing a query.  The span is held by the query's tracker, so a query whose result set is never closed
+     * doesn't leave anything behind.  Returns a no-op span unless a recording has enabled query events.
+     */
+    public static QuerySpan beginQuery() {
+        return AVAILABLE ? JfrEvents.beginQuery() : NOOP_QUERY;
+    }
+
+    /** Starts timing a download to a temporary file.  End the span with the size of the file. */
+    public static Span beginSpill() {
+        return AVAILABLE ? JfrEvents.beginSpill() : NOOP;
+    }
+
+    /** Starts timing a reader blocked waiting for a download.  End the span with the number of bytes requested. */
+    public static Span beginAcquireWait() {
+        return AVAILABLE ? JfrEvents.beginAcquireWait() : NOOP;
+    }
+
+    static Span noop() {
+        return NOOP;
+    }
+
+    static QuerySpan noopQuery() {
+        return NOOP_QUERY;
+    }
+
+    private static boolean isFlightRecorderPresent() {
+        try {
+            Class.forName("jdk.jfr.Event", false, JfrSupport.class.getClassLoader());
+            return true;
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.metrics;
+
+import lombok.experimental.UtilityClass;
+import lombok.extern.java.Log;
+import world.data.jdbc.metrics.QueryInfo;
+import world.data.jdbc.metrics.QueryListener;
+import world.data.jdbc.metrics.QueryPhase;
+import world.data.jdbc.metrics.QueryStats;
+
+import javax.annotation.Nullable;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.logging.Level;
+
+/**
+ * Creates {@link QueryListener} instances from connection properties and {@link ServiceLoader} registrations.
+ */
+@Log
+@UtilityClass
+public class QueryListeners {
+    public static final QueryListener NOOP = new QueryListener() {
+    };
+
+    private static volatile List<QueryListener> serviceListeners;
+
+    /**
+     * Returns a listener that forwards to the listeners registered via {@code ServiceLoader} plus instances of the
+     * specified comma-separated list of class names.
+     */
+    public static QueryListener create(@Nullable String classNames) throws SQLException {
+        List<QueryListener> listeners = new ArrayList<>(getServiceListeners());
+        if (classNames != null) {
+            for (String className : classNames.split(",")) {
+                if (!className.trim().isEmpty()) {
+                    listeners.add(newInstance(className.trim()));
+                }
+            }
+        }
+        return compose(listeners);
+    }
+
+    /** Returns a listener that forwards to all the specified listeners, isolating them from each other's errors. */
+    public static QueryListener compose(List<QueryListener> listeners) {
+        if (listeners.isEmpty()) {
+            return NOOP;
+        }
+        QueryListener[] array = listeners.toArray(new QueryListener[0]);
+        return new QueryListener() {
+            @Override
+            public void queryStarted(QueryInfo query) {
+                for (QueryListener listener : array) {
+                    try {
+                        listener.queryStarted(query);
+                    } catch (RuntimeException e) {
+                        logError(listener, e);
+                    }
+                }
+            }
+
+            @Override
+            public void queryPhase(QueryInfo query, QueryPhase phase, long elapsedNanos) {
+                for (QueryListener listener : array) {
+                    try {
+                        listener.queryPhase(query, phase, elapsedNanos);
+                    } catch (RuntimeException e) {
+                        logError(listener, e);
+                    }
+                }
+            }
+
+            @Override
+            public void queryFinished(QueryInfo query, QueryStats stats) {
+                for (QueryListener listener : array) {
+                    try {
+                        listener.queryFinished(query, stats);
+                    } catch (RuntimeException e) {
+                        logError(listener, e);
+                    }
+                }
+            }
+        };
+    }
+
+    private static List<QueryListener> getServiceListeners() {
+        List<QueryListener> listeners = serviceListeners;
+        if (listeners == null) {
+            listeners = new ArrayList<>();
+            try {
+                for (QueryListener listener : ServiceLoader.load(QueryListener.class, QueryListeners.class.getClassLoader())) {
+                    listeners.add(listener);
+                }
+            } catch (Throwable t) {
+                log.log(Level.WARNING, "Unable to load query listeners", t);
+            }
+            serviceListeners = listeners = Collections.unmodifiableList(listeners);
+        }
+        return listeners;
+    }
+
+    private static QueryListener newInstance(String className) throws SQLException {
+        try {
+            Class<?> clazz = Class.forName(className, true, getClassLoader());
+            return clazz.asSubclass(QueryListener.class).getConstructor().newInstance();
+        } catch (Exception e) {
+            throw new SQLException("Unable to create query listener: " + className, e);
+        }
+    }
+
+    private static ClassLoader getClassLoader() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return classLoader != null ? classLoader : QueryListeners.class.getClassLoader();
+    }
+
+    private static void logError(QueryListener listener, RuntimeException e) {
+        log.log(Level.WARNING, "Query listener failed: " + listener.getClass().getName(), e);
+    }
+}
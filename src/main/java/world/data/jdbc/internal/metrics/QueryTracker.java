@@ -0,0 +1,185 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.metrics;
+
+import world.data.jdbc.internal.util.AbstractIterator;
+import world.data.jdbc.metrics.QueryInfo;
+import world.data.jdbc.metrics.QueryListener;
+import world.data.jdbc.metrics.QueryPhase;
+import world.data.jdbc.metrics.QueryStats;
+
+import javax.annotation.Nullable;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Collects timings and counters for a single query and reports them to a {@link QueryListener} and, when a
+ * recording has enabled them, Flight Recorder query events.
+ * <p>
+ * Thread-safe, since downloads complete on a background thread.
+ */
+public final class QueryTracker {
+    private static final AtomicLong ID_COUNTER = new AtomicLong();
+    private static final QueryPhase[] PHASES = QueryPhase.values();
+
+    private final QueryListener listener;
+    private final QueryInfo info;
+    private final JfrSupport.QuerySpan jfrSpan;
+    private final long startNanos = System.nanoTime();
+    private final AtomicLongArray phaseNanos = new AtomicLongArray(PHASES.length);
+    private final AtomicLong requestBytes = new AtomicLong();
+    private final AtomicLong responseBytes = new AtomicLong();
+    private final AtomicLong spillBytes = new AtomicLong();
+    private final AtomicLong rowCount = new AtomicLong();
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    private QueryTracker(QueryListener listener, QueryInfo info, JfrSupport.QuerySpan jfrSpan) {
+        this.listener = requireNonNull(listener, "listener");
+        this.info = requireNonNull(info, "info");
+        this.jfrSpan = requireNonNull(jfrSpan, "jfrSpan");
+        for (int i = 0; i < PHASES.length; i++) {
+            phaseNanos.set(i, -1);
+        }
+    }
+
+    /** Creates a tracker and notifies the listener that the query has started. */
+    public static QueryTracker start(QueryListener listener, String endpoint, String query) {
+        QueryInfo info = QueryInfo.builder()
+                .id(ID_COUNTER.incrementAndGet())
+                .endpoint(endpoint)
+                .query(query)
+                .build();
+        QueryTracker tracker = new QueryTracker(listener, info, JfrSupport.beginQuery());
+        listener.queryStarted(info);
+        return tracker;
+    }
+
+    /** Returns a tracker that doesn't report to any listener. */
+    public static QueryTracker untracked() {
+        return new QueryTracker(QueryListeners.NOOP, QueryInfo.builder().endpoint("").query("").build(),
+                JfrSupport.noopQuery());
+    }
+
+    public QueryInfo getInfo() {
+        return info;
+    }
+
+    /** Returns the time since the start of the query, in nanoseconds. */
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /** Records that the query reached the specified phase.  Only the first occurrence of each phase is reported. */
+    public void phase(QueryPhase phase) {
+        long elapsed = getElapsedNanos();
+        if (phaseNanos.compareAndSet(phase.ordinal(), -1, elapsed)) {
+            listener.queryPhase(info, phase, elapsed);
+        }
+    }
+
+    public void addRequestBytes(long count) {
+        requestBytes.addAndGet(count);
+    }
+
+    public void addResponseBytes(long count) {
+        responseBytes.addAndGet(count);
+    }
+
+    public void addSpillBytes(long count) {
+        spillBytes.addAndGet(count);
+    }
+
+    public long getResponseBytes() {
+        return responseBytes.get();
+    }
+
+    public long getSpillBytes() {
+        return spillBytes.get();
+    }
+
+    public long getRowCount() {
+        return rowCount.get();
+    }
+
+    /** Reports the final statistics for the query.  Only the first call has any effect. */
+    public void finish(@Nullable Throwable error) {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        if (error == null) {
+            phase(QueryPhase.CLOSE);
+        }
+        Map<QueryPhase, Long> phases = new EnumMap<>(QueryPhase.class);
+        for (int i = 0; i < PHASES.length; i++) {
+            long nanos = phaseNanos.get(i);
+            if (nanos != -1) {
+                phases.put(PHASES[i], nanos);
+            }
+        }
+        QueryStats stats = QueryStats.builder()
+                .requestBytes(requestBytes.get())
+                .responseBytes(responseBytes.get())
+                .spillBytes(spillBytes.get())
+                .rowCount(rowCount.get())
+                .phaseNanos(phases)
+                .elapsedNanos(getElapsedNanos())
+                .error(error)
+                .build();
+        listener.queryFinished(info, stats);
+        jfrSpan.end(info, stats);
+    }
+
+    /** Wraps an iterator of rows to count rows and record the first and last row phases. */
+    public <T> Iterator<T> trackRows(Iterator<T> rows) {
+        requireNonNull(rows, "rows");
+        return new AbstractIterator<T>() {
+            @Override
+            protected T computeNext() {
+                if (!rows.hasNext()) {
+                    phase(QueryPhase.LAST_ROW);
+                    return endOfData();
+                }
+                T row = rows.next();
+                if (rowCount.incrementAndGet() == 1) {
+                    phase(QueryPhase.FIRST_ROW);
+                }
+                return row;
+            }
+        };
+    }
+
+    /** Wraps a cleanup function to report the query finished when the cleanup function is invoked. */
+    public AutoCloseable trackClose(@Nullable AutoCloseable cleanup) {
+        return () -> {
+            try {
+                if (cleanup != null) {
+                    cleanup.close();
+                }
+            } finally {
+                finish(null);
+            }
+        };
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.query;
+
+import lombok.experimental.UtilityClass;
+import world.data.jdbc.internal.transport.BoundQuery;
+import world.data.jdbc.internal.transport.EncodedQuery;
+import world.data.jdbc.model.Node;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static world.data.jdbc.internal.query.ParsedQuery.isPositionalParameterName;
+import static world.data.jdbc.internal.query.ParsedQuery.positionalParameterName;
+import static world.data.jdbc.internal.util.Conditions.check;
+
+/**
+ * Binds array parameters by rewriting the query: each element becomes a parameter of a SQL IN-list, or a row of a
+ * SPARQL {@code VALUES} clause.  Arrays bigger than {@link #CHUNK_SIZE} are split across several queries that are
+ * executed concurrently and their results concatenated.
+ * <p>
+ * Since each query only sees part of the array, {@code ORDER BY}, {@code DISTINCT}, {@code LIMIT} and aggregates
+ * apply to each query separately when an array is split.
+ */
+@UtilityClass
+class ArrayParameters {
+    /** Maximum number of array elements sent in one query. */
+    static final int CHUNK_SIZE = 1000;
+
+    /**
+     * Expands each {@code ?} bound to an array into a comma-separated list of parameters, renumbering the
+     * parameters that follow.  An empty array becomes {@code NULL} so {@code x IN (?)} matches nothing.
+     */
+    static List<BoundQuery> bindSql(ParsedQuery query, Map<String, Node> parameters, Map<String, List<Node>> arrays,
+                                    int chunkSize) {
+        if (arrays.isEmpty()) {
+            return Collections.singletonList(new BoundQuery(query.getEncodedQuery(), parameters));
+        }
+        String splitName = largest(arrays, chunkSize);
+        List<BoundQuery> queries = new ArrayList<>();
+        for (List<Node> chunk : chunks(splitName != null ? arrays.get(splitName) : null, chunkSize)) {
+            String text = query.getQuery();
+            StringBuilder buf = new StringBuilder(text.length() + 16);
+            Map<String, Node> bound = new LinkedHashMap<>();
+            int next = 0;
+            int start = 0;
+            List<Integer> offsets = query.getParameterOffsets();
+            for (int i = 0; i < offsets.size(); i++) {
+                int offset = offsets.get(i);
+                buf.append(text, start, offset);
+                start = offset + 1;
+                String name = positionalParameterName(i);
+                List<Node> elements = name.equals(splitName) ? chunk : arrays.get(name);
+                if (elements == null) {
+                    buf.append('?');
+                    bound.put(positionalParameterName(next++), parameters.get(name));
+                } else if (elements.isEmpty()) {
+                    buf.append("NULL");
+                } else {
+                    for (int j = 0; j < elements.size(); j++) {
+                        buf.append(j == 0 ? "?" : ", ?");
+                        bound.put(positionalParameterName(next++), elements.get(j));
+                    }
+                }
+            }
+            buf.append(text, start, text.length());
+            parameters.forEach((name, value) -> {
+                if (!isPositionalParameterName(name)) {
+                    bound.put(name, value);
+                }
+            });
+            queries.add(new BoundQuery(EncodedQuery.of(buf.toString()), bound));
+        }
+        return queries;
+    }
+
+    /**
+     * Appends a {@code VALUES} clause binding the variable to the elements of the array.  A trailing
+     * {@code VALUES} clause is joined with the query pattern, so it works with any form of query that doesn't
+     * already end with one.  Null elements are {@code UNDEF}.
+     */
+    static List<BoundQuery> bindSparql(ParsedQuery query, Map<String, Node> parameters, Map<String, List<Node>> arrays,
+                                       int chunkSize) throws SQLException {
+        if (arrays.isEmpty()) {
+            return Collections.singletonList(new BoundQuery(query.getEncodedQuery(), parameters));
+        }
+        check(arrays.size() == 1, "Only one array parameter may be bound per SPARQL query");
+        Map.Entry<String, List<Node>> array = arrays.entrySet().iterator().next();
+        String variable = "?" + array.getKey().substring(1);
+        List<BoundQuery> queries = new ArrayList<>();
+        for (List<Node> chunk : chunks(array.getValue(), chunkSize)) {
+            StringBuilder buf = new StringBuilder(query.getQuery().length() + 64 * chunk.size())
+                    .append(query.getQuery())
+                    // Newline in case the query ends with a comment
+                    .append("\nVALUES ").append(variable).append(" {");
+            for (Node element : chunk) {
+                buf.append(' ').append(element != null ? element.toString() : "UNDEF");
+            }
+            buf.append(" }");
+            queries.add(new BoundQuery(EncodedQuery.of(buf.toString()), parameters));
+        }
+        return queries;
+    }
+
+    /** Returns the name of the largest array if it needs to be split, otherwise null. */
+    private static String largest(Map<String, List<Node>> arrays, int chunkSize) {
+        String largest = null;
+        int size = chunkSize;
+        for (Map.Entry<String, List<Node>> entry : arrays.entrySet()) {
+            if (entry.getValue().size() > size) {
+                largest = entry.getKey();
+                size = entry.getValue().size();
+            }
+        }
+        return largest;
+    }
+
+    private static List<List<Node>> chunks(List<Node> elements, int chunkSize) {
+        if (elements == null || elements.size() <= chunkSize) {
+            return Collections.singletonList(elements != null ? elements : Collections.emptyList());
+        }
+        List<List<Node>> chunks = new ArrayList<>();
+        for (int i = 0; i < elements.size(); i += chunkSize) {
+            chunks.add(elements.subList(i, Math.min(elements.size(), i + chunkSize)));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.query;
+
+import lombok.extern.java.Log;
+import world.data.jdbc.internal.transport.EncodedQuery;
+import world.data.jdbc.internal.transport.QueryApi;
+import world.data.jdbc.internal.transport.Response;
+import world.data.jdbc.internal.util.CancelToken;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Validates a transport by sending it a trivial query.  The outcome is remembered for a short time so connection
+ * pools that validate every connection on checkout don't send a probe per checkout.  Each query engine has one,
+ * so it's shared by the connections of a {@link world.data.jdbc.DataWorldDataSource} while connections from
+ * {@link world.data.jdbc.Driver#connect} each have their own.
+ */
+@Log
+final class HealthCheck {
+    static final long CACHE_MILLIS = 2000;
+
+    private final QueryApi queryApi;
+    private final EncodedQuery probe;
+    private final LongSupplier nanoTime;
+    /** The outcome of the last probe, null before the first probe. */
+    private volatile Outcome last;
+    /** The probe in progress, null if none. */
+    private CompletableFuture<Boolean> inFlight;  // guarded by 'this'
+
+    HealthCheck(QueryApi queryApi, String probe) {
+        this(queryApi, probe, System::nanoTime);
+    }
+
+    HealthCheck(QueryApi queryApi, String probe, LongSupplier nanoTime) {
+        this.queryApi = requireNonNull(queryApi, "queryApi");
+        this.probe = EncodedQuery.of(probe);
+        this.nanoTime = requireNonNull(nanoTime, "nanoTime");
+    }
+
+    /**
+     * Returns true if the probe query succeeded recently or succeeds within {@code timeoutSeconds}, zero meaning
+     * the transport's default query timeout.  Callers that arrive while another probe is in progress share its
+     * outcome, but give up and return false once their own timeout expires.
+     */
+    boolean isValid(int timeoutSeconds) {
+        Outcome outcome = last;
+        if (outcome != null && !outcome.isExpired()) {
+            return outcome.valid;
+        }
+        CompletableFuture<Boolean> future;
+        boolean started = false;
+        synchronized (this) {
+            // Another thread may have completed a probe while this one was waiting
+            outcome = last;
+            if (outcome != null && !outcome.isExpired()) {
+                return outcome.valid;
+            }
+            if (inFlight == null) {
+                inFlight = new CompletableFuture<>();
+                started = true;
+            }
+            future = inFlight;
+        }
+        if (started) {
+            boolean valid = false;
+            try {
+                valid = probe(timeoutSeconds);
+                return valid;
+            } finally {
+                synchronized (this) {
+                    last = new Outcome(valid, nanoTime.getAsLong());
+                    inFlight = null;
+                }
+                future.complete(valid);
+            }
+        }
+        // Share the probe in progress, but don't wait for it longer than this caller's own timeout
+        try {
+            return timeoutSeconds > 0 ? future.get(timeoutSeconds, TimeUnit.SECONDS) : future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    private boolean probe(int timeoutSeconds) {
+        Response response;
+        try (CancelToken cancelToken = new CancelToken()) {
+            response = queryApi.executeQuery(probe, Collections.emptyMap(), 1,
+                    timeoutSeconds > 0 ? timeoutSeconds : null, 0, cancelToken);
+        } catch (SQLException | RuntimeException e) {
+            log.log(Level.FINE, "Connection validation failed", e);
+            return false;
+        }
+        // The response content doesn't matter, any successful response means the endpoint accepted the query
+        try {
+            if (response.getCleanup() != null) {
+                response.getCleanup().close();
+            }
+        } catch (Exception e) {
+            log.log(Level.FINE, "Unable to close the validation response", e);
+        }
+        return true;
+    }
+
+    private final class Outcome {
+        private final boolean valid;
+        private final long checkedNanos;
+
+        Outcome(boolean valid, long checkedNanos) {
+            this.valid = valid;
+            this.checkedNanos = checkedNanos;
+        }
+
+        boolean isExpired() {
+            return nanoTime.getAsLong() - checkedNanos >= TimeUnit.MILLISECONDS.toNanos(CACHE_MILLIS);
+        }
+    }
+}
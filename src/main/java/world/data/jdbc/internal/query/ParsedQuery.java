@@ -0,0 +1,53 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.query;
+
+import world.data.jdbc.internal.transport.EncodedQuery;
+
+import java.util.List;
+
+/**
+ * The result of scanning a query once at prepare time: where its parameters are and the encoded query text that
+ * is sent on every execution.
+ */
+@lombok.Value
+public class ParsedQuery {
+    private static final String POSITIONAL_PARAMETER_PREFIX = "$data_world_param";
+
+    private final EncodedQuery encodedQuery;
+
+    /** Character offsets of the {@code ?} positional parameter markers, in order. */
+    private final List<Integer> parameterOffsets;
+
+    /** Names of the parameters that can be bound by name, without prefix, in order of first appearance. */
+    private final List<String> parameterNames;
+
+    public String getQuery() {
+        return encodedQuery.getQuery();
+    }
+
+    /** Returns the name the server uses for the positional parameter at 'index', zero-based. */
+    public static String positionalParameterName(int index) {
+        return POSITIONAL_PARAMETER_PREFIX + index;
+    }
+
+    public static boolean isPositionalParameterName(String name) {
+        return name.startsWith(POSITIONAL_PARAMETER_PREFIX);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.query;
+
+import world.data.jdbc.internal.util.LruMap;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A small LRU cache of parsed queries keyed by query text.  Connections created by a
+ * {@link world.data.jdbc.DataWorldDataSource} share an engine, so a query prepared by one connection is parsed
+ * and encoded once for all of them.
+ */
+final class QueryCache {
+    /** Very long queries, eg. with inlined data, are unlikely to repeat and would crowd out the rest. */
+    private static final int MAX_QUERY_LENGTH = 16 * 1024;
+
+    private final Map<String, ParsedQuery> cache;
+
+    QueryCache(int maxSize) {
+        this.cache = new LruMap<>(maxSize);
+    }
+
+    ParsedQuery get(String query, Function<String, ParsedQuery> parser) {
+        if (query.length() > MAX_QUERY_LENGTH) {
+            return parser.apply(query);
+        }
+        synchronized (cache) {
+            ParsedQuery parsed = cache.get(query);
+            if (parsed != null) {
+                return parsed;
+            }
+        }
+        // Parse outside the lock, a race just parses the same query twice
+        ParsedQuery parsed = parser.apply(query);
+        synchronized (cache) {
+            cache.put(query, parsed);
+        }
+        return parsed;
+    }
+}
@@ -20,13 +20,18 @@ package world.data.jdbc.internal.query;
 
 import world.data.jdbc.DataWorldConnection;
 import world.data.jdbc.DataWorldStatement;
+import world.data.jdbc.ExportFormat;
 import world.data.jdbc.JdbcCompatibility;
+import world.data.jdbc.internal.transport.BoundQuery;
+import world.data.jdbc.internal.util.CancelToken;
 import world.data.jdbc.model.Node;
 
+import java.nio.channels.WritableByteChannel;
 import java.sql.DatabaseMetaData;
 import java.sql.ParameterMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.Map;
 
 public interface QueryEngine {
@@ -37,13 +42,35 @@ public interface QueryEngine {
 
     String getLanguage();
 
+    /**
+     * Returns true if the server accepts a trivial query within the timeout.  The outcome is cached briefly and
+     * shared by all connections using this engine.
+     */
+    boolean isValid(int timeoutSeconds);
+
     JdbcCompatibility getDefaultCompatibilityLevel();
 
     DatabaseMetaData getDatabaseMetaData(DataWorldConnection connection) throws SQLException;
 
-    ParameterMetaData getParameterMetaData(String query) throws SQLException;
+    /** Scans the query for parameters, once per prepared statement. */
+    ParsedQuery parse(String query);
+
+    ParameterMetaData getParameterMetaData(ParsedQuery query) throws SQLException;
+
+    /**
+     * Binds parameter values to a parsed query.  Array parameters are expanded into the query text, large arrays
+     * are split across several queries whose results are concatenated.
+     */
+    List<BoundQuery> bind(ParsedQuery query, Map<String, Node> parameters, Map<String, List<Node>> arrays)
+            throws SQLException;
+
+    ResultSet execute(DataWorldStatement statement, List<BoundQuery> queries, Integer timeoutSeconds,
+                      CancelToken cancelToken)
+            throws SQLException;
 
-    ResultSet execute(DataWorldStatement statement, String query, Map<String, Node> parameters, Integer timeoutSeconds)
+    /** Executes the queries and writes their results to a channel, returns the number of bytes written. */
+    long export(DataWorldStatement statement, List<BoundQuery> queries, Integer timeoutSeconds,
+                CancelToken cancelToken, ExportFormat format, WritableByteChannel out)
             throws SQLException;
 
     void checkPositionalParametersSupported() throws SQLException;
@@ -0,0 +1,170 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.query;
+
+import lombok.experimental.UtilityClass;
+import world.data.jdbc.internal.transport.EncodedQuery;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds the parameters in SQL and SPARQL queries, skipping over string literals, quoted identifiers, IRIs and
+ * comments so that a {@code ?} inside them isn't mistaken for a parameter.
+ * <p>
+ * The lexer only understands as much of each language as needed to find parameters.  Malformed queries, eg. an
+ * unterminated string, are passed through so the server can report the syntax error.
+ */
+@UtilityClass
+public class QueryLexer {
+
+    /**
+     * Scans a SQL query for {@code ?} positional parameter markers.  Skips {@code 'strings'},
+     * {@code "identifiers"}, {@code `identifiers`}, {@code -- line comments} and {@code /* block comments *}{@code /}.
+     */
+    public static ParsedQuery parseSql(String query) {
+        List<Integer> offsets = new ArrayList<>();
+        int length = query.length();
+        int i = 0;
+        while (i < length) {
+            char ch = query.charAt(i);
+            switch (ch) {
+                case '\'':
+                case '"':
+                case '`':
+                    // Quotes are escaped by doubling them, which the loop handles as two adjacent quoted sections
+                    i = skipPast(query, i + 1, ch);
+                    break;
+                case '-':
+                    i = query.startsWith("--", i) ? skipLine(query, i) : i + 1;
+                    break;
+                case '/':
+                    i = query.startsWith("/*", i) ? skipPast(query, i + 2, "*/") : i + 1;
+                    break;
+                case '?':
+                    offsets.add(i++);
+                    break;
+                default:
+                    i++;
+                    break;
+            }
+        }
+        return new ParsedQuery(EncodedQuery.of(query), Collections.unmodifiableList(offsets), Collections.emptyList());
+    }
+
+    /**
+     * Scans a SPARQL query for {@code ?var} and {@code $var} variables, which may be bound by name.  Skips string
+     * literals in all four quoting styles, {@code <IRIs>} and {@code # comments}.  SPARQL doesn't support
+     * positional parameters, a lone {@code ?} is a property path modifier.
+     */
+    public static ParsedQuery parseSparql(String query) {
+        Set<String> names = new LinkedHashSet<>();
+        int length = query.length();
+        int i = 0;
+        while (i < length) {
+            char ch = query.charAt(i);
+            switch (ch) {
+                case '\'':
+                case '"':
+                    if (query.startsWith(ch == '"' ? "\"\"\"" : "'''", i)) {
+                        i = skipPastEscaped(query, i + 3, ch == '"' ? "\"\"\"" : "'''");
+                    } else {
+                        i = skipPastEscaped(query, i + 1, String.valueOf(ch));
+                    }
+                    break;
+                case '<':
+                    i = skipIri(query, i);
+                    break;
+                case '#':
+                    i = skipLine(query, i);
+                    break;
+                case '?':
+                case '$':
+                    int end = i + 1;
+                    while (end < length && isVarNameChar(query.charAt(end))) {
+                        end++;
+                    }
+                    if (end > i + 1) {
+                        names.add(query.substring(i + 1, end));
+                    }
+                    i = end;
+                    break;
+                default:
+                    i++;
+                    break;
+            }
+        }
+        return new ParsedQuery(EncodedQuery.of(query), Collections.emptyList(),
+                Collections.unmodifiableList(new ArrayList<>(names)));
+    }
+
+    private static int skipPast(String query, int start, char terminator) {
+        int end = query.indexOf(terminator, start);
+        return end != -1 ? end + 1 : query.length();
+    }
+
+    private static int skipPast(String query, int start, String terminator) {
+        int end = query.indexOf(terminator, start);
+        return end != -1 ? end + terminator.length() : query.length();
+    }
+
+    /** Skips a SPARQL string literal where backslash escapes the next character. */
+    private static int skipPastEscaped(String query, int start, String terminator) {
+        int length = query.length();
+        for (int i = start; i < length; i++) {
+            char ch = query.charAt(i);
+            if (ch == '\\') {
+                i++;
+            } else if (query.startsWith(terminator, i)) {
+                return i + terminator.length();
+            }
+        }
+        return length;
+    }
+
+    private static int skipLine(String query, int start) {
+        int end = query.indexOf('\n', start);
+        return end != -1 ? end + 1 : query.length();
+    }
+
+    /** Skips an IRIREF if there is one at 'start', otherwise '<' is the less-than operator. */
+    private static int skipIri(String query, int start) {
+        int length = query.length();
+        for (int i = start + 1; i < length; i++) {
+            char ch = query.charAt(i);
+            if (ch == '>') {
+                return i + 1;
+            }
+            if (ch <= ' ' || "<\"{}|^`\\".indexOf(ch) != -1) {
+                break;
+            }
+        }
+        return start + 1;
+    }
+
+    private static boolean isVarNameChar(char ch) {
+        // Approximates the SPARQL VARNAME production: PN_CHARS_U, digits, and the extra PN_CHARS characters
+        // U+00B7 (middle dot), U+0300-U+036F (combining diacritical marks) and U+203F-U+2040 (tie characters)
+        return Character.isLetterOrDigit(ch) || ch == '_' || ch == '\u00B7'
+                || (ch >= '\u0300' && ch <= '\u036F') || (ch >= '\u203F' && ch <= '\u2040');
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.query;
+
+import lombok.experimental.UtilityClass;
+import world.data.jdbc.ExportFormat;
+import world.data.jdbc.internal.transport.BoundQuery;
+import world.data.jdbc.internal.transport.QueryApi;
+import world.data.jdbc.internal.transport.Response;
+import world.data.jdbc.internal.util.CancelToken;
+import world.data.jdbc.internal.util.LimitedIterator;
+import world.data.jdbc.model.Iri;
+import world.data.jdbc.model.Literal;
+import world.data.jdbc.model.Node;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static world.data.jdbc.internal.util.Conditions.check;
+
+/**
+ * Writes query results to a channel for {@link world.data.jdbc.DataWorldStatement#exportTo}.
+ * <p>
+ * Single queries ask the server for the export format and the response is copied to the channel verbatim.
+ * Queries split by large array parameters, and responses the server couldn't produce in the export format,
+ * are parsed and re-serialized through a buffered UTF-8 writer.
+ */
+@UtilityClass
+class ResultExporter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    static long export(QueryApi queryApi, List<BoundQuery> queries, int maxRows, Integer timeoutSeconds,
+                       int networkTimeoutMillis, CancelToken cancelToken, ExportFormat format,
+                       WritableByteChannel out) throws SQLException {
+        check(out != null, "Channel argument may not be null");
+        check(format != null, "Format argument may not be null");
+        Integer maxRowsToReturn = maxRows != 0 ? maxRows : null;
+
+        // Execute the query
+        Response response;
+        if (queries.size() == 1) {
+            BoundQuery query = queries.get(0);
+            response = queryApi.exportQuery(query.getQuery(), query.getParameters(), maxRowsToReturn, timeoutSeconds,
+                    networkTimeoutMillis, cancelToken, format, out);
+        } else {
+            response = queryApi.executeQueries(queries, maxRowsToReturn, timeoutSeconds, networkTimeoutMillis,
+                    cancelToken);
+        }
+
+        AutoCloseable cleanup = response.getCleanup();
+        try {
+            try {
+                if (response.getBytesExported() != null) {
+                    return response.getBytesExported();
+                }
+                return transcode(response, maxRows, format, out);
+            } finally {
+                if (cleanup != null) {
+                    cleanup.close();
+                }
+            }
+
+        } catch (SQLException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new SQLException("I/O exception exporting query results.", e);
+        } catch (Exception e) {
+            throw new SQLException("Unexpected exception exporting query results.", e);
+        }
+    }
+
+    static long transcode(Response response, int maxRows, ExportFormat format, WritableByteChannel out)
+            throws SQLException, IOException {
+        CountingChannel counter = new CountingChannel(out);
+        // Don't close the writer, that would close the channel
+        Writer writer = Channels.newWriter(counter, UTF_8.newEncoder(), BUFFER_SIZE);
+        switch (format) {
+            case CSV:
+                writeCsv(response, maxRows, writer);
+                break;
+            case N_TRIPLES:
+                writeNTriples(response, maxRows, writer);
+                break;
+            default:
+                throw new SQLException("Unsupported export format: " + format);
+        }
+        writer.flush();
+        return counter.count;
+    }
+
+    private static void writeCsv(Response response, int maxRows, Writer writer) throws SQLException, IOException {
+        if (response.getBooleanResult() != null) {
+            // Same column name as the ASK result set
+            writer.write("ASK\r\n");
+            writer.write(response.getBooleanResult().toString());
+            writer.write("\r\n");
+            return;
+        }
+        check(response.getRows() != null, "Response is missing row data");
+        List<Response.Column> columns = response.getColumns();
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeCsvField(writer, columns.get(i).getName());
+        }
+        writer.write("\r\n");
+        Iterator<Node[]> rows = limit(response.getRows(), maxRows);
+        while (rows.hasNext()) {
+            Node[] row = rows.next();
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (row[i] != null) {
+                    writeCsvField(writer, toCsvValue(row[i]));
+                }
+            }
+            writer.write("\r\n");
+        }
+    }
+
+    private static String toCsvValue(Node node) {
+        if (node instanceof Literal) {
+            return ((Literal) node).getLexicalForm();
+        } else if (node instanceof Iri) {
+            return ((Iri) node).getIri();
+        } else {
+            // Blank nodes are written as '_:label'
+            return node.toString();
+        }
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        // See https://tools.ietf.org/html/rfc4180#section-2, quote fields containing separators, quotes or newlines
+        boolean quote = false;
+        for (int i = 0, len = value.length(); i < len && !quote; i++) {
+            char ch = value.charAt(i);
+            quote = ch == ',' || ch == '"' || ch == '\r' || ch == '\n';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        int start = 0;
+        for (int i = 0, len = value.length(); i < len; i++) {
+            if (value.charAt(i) == '"') {
+                writer.write(value, start, i + 1 - start);
+                writer.write('"');
+                start = i + 1;
+            }
+        }
+        writer.write(value, start, value.length() - start);
+        writer.write('"');
+    }
+
+    private static void writeNTriples(Response response, int maxRows, Writer writer) throws SQLException, IOException {
+        check(response.getRows() != null && response.getColumns().size() == 3,
+                "Only queries returning triples, eg. CONSTRUCT or DESCRIBE, can be exported as N-Triples");
+        Iterator<Node[]> rows = limit(response.getRows(), maxRows);
+        while (rows.hasNext()) {
+            Node[] row = rows.next();
+            check(row[0] != null && row[1] != null && row[2] != null, "Unable to export incomplete triple as N-Triples");
+            // Nodes format themselves as N-Triples terms
+            writer.write(row[0].toString());
+            writer.write(' ');
+            writer.write(row[1].toString());
+            writer.write(' ');
+            writer.write(row[2].toString());
+            writer.write(" .\n");
+        }
+    }
+
+    private static Iterator<Node[]> limit(Iterator<Node[]> rows, int maxRows) throws SQLException {
+        // Queries split across several requests are each limited by the server, apply the limit to the whole
+        return maxRows != 0 ? new LimitedIterator<>(rows, maxRows) : rows;
+    }
+
+    private static final class CountingChannel implements WritableByteChannel {
+        private final WritableByteChannel delegate;
+        private long count;
+
+        CountingChannel(WritableByteChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int written = delegate.write(src);
+            count += written;
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return delegate.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
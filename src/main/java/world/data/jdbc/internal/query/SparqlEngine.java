@@ -20,6 +20,7 @@ package world.data.jdbc.internal.query;
 
 import world.data.jdbc.DataWorldConnection;
 import world.data.jdbc.DataWorldStatement;
+import world.data.jdbc.ExportFormat;
 import world.data.jdbc.JdbcCompatibility;
 import world.data.jdbc.internal.metadata.ColumnFactory;
 import world.data.jdbc.internal.metadata.ColumnInfo;
@@ -27,9 +28,12 @@ import world.data.jdbc.internal.metadata.ParameterMetaDataImpl;
 import world.data.jdbc.internal.metadata.ResultSetMetaDataImpl;
 import world.data.jdbc.internal.metadata.SparqlDatabaseMetaData;
 import world.data.jdbc.internal.results.ResultSetImpl;
+import world.data.jdbc.internal.results.ScrollableResultSetImpl;
+import world.data.jdbc.internal.transport.BoundQuery;
 import world.data.jdbc.internal.transport.QueryApi;
 import world.data.jdbc.internal.transport.Response;
 import world.data.jdbc.internal.types.TypeMap;
+import world.data.jdbc.internal.util.CancelToken;
 import world.data.jdbc.internal.util.CloseableRef;
 import world.data.jdbc.internal.util.PeekingIterator;
 import world.data.jdbc.model.Iri;
@@ -39,6 +43,7 @@ import world.data.jdbc.model.Node;
 import world.data.jdbc.vocab.Rdfs;
 import world.data.jdbc.vocab.Xsd;
 
+import java.nio.channels.WritableByteChannel;
 import java.sql.DatabaseMetaData;
 import java.sql.ParameterMetaData;
 import java.sql.ResultSet;
@@ -55,6 +60,8 @@ import static world.data.jdbc.internal.util.Conditions.check;
 
 public final class SparqlEngine implements QueryEngine {
     private final QueryApi queryApi;
+    private final QueryCache parsedQueries = new QueryCache(256);
+    private final HealthCheck healthCheck;
     private final String catalog;
     private final String schema;
 
@@ -62,6 +69,7 @@ public final class SparqlEngine implements QueryEngine {
         this.queryApi = requireNonNull(queryApi, "queryApi");
         this.catalog = requireNonNull(catalog, "catalog");
         this.schema = requireNonNull(schema, "schema");
+        this.healthCheck = new HealthCheck(queryApi, "ASK {}");
     }
 
     @Override
@@ -79,6 +87,11 @@ public final class SparqlEngine implements QueryEngine {
         return "sparql";
     }
 
+    @Override
+    public boolean isValid(int timeoutSeconds) {
+        return healthCheck.isValid(timeoutSeconds);
+    }
+
     @Override
     public JdbcCompatibility getDefaultCompatibilityLevel() {
         // By default, type all columns as String
@@ -91,23 +104,31 @@ public final class SparqlEngine implements QueryEngine {
     }
 
     @Override
-    public ParameterMetaData getParameterMetaData(String query) throws SQLException {
-        // This is a terrible way to count parameters since it ignores quoted strings, bound variables, etc.
-        // But since we don't really support ParameterMetaData very well it should work for the time being.
-        int count = 0;
-        for (int i = -1; (i = query.indexOf('?', i + 1)) != -1; ) {
-            count++;
-        }
-        return new ParameterMetaDataImpl(count);
+    public ParsedQuery parse(String query) {
+        return parsedQueries.get(query, QueryLexer::parseSparql);
     }
 
     @Override
-    public ResultSet execute(DataWorldStatement statement, String query, Map<String, Node> parameters, Integer timeoutSeconds)
+    public ParameterMetaData getParameterMetaData(ParsedQuery query) throws SQLException {
+        return new ParameterMetaDataImpl(query.getParameterNames().size());
+    }
+
+    @Override
+    public List<BoundQuery> bind(ParsedQuery query, Map<String, Node> parameters, Map<String, List<Node>> arrays)
+            throws SQLException {
+        return ArrayParameters.bindSparql(query, parameters, arrays, ArrayParameters.CHUNK_SIZE);
+    }
+
+    @Override
+    public ResultSet execute(DataWorldStatement statement, List<BoundQuery> queries, Integer timeoutSeconds,
+                             CancelToken cancelToken)
             throws SQLException {
         Integer maxRowsToReturn = statement.getMaxRows() != 0 ? statement.getMaxRows() : null;
+        int networkTimeoutMillis = statement.getConnection().getNetworkTimeout();
 
         // Execute the query
-        Response response = queryApi.executeQuery(query, parameters, maxRowsToReturn, timeoutSeconds);
+        Response response = queryApi.executeQueries(queries, maxRowsToReturn, timeoutSeconds, networkTimeoutMillis,
+                cancelToken);
 
         // Construct the ResultSet with the results
         try (CloseableRef cleanup = new CloseableRef(response.getCleanup())) {
@@ -128,7 +149,9 @@ public final class SparqlEngine implements QueryEngine {
             List<ColumnInfo> columnInfos = buildColumnsMetadata(columns, level, firstRow);
             ResultSetMetaData metaData = new ResultSetMetaDataImpl(columnInfos);
 
-            ResultSet resultSet = new ResultSetImpl(statement, metaData, rows, response.getCleanup());
+            ResultSet resultSet = isScrollable(statement)
+                    ? new ScrollableResultSetImpl(statement, metaData, rows, response.getCleanup())
+                    : new ResultSetImpl(statement, metaData, rows, response.getCleanup());
 
             // The caller becomes responsible for cleaning up
             return cleanup.detach(resultSet);
@@ -147,7 +170,22 @@ public final class SparqlEngine implements QueryEngine {
         List<Node[]> singleRow = Collections.singletonList(new Node[]{
                 LiteralFactory.createBoolean(askResult)
         });
-        return new ResultSetImpl(statement, new ResultSetMetaDataImpl(singleColumn), singleRow);
+        ResultSetMetaData metaData = new ResultSetMetaDataImpl(singleColumn);
+        return isScrollable(statement)
+                ? new ScrollableResultSetImpl(statement, metaData, singleRow, null)
+                : new ResultSetImpl(statement, metaData, singleRow);
+    }
+
+    @Override
+    public long export(DataWorldStatement statement, List<BoundQuery> queries, Integer timeoutSeconds,
+                       CancelToken cancelToken, ExportFormat format, WritableByteChannel out)
+            throws SQLException {
+        return ResultExporter.export(queryApi, queries, statement.getMaxRows(), timeoutSeconds,
+                statement.getConnection().getNetworkTimeout(), cancelToken, format, out);
+    }
+
+    private static boolean isScrollable(DataWorldStatement statement) throws SQLException {
+        return statement.getResultSetType() == ResultSet.TYPE_SCROLL_INSENSITIVE;
     }
 
     private List<ColumnInfo> buildColumnsMetadata(List<Response.Column> columns, JdbcCompatibility level, Node[] firstRow) {
@@ -20,6 +20,7 @@ package world.data.jdbc.internal.query;
 
 import world.data.jdbc.DataWorldConnection;
 import world.data.jdbc.DataWorldStatement;
+import world.data.jdbc.ExportFormat;
 import world.data.jdbc.JdbcCompatibility;
 import world.data.jdbc.internal.metadata.ColumnFactory;
 import world.data.jdbc.internal.metadata.ColumnInfo;
@@ -27,14 +28,18 @@ import world.data.jdbc.internal.metadata.ParameterMetaDataImpl;
 import world.data.jdbc.internal.metadata.ResultSetMetaDataImpl;
 import world.data.jdbc.internal.metadata.SqlDatabaseMetaData;
 import world.data.jdbc.internal.results.ResultSetImpl;
+import world.data.jdbc.internal.results.ScrollableResultSetImpl;
+import world.data.jdbc.internal.transport.BoundQuery;
 import world.data.jdbc.internal.transport.QueryApi;
 import world.data.jdbc.internal.transport.Response;
 import world.data.jdbc.internal.types.TypeMap;
+import world.data.jdbc.internal.util.CancelToken;
 import world.data.jdbc.internal.util.CloseableRef;
 import world.data.jdbc.model.Iri;
 import world.data.jdbc.model.Node;
 import world.data.jdbc.vocab.Xsd;
 
+import java.nio.channels.WritableByteChannel;
 import java.sql.DatabaseMetaData;
 import java.sql.ParameterMetaData;
 import java.sql.ResultSet;
@@ -53,6 +58,8 @@ import static world.data.jdbc.internal.util.Optionals.or;
 
 public class SqlEngine implements QueryEngine {
     private final QueryApi queryApi;
+    private final QueryCache parsedQueries = new QueryCache(256);
+    private final HealthCheck healthCheck;
     private final String catalog;
     private final String schema;
 
@@ -60,6 +67,7 @@ public class SqlEngine implements QueryEngine {
         this.queryApi = requireNonNull(queryApi, "queryApi");
         this.catalog = requireNonNull(catalog, "catalog");
         this.schema = requireNonNull(schema, "schema");
+        this.healthCheck = new HealthCheck(queryApi, "SELECT 1");
     }
 
     @Override
@@ -77,6 +85,11 @@ public class SqlEngine implements QueryEngine {
         return "sql";
     }
 
+    @Override
+    public boolean isValid(int timeoutSeconds) {
+        return healthCheck.isValid(timeoutSeconds);
+    }
+
     @Override
     public JdbcCompatibility getDefaultCompatibilityLevel() {
         // By default, use the metadata returned with the SQL query
@@ -89,23 +102,31 @@ public class SqlEngine implements QueryEngine {
     }
 
     @Override
-    public ParameterMetaData getParameterMetaData(String query) throws SQLException {
-        // This is a terrible way to count parameters since it ignores quoted strings, etc.
-        // But since we don't really support ParameterMetaData very well it should work for the time being.
-        int count = 0;
-        for (int i = -1; (i = query.indexOf('?', i + 1)) != -1; ) {
-            count++;
-        }
-        return new ParameterMetaDataImpl(count);
+    public ParsedQuery parse(String query) {
+        return parsedQueries.get(query, QueryLexer::parseSql);
     }
 
     @Override
-    public ResultSet execute(DataWorldStatement statement, String query, Map<String, Node> parameters, Integer timeoutSeconds)
+    public ParameterMetaData getParameterMetaData(ParsedQuery query) throws SQLException {
+        return new ParameterMetaDataImpl(query.getParameterOffsets().size());
+    }
+
+    @Override
+    public List<BoundQuery> bind(ParsedQuery query, Map<String, Node> parameters, Map<String, List<Node>> arrays)
+            throws SQLException {
+        return ArrayParameters.bindSql(query, parameters, arrays, ArrayParameters.CHUNK_SIZE);
+    }
+
+    @Override
+    public ResultSet execute(DataWorldStatement statement, List<BoundQuery> queries, Integer timeoutSeconds,
+                             CancelToken cancelToken)
             throws SQLException {
         Integer maxRowsToReturn = statement.getMaxRows() != 0 ? statement.getMaxRows() : null;
+        int networkTimeoutMillis = statement.getConnection().getNetworkTimeout();
 
         // Execute the query
-        Response response = queryApi.executeQuery(query, parameters, maxRowsToReturn, timeoutSeconds);
+        Response response = queryApi.executeQueries(queries, maxRowsToReturn, timeoutSeconds, networkTimeoutMillis,
+                cancelToken);
 
         // Construct the ResultSet with the results
         try (CloseableRef cleanup = new CloseableRef(response.getCleanup())) {
@@ -118,7 +139,9 @@ public class SqlEngine implements QueryEngine {
             List<ColumnInfo> columnInfos = buildColumnsMetadata(columns, level);
             ResultSetMetaData metaData = new ResultSetMetaDataImpl(columnInfos);
 
-            ResultSet resultSet = new ResultSetImpl(statement, metaData, rows, response.getCleanup());
+            ResultSet resultSet = isScrollable(statement)
+                    ? new ScrollableResultSetImpl(statement, metaData, rows, response.getCleanup())
+                    : new ResultSetImpl(statement, metaData, rows, response.getCleanup());
 
             // The caller becomes responsible for cleaning up
             return cleanup.detach(resultSet);
@@ -130,6 +153,18 @@ public class SqlEngine implements QueryEngine {
         }
     }
 
+    @Override
+    public long export(DataWorldStatement statement, List<BoundQuery> queries, Integer timeoutSeconds,
+                       CancelToken cancelToken, ExportFormat format, WritableByteChannel out)
+            throws SQLException {
+        return ResultExporter.export(queryApi, queries, statement.getMaxRows(), timeoutSeconds,
+                statement.getConnection().getNetworkTimeout(), cancelToken, format, out);
+    }
+
+    private static boolean isScrollable(DataWorldStatement statement) throws SQLException {
+        return statement.getResultSetType() == ResultSet.TYPE_SCROLL_INSENSITIVE;
+    }
+
     private List<ColumnInfo> buildColumnsMetadata(List<Response.Column> columns, JdbcCompatibility level) {
         List<ColumnInfo> columnsMetaData = new ArrayList<>();
         for (Response.Column column : columns) {
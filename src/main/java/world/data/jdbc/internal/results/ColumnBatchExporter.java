@@ -0,0 +1,122 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.results;
+
+import world.data.jdbc.ColumnBatchWriter;
+import world.data.jdbc.internal.types.NodeConversions;
+import world.data.jdbc.internal.types.NodeValues;
+import world.data.jdbc.model.Node;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import static world.data.jdbc.internal.util.Conditions.check;
+
+/**
+ * Copies rows of RDF nodes into a {@link ColumnBatchWriter}, converting each column according to its JDBC type.
+ * <p>
+ * The conversion for each column is computed once up front instead of per-cell like {@code getObject()}.
+ */
+final class ColumnBatchExporter {
+
+    /** The {@link ColumnBatchWriter} method used for a column. */
+    private enum Kind {BOOLEAN, LONG, DOUBLE, DECIMAL, STRING}
+
+    private final Kind[] kinds;
+    private final int batchSize;
+
+    ColumnBatchExporter(ResultSetMetaData metaData, int batchSize) throws SQLException {
+        check(batchSize > 0, "Batch size must be positive");
+        Kind[] kinds = new Kind[metaData.getColumnCount()];
+        for (int i = 0; i < kinds.length; i++) {
+            kinds[i] = toKind(metaData.getColumnType(i + 1));
+        }
+        this.kinds = kinds;
+        this.batchSize = batchSize;
+    }
+
+    private static Kind toKind(int jdbcType) {
+        switch (jdbcType) {
+            case Types.BOOLEAN:
+            case Types.BIT:
+                return Kind.BOOLEAN;
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return Kind.LONG;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return Kind.DOUBLE;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return Kind.DECIMAL;
+            default:
+                return Kind.STRING;
+        }
+    }
+
+    void export(RowSource source, ColumnBatchWriter writer) throws SQLException {
+        int rowCount = 0;
+        Node[] row;
+        while ((row = source.nextRow()) != null) {
+            if (rowCount == 0) {
+                writer.startBatch();
+            }
+            writeRow(row, rowCount, writer);
+            if (++rowCount == batchSize) {
+                writer.endBatch(rowCount);
+                rowCount = 0;
+            }
+        }
+        if (rowCount > 0) {
+            writer.endBatch(rowCount);
+        }
+    }
+
+    private void writeRow(Node[] row, int rowIndex, ColumnBatchWriter writer) throws SQLException {
+        for (int i = 0; i < kinds.length; i++) {
+            int column = i + 1;
+            Node node = i < row.length ? row[i] : null;
+            if (node == null) {
+                writer.writeNull(column, rowIndex);
+                continue;
+            }
+            switch (kinds[i]) {
+                case BOOLEAN:
+                    writer.writeBoolean(column, rowIndex, NodeValues.parseBoolean(node));
+                    break;
+                case LONG:
+                    writer.writeLong(column, rowIndex, NodeValues.parseLong(node));
+                    break;
+                case DOUBLE:
+                    writer.writeDouble(column, rowIndex, NodeValues.parseDouble(node));
+                    break;
+                case DECIMAL:
+                    writer.writeDecimal(column, rowIndex, NodeValues.parseBigDecimal(node));
+                    break;
+                default:
+                    writer.writeString(column, rowIndex, NodeConversions.toString(node));
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.results;
+
+import world.data.jdbc.model.Iri;
+import world.data.jdbc.model.Literal;
+import world.data.jdbc.model.Node;
+
+import javax.annotation.Nullable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * An immutable, compact in-memory list of rows of RDF nodes, stored column by column.
+ * <p>
+ * Each column is encoded using the most compact lossless representation that fits all of its values:
+ * <ul>
+ * <li>Literals of a single datatype whose lexical forms are the canonical Java representation of a
+ * {@code long}, {@code double} or {@code boolean} are stored in a primitive {@code long[]}.</li>
+ * <li>Everything else is dictionary-encoded, so values that repeat, such as IRIs and categorical strings,
+ * are only stored once.</li>
+ * </ul>
+ * Rows are decoded into {@code Node[]} arrays on access, so callers should avoid holding onto them.
+ */
+final class ColumnarRows extends AbstractList<Node[]> implements RandomAccess {
+    private final Column[] columns;
+    private final int size;
+
+    private ColumnarRows(Column[] columns, int size) {
+        this.columns = columns;
+        this.size = size;
+    }
+
+    static Builder builder(int columnCount) {
+        return new Builder(columnCount);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Node[] get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        Node[] row = new Node[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            row[i] = columns[i].get(index);
+        }
+        return row;
+    }
+
+    private interface Column {
+        @Nullable
+        Node get(int row);
+    }
+
+    /** Conversions between primitive values and the lexical forms of literals. */
+    private enum Encoding {
+        LONG {
+            @Override
+            boolean canEncode(String lexicalForm) {
+                try {
+                    return Long.toString(Long.parseLong(lexicalForm)).equals(lexicalForm);
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+
+            @Override
+            long encode(String lexicalForm) {
+                return Long.parseLong(lexicalForm);
+            }
+
+            @Override
+            String decode(long value) {
+                return Long.toString(value);
+            }
+        },
+        DOUBLE {
+            @Override
+            boolean canEncode(String lexicalForm) {
+                try {
+                    return Double.toString(Double.parseDouble(lexicalForm)).equals(lexicalForm);
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+
+            @Override
+            long encode(String lexicalForm) {
+                return Double.doubleToRawLongBits(Double.parseDouble(lexicalForm));
+            }
+
+            @Override
+            String decode(long value) {
+                return Double.toString(Double.longBitsToDouble(value));
+            }
+        },
+        BOOLEAN {
+            @Override
+            boolean canEncode(String lexicalForm) {
+                return "true".equals(lexicalForm) || "false".equals(lexicalForm);
+            }
+
+            @Override
+            long encode(String lexicalForm) {
+                return "true".equals(lexicalForm) ? 1 : 0;
+            }
+
+            @Override
+            String decode(long value) {
+                return value != 0 ? "true" : "false";
+            }
+        };
+
+        abstract boolean canEncode(String lexicalForm);
+
+        abstract long encode(String lexicalForm);
+
+        abstract String decode(long value);
+
+        @Nullable
+        static Encoding forLiteral(Literal literal) {
+            if (literal.getLanguage() != null) {
+                return null;
+            }
+            for (Encoding encoding : values()) {
+                if (encoding.canEncode(literal.getLexicalForm())) {
+                    return encoding;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class PrimitiveColumn implements Column {
+        private final Encoding encoding;
+        private final Iri datatype;
+        private final long[] values;
+        private final BitSet nulls;
+
+        PrimitiveColumn(Encoding encoding, Iri datatype, long[] values, BitSet nulls) {
+            this.encoding = encoding;
+            this.datatype = datatype;
+            this.values = values;
+            this.nulls = nulls;
+        }
+
+        @Override
+        public Node get(int row) {
+            return nulls.get(row) ? null : new Literal(encoding.decode(values[row]), datatype);
+        }
+    }
+
+    private static final class DictionaryColumn implements Column {
+        private final Node[] dictionary;
+        private final int[] codes;
+
+        DictionaryColumn(Node[] dictionary, int[] codes) {
+            this.dictionary = dictionary;
+            this.codes = codes;
+        }
+
+        @Override
+        public Node get(int row) {
+            int code = codes[row];
+            return code != -1 ? dictionary[code] : null;
+        }
+    }
+
+    /** A column that only contains nulls. */
+    private static final class NullColumn implements Column {
+        @Override
+        public Node get(int row) {
+            return null;
+        }
+    }
+
+    static final class Builder {
+        private final ColumnBuilder[] columns;
+        private int size;
+
+        private Builder(int columnCount) {
+            this.columns = new ColumnBuilder[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                columns[i] = new ColumnBuilder();
+            }
+        }
+
+        Builder add(Node[] row) {
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].add(size, i < row.length ? row[i] : null);
+            }
+            size++;
+            return this;
+        }
+
+        ColumnarRows build() {
+            Column[] built = new Column[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                built[i] = columns[i].build(size);
+            }
+            return new ColumnarRows(built, size);
+        }
+    }
+
+    /**
+     * Accumulates the values of one column, starting with a primitive encoding and falling back to a dictionary
+     * encoding the first time a value doesn't fit.
+     */
+    private static final class ColumnBuilder {
+        private static final int INITIAL_CAPACITY = 16;
+
+        // Primitive encoding
+        private Encoding encoding;
+        private Iri datatype;
+        private long[] values;
+        private final BitSet nulls = new BitSet();
+
+        // Dictionary encoding
+        private Map<Node, Integer> index;
+        private List<Node> dictionary;
+        private int[] codes;
+
+        void add(int row, @Nullable Node node) {
+            if (codes != null) {
+                addCode(row, node);
+            } else if (node == null) {
+                nulls.set(row);
+            } else if (values == null) {
+                // First non-null value determines the primitive encoding, if any
+                Literal literal = (node instanceof Literal) ? (Literal) node : null;
+                Encoding encoding = (literal != null) ? Encoding.forLiteral(literal) : null;
+                if (encoding != null) {
+                    this.encoding = encoding;
+                    this.datatype = literal.getDatatype();
+                    this.values = new long[Math.max(INITIAL_CAPACITY, row + 1)];
+                    values[row] = encoding.encode(literal.getLexicalForm());
+                } else {
+                    switchToDictionary(row);
+                    addCode(row, node);
+                }
+            } else if (fitsPrimitive(node)) {
+                values = grow(values, row);
+                values[row] = encoding.encode(((Literal) node).getLexicalForm());
+            } else {
+                switchToDictionary(row);
+                addCode(row, node);
+            }
+        }
+
+        private boolean fitsPrimitive(Node node) {
+            if (!(node instanceof Literal)) {
+                return false;
+            }
+            Literal literal = (Literal) node;
+            return literal.getLanguage() == null &&
+                    literal.getDatatype().equals(datatype) &&
+                    encoding.canEncode(literal.getLexicalForm());
+        }
+
+        /** Re-encodes the rows added so far using a dictionary. */
+        private void switchToDictionary(int size) {
+            index = new HashMap<>();
+            dictionary = new ArrayList<>();
+            codes = new int[Math.max(INITIAL_CAPACITY, size + 1)];
+            for (int row = 0; row < size; row++) {
+                addCode(row, decodePrimitive(row));
+            }
+            encoding = null;
+            datatype = null;
+            values = null;
+            nulls.clear();
+        }
+
+        @Nullable
+        private Node decodePrimitive(int row) {
+            if (nulls.get(row) || values == null) {
+                return null;
+            }
+            return new Literal(encoding.decode(values[row]), datatype);
+        }
+
+        private void addCode(int row, @Nullable Node node) {
+            codes = grow(codes, row);
+            if (node == null) {
+                codes[row] = -1;
+            } else {
+                Integer code = index.get(node);
+                if (code == null) {
+                    code = dictionary.size();
+                    dictionary.add(node);
+                    index.put(node, code);
+                }
+                codes[row] = code;
+            }
+        }
+
+        Column build(int size) {
+            if (codes != null) {
+                return new DictionaryColumn(dictionary.toArray(new Node[0]), Arrays.copyOf(codes, size));
+            } else if (values != null) {
+                return new PrimitiveColumn(encoding, datatype, Arrays.copyOf(values, size), (BitSet) nulls.clone());
+            } else {
+                return new NullColumn();
+            }
+        }
+
+        private static long[] grow(long[] array, int index) {
+            return index < array.length ? array : Arrays.copyOf(array, Math.max(array.length * 2, index + 1));
+        }
+
+        private static int[] grow(int[] array, int index) {
+            return index < array.length ? array : Arrays.copyOf(array, Math.max(array.length * 2, index + 1));
+        }
+    }
+}
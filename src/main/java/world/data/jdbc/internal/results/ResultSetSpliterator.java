@@ -0,0 +1,127 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.results;
+
+import world.data.jdbc.RowMapper;
+import world.data.jdbc.UncheckedSQLException;
+import world.data.jdbc.model.Node;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link Spliterator} that maps the rows of a result set to objects.
+ * <p>
+ * Reading rows from the server is inherently sequential, so splitting works like the {@code Spliterator} returned by
+ * {@link java.util.Spliterators#spliteratorUnknownSize(java.util.Iterator, int)}: each split copies the next batch of
+ * raw rows into an in-memory result set that can be mapped on another thread.  Batches start small and grow
+ * arithmetically so short results aren't over-split and long results amortize the per-batch overhead.
+ */
+final class ResultSetSpliterator<T> implements Spliterator<T> {
+    static final int BATCH_UNIT = 1 << 10;
+    static final int MAX_BATCH = 1 << 20;
+
+    private final ResultSet resultSet;
+    private final RowSource rowSource;
+    private final RowMapper<T> mapper;
+    private final int characteristics;
+    private long estimate;
+    private int batch;
+
+    /**
+     * @param resultSet       the result set passed to the mapper
+     * @param rowSource       a function that advances the same result set, returning the raw row
+     * @param mapper          the row mapper
+     * @param estimate        the number of remaining rows, or {@code Long.MAX_VALUE} if unknown
+     * @param characteristics the characteristics of this spliterator
+     */
+    ResultSetSpliterator(ResultSet resultSet, RowSource rowSource, RowMapper<T> mapper,
+                         long estimate, int characteristics) {
+        this.resultSet = requireNonNull(resultSet, "resultSet");
+        this.rowSource = requireNonNull(rowSource, "rowSource");
+        this.mapper = requireNonNull(mapper, "mapper");
+        this.estimate = estimate;
+        this.characteristics = characteristics;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        requireNonNull(action, "action");
+        T value;
+        try {
+            if (!resultSet.next()) {
+                estimate = 0;
+                return false;
+            }
+            value = mapper.mapRow(resultSet);
+        } catch (SQLException e) {
+            throw new UncheckedSQLException(e);
+        }
+        consumed(1);
+        action.accept(value);
+        return true;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (estimate <= 1) {
+            return null;
+        }
+        int limit = (int) Math.min(Math.min((long) batch + BATCH_UNIT, MAX_BATCH), estimate);
+        List<Node[]> rows = new ArrayList<>();
+        try {
+            Node[] row;
+            while (rows.size() < limit && (row = rowSource.nextRow()) != null) {
+                rows.add(row);
+            }
+            if (rows.isEmpty()) {
+                estimate = 0;
+                return null;
+            }
+            batch = rows.size();
+            consumed(batch);
+            ResultSetImpl split = new ResultSetImpl(null, resultSet.getMetaData(), rows);
+            return new ResultSetSpliterator<>(split, split::nextRow, mapper, batch, ORDERED | SIZED | SUBSIZED);
+        } catch (SQLException e) {
+            throw new UncheckedSQLException(e);
+        }
+    }
+
+    private void consumed(int count) {
+        if (estimate != Long.MAX_VALUE) {
+            estimate = Math.max(estimate - count, 0);
+        }
+    }
+
+    @Override
+    public long estimateSize() {
+        return estimate;
+    }
+
+    @Override
+    public int characteristics() {
+        return characteristics;
+    }
+}
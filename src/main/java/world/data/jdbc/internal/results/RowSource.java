@@ -0,0 +1,35 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.results;
+
+import world.data.jdbc.model.Node;
+
+import javax.annotation.Nullable;
+import java.sql.SQLException;
+
+/**
+ * Supplies the raw rows of a result set, bypassing the JDBC getters.
+ */
+@FunctionalInterface
+interface RowSource {
+
+    /** Advances to and returns the next row, or {@code null} at the end of the result set. */
+    @Nullable
+    Node[] nextRow() throws SQLException;
+}
@@ -0,0 +1,245 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.results;
+
+import world.data.jdbc.DataWorldStatement;
+import world.data.jdbc.UncheckedSQLException;
+import world.data.jdbc.model.Node;
+
+import javax.annotation.Nullable;
+import java.io.UncheckedIOException;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+import static world.data.jdbc.internal.util.Conditions.check;
+
+/**
+ * A scroll-insensitive result set backed by a random-access list of rows of RDF nodes.
+ */
+public final class ScrollableResultSetImpl extends AbstractResultSet {
+    private final List<Node[]> rows;
+    /** Set when rows are read lazily from a streaming response. */
+    private final SpilledRows spilled;
+    /** The 1-based cursor position: 0 is before the first row, {@code rows.size() + 1} is after the last. */
+    private int cursor;
+    private Node[] row;
+    private int fetchDirection = FETCH_FORWARD;
+
+    /**
+     * Creates a scrollable result set that invokes the specified cleanup function on close.
+     */
+    public ScrollableResultSetImpl(@Nullable DataWorldStatement statement, ResultSetMetaData metaData,
+                                   List<Node[]> rows, @Nullable AutoCloseable cleanup)
+            throws SQLException {
+        super(statement, metaData, cleanup);
+        this.rows = requireNonNull(rows, "rows");
+        this.spilled = null;
+    }
+
+    /**
+     * Creates a streaming scrollable result set.  Rows are read from the iterator as the cursor advances and saved
+     * to a temporary file so they can be revisited.  The specified cleanup function is invoked once all rows have
+     * been read, the temporary file is deleted on close.
+     */
+    public ScrollableResultSetImpl(@Nullable DataWorldStatement statement, ResultSetMetaData metaData,
+                                   Iterator<Node[]> rowIter, @Nullable AutoCloseable cleanup)
+            throws SQLException {
+        this(statement, metaData, new SpilledRows(applyLimit(statement, requireNonNull(rowIter, "rowIter")), cleanup));
+    }
+
+    private ScrollableResultSetImpl(@Nullable DataWorldStatement statement, ResultSetMetaData metaData,
+                                    SpilledRows rows)
+            throws SQLException {
+        super(statement, metaData, rows);
+        this.rows = rows;
+        this.spilled = rows;
+    }
+
+    @Override
+    Node[] currentRow() {
+        return row;
+    }
+
+    @Override
+    long estimateRemainingRows() throws SQLException {
+        if (spilled != null && !spilled.isComplete()) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(size() - cursor, 0);
+    }
+
+    /** Returns true if a row exists at the specified 1-based position without reading more rows than necessary. */
+    private boolean exists(long position) throws SQLException {
+        try {
+            if (position < 1 || position > Integer.MAX_VALUE) {
+                return false;
+            } else if (spilled != null) {
+                return spilled.isAvailable((int) position - 1);
+            } else {
+                return position <= rows.size();
+            }
+        } catch (UncheckedSQLException e) {
+            throw e.getCause();
+        } catch (UncheckedIOException e) {
+            throw new SQLException("Unable to read the result set.", e.getCause());
+        }
+    }
+
+    /** Returns the number of rows, reading all remaining rows if necessary. */
+    private int size() throws SQLException {
+        try {
+            return rows.size();
+        } catch (UncheckedSQLException e) {
+            throw e.getCause();
+        } catch (UncheckedIOException e) {
+            throw new SQLException("Unable to read the result set.", e.getCause());
+        }
+    }
+
+    /** Moves the cursor to the specified 1-based position, clamped to the before-first and after-last positions. */
+    private boolean moveTo(long position) throws SQLException {
+        if (position <= 0) {
+            cursor = 0;
+            row = null;
+            return false;
+        } else if (!exists(position)) {
+            cursor = size() + 1;
+            row = null;
+            return false;
+        } else {
+            cursor = (int) position;
+            try {
+                row = rows.get(cursor - 1);
+            } catch (UncheckedSQLException e) {
+                throw e.getCause();
+            } catch (UncheckedIOException e) {
+                throw new SQLException("Unable to read the result set.", e.getCause());
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public boolean next() throws SQLException {
+        checkClosed();
+        return moveTo((long) cursor + 1);
+    }
+
+    @Override
+    public boolean previous() throws SQLException {
+        checkClosed();
+        return moveTo((long) cursor - 1);
+    }
+
+    @Override
+    public boolean first() throws SQLException {
+        checkClosed();
+        return moveTo(1);
+    }
+
+    @Override
+    public boolean last() throws SQLException {
+        checkClosed();
+        return moveTo(size());
+    }
+
+    @Override
+    public void beforeFirst() throws SQLException {
+        checkClosed();
+        moveTo(0);
+    }
+
+    @Override
+    public void afterLast() throws SQLException {
+        checkClosed();
+        moveTo((long) size() + 1);
+    }
+
+    @Override
+    public boolean absolute(int row) throws SQLException {
+        checkClosed();
+        // Negative positions count backwards from the end, -1 is the last row
+        return moveTo(row >= 0 ? row : (long) size() + 1 + row);
+    }
+
+    @Override
+    public boolean relative(int rows) throws SQLException {
+        checkClosed();
+        return moveTo((long) cursor + rows);
+    }
+
+    @Override
+    public int getRow() throws SQLException {
+        checkClosed();
+        return row != null ? cursor : 0;
+    }
+
+    @Override
+    public boolean isBeforeFirst() throws SQLException {
+        checkClosed();
+        return cursor == 0 && exists(1);
+    }
+
+    @Override
+    public boolean isAfterLast() throws SQLException {
+        checkClosed();
+        return cursor > 0 && row == null && size() > 0;
+    }
+
+    @Override
+    public boolean isFirst() throws SQLException {
+        checkClosed();
+        return row != null && cursor == 1;
+    }
+
+    @Override
+    public boolean isLast() throws SQLException {
+        checkClosed();
+        return row != null && !exists((long) cursor + 1);
+    }
+
+    @Override
+    public void refreshRow() throws SQLException {
+        checkClosed();
+        // Result set is scroll-insensitive, there are no changes to see
+    }
+
+    @Override
+    public int getType() throws SQLException {
+        checkClosed();
+        return TYPE_SCROLL_INSENSITIVE;
+    }
+
+    @Override
+    public int getFetchDirection() throws SQLException {
+        checkClosed();
+        return fetchDirection;
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException {
+        checkClosed();
+        check(direction == FETCH_FORWARD || direction == FETCH_REVERSE || direction == FETCH_UNKNOWN,
+                "Invalid fetch direction");
+        this.fetchDirection = direction;
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.results;
+
+import world.data.jdbc.model.Blank;
+import world.data.jdbc.model.Iri;
+import world.data.jdbc.model.Literal;
+import world.data.jdbc.model.Node;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.RandomAccess;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A list of rows that are read on demand from a streaming response and saved to a temporary file, so that rows
+ * can be revisited in any order without holding them all on the heap.
+ * <p>
+ * The rows are written in a compact binary format and indexed by file offset.  The raw response that
+ * {@code FileBackedInputStream} spills to disk can't be used for this since it may be compressed and row
+ * boundaries aren't known until the json has been parsed.
+ * <p>
+ * Methods throw {@link UncheckedIOException} if the temporary file can't be read or written.
+ */
+final class SpilledRows extends AbstractList<Node[]> implements RandomAccess, AutoCloseable {
+    private static final byte NULL = 0;
+    private static final byte IRI = 1;
+    private static final byte BLANK = 2;
+    private static final byte LITERAL = 3;
+    private static final byte LANG_LITERAL = 4;
+
+    private final Iterator<Node[]> source;
+    private AutoCloseable sourceCleanup;
+    private final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+    private final DataOutputStream encoder = new DataOutputStream(buf);
+    /** The file offset of each row, plus the offset of the end of the last row. */
+    private long[] offsets = new long[64];
+    private int count;
+    private boolean complete;
+    private File file;
+    private OutputStream out;
+    private RandomAccessFile in;
+    private boolean dirty;
+    /** The most recently read row, since cursors tend to ask for the same row more than once. */
+    private int cachedIndex = -1;
+    private Node[] cachedRow;
+
+    SpilledRows(Iterator<Node[]> source, @Nullable AutoCloseable sourceCleanup) {
+        this.source = requireNonNull(source, "source");
+        this.sourceCleanup = sourceCleanup;
+    }
+
+    /** Returns true if the row at the specified index exists, reading rows from the source as necessary. */
+    boolean isAvailable(int index) {
+        while (index >= count && !complete) {
+            fetch();
+        }
+        return index >= 0 && index < count;
+    }
+
+    /** Returns true if all rows have been read from the source, ie. {@link #size()} won't block. */
+    boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public int size() {
+        isAvailable(Integer.MAX_VALUE - 1);
+        return count;
+    }
+
+    @Override
+    public Node[] get(int index) {
+        if (!isAvailable(index)) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        }
+        if (index != cachedIndex) {
+            cachedRow = read(index);
+            cachedIndex = index;
+        }
+        return cachedRow;
+    }
+
+    private void fetch() {
+        if (!source.hasNext()) {
+            complete = true;
+            // Release the http connection as soon as possible
+            closeSource();
+            return;
+        }
+        Node[] row = source.next();
+        try {
+            buf.reset();
+            encode(row, encoder);
+            if (out == null) {
+                file = File.createTempFile("dw-jdbc", ".tmp");
+                out = new BufferedOutputStream(new FileOutputStream(file));
+            }
+            buf.writeTo(out);
+            dirty = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (count + 1 >= offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[count + 1] = offsets[count] + buf.size();
+        count++;
+        cachedIndex = count - 1;
+        cachedRow = row;
+    }
+
+    private Node[] read(int index) {
+        try {
+            if (dirty) {
+                out.flush();
+                dirty = false;
+            }
+            if (in == null) {
+                in = new RandomAccessFile(file, "r");
+            }
+            byte[] bytes = new byte[(int) (offsets[index + 1] - offsets[index])];
+            in.seek(offsets[index]);
+            in.readFully(bytes);
+            return decode(new DataInputStream(new ByteArrayInputStream(bytes)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void encode(Node[] row, DataOutputStream out) throws IOException {
+        out.writeInt(row.length);
+        for (Node node : row) {
+            if (node == null) {
+                out.writeByte(NULL);
+            } else if (node instanceof Iri) {
+                out.writeByte(IRI);
+                writeString(((Iri) node).getIri(), out);
+            } else if (node instanceof Blank) {
+                out.writeByte(BLANK);
+                writeString(((Blank) node).getLabel(), out);
+            } else {
+                Literal literal = (Literal) node;
+                out.writeByte(literal.getLanguage() == null ? LITERAL : LANG_LITERAL);
+                writeString(literal.getLexicalForm(), out);
+                writeString(literal.getDatatype().getIri(), out);
+                if (literal.getLanguage() != null) {
+                    writeString(literal.getLanguage(), out);
+                }
+            }
+        }
+    }
+
+    private static Node[] decode(DataInputStream in) throws IOException {
+        Node[] row = new Node[in.readInt()];
+        for (int i = 0; i < row.length; i++) {
+            byte type = in.readByte();
+            switch (type) {
+                case NULL:
+                    break;
+                case IRI:
+                    row[i] = new Iri(readString(in));
+                    break;
+                case BLANK:
+                    row[i] = new Blank(readString(in));
+                    break;
+                case LITERAL:
+                    row[i] = new Literal(readString(in), new Iri(readString(in)));
+                    break;
+                case LANG_LITERAL:
+                    row[i] = new Literal(readString(in), new Iri(readString(in)), readString(in));
+                    break;
+                default:
+                    throw new IOException("Corrupt temporary file, unexpected node type: " + type);
+            }
+        }
+        return row;
+    }
+
+    // DataOutputStream.writeUTF() is limited to 64k, too small for some literals
+    private static void writeString(String string, DataOutputStream out) throws IOException {
+        byte[] bytes = string.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private void closeSource() {
+        AutoCloseable cleanup = sourceCleanup;
+        sourceCleanup = null;
+        if (cleanup != null) {
+            try {
+                cleanup.close();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            closeSource();
+        } finally {
+            try {
+                if (out != null) {
+                    out.close();
+                }
+                if (in != null) {
+                    in.close();
+                }
+            } finally {
+                out = null;
+                in = null;
+                cachedRow = null;
+                if (file != null && !file.delete()) {
+                    file.deleteOnExit();
+                }
+                file = null;
+            }
+        }
+    }
+}
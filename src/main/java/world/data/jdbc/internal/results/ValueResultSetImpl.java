@@ -0,0 +1,111 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.results;
+
+import world.data.jdbc.DataWorldStatement;
+import world.data.jdbc.UncheckedSQLException;
+import world.data.jdbc.model.Node;
+
+import javax.annotation.Nullable;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Iterator;
+
+import static java.util.Objects.requireNonNull;
+import static world.data.jdbc.internal.util.Conditions.check;
+
+/**
+ * A forward-only result set backed by an iterator of rows of plain Java values.  Values are converted to RDF nodes
+ * only when a column is read, so rows that are skipped or only partially read are never converted.
+ */
+public final class ValueResultSetImpl extends AbstractResultSet implements ForwardOnlyResultSet {
+    private final Iterator<Object[]> rowIter;
+    private final ValueConverter converter;
+    private Object[] row;
+
+    /**
+     * Creates a streaming forward-only result set that invokes the specified cleanup function on close or when
+     * the client reaches the end of the result set.
+     */
+    public ValueResultSetImpl(@Nullable DataWorldStatement statement, ResultSetMetaData metaData,
+                              Iterator<Object[]> rowIter, ValueConverter converter, @Nullable AutoCloseable cleanup)
+            throws SQLException {
+        super(statement, metaData, cleanup);
+        this.rowIter = applyLimit(statement, requireNonNull(rowIter, "rowIter"));
+        this.converter = requireNonNull(converter, "converter");
+    }
+
+    @Override
+    public boolean next() throws SQLException {
+        checkClosed();
+        boolean hasNext;
+        try {
+            hasNext = rowIter.hasNext();
+            if (hasNext) {
+                row = rowIter.next();
+            }
+        } catch (UncheckedSQLException e) {
+            // eg. the statement reading the underlying rows was closed
+            throw e.getCause();
+        }
+        if (hasNext) {
+            return true;
+        } else {
+            // No more rows, go ahead & release any resources we might be holding
+            cleanup();
+            row = null;
+            return false;
+        }
+    }
+
+    @Override
+    Node[] currentRow() {
+        if (row == null) {
+            return null;
+        }
+        // Used by stream(), exportBatches() and materialize() which read every column anyway
+        Node[] nodes = new Node[row.length];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = toNode(row[i], i + 1);
+        }
+        return nodes;
+    }
+
+    @Override
+    Node currentValue(int columnIndex) throws SQLException {
+        check(row != null, "Not currently at a row");
+        check(columnIndex >= 1 && columnIndex <= row.length, "Column index out-of-bounds");
+        return toNode(row[columnIndex - 1], columnIndex);
+    }
+
+    private Node toNode(@Nullable Object value, int columnIndex) {
+        return value != null ? converter.toNode(value, columnIndex) : null;
+    }
+
+    @Override
+    long estimateRemainingRows() throws SQLException {
+        return (statement != null && statement.getMaxRows() > 0) ? statement.getMaxRows() : Long.MAX_VALUE;
+    }
+
+    /** Converts a non-null column value to an RDF node. */
+    @FunctionalInterface
+    public interface ValueConverter {
+        Node toNode(Object value, int columnIndex);
+    }
+}
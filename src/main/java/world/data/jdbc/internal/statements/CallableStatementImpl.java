@@ -29,6 +29,7 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.math.BigDecimal;
 import java.net.URL;
+import java.sql.Array;
 import java.sql.Blob;
 import java.sql.Clob;
 import java.sql.Date;
@@ -232,7 +233,11 @@ public final class CallableStatementImpl extends PreparedStatementImpl implement
 
     @Override
     public void setObject(String parameterName, Object value) throws SQLException {
-        setParameter(parameterName, NodeConversions.toNode(value));
+        if (value instanceof Array) {
+            setArrayParameter(parameterName, (Array) value);
+        } else {
+            setParameter(parameterName, NodeConversions.toNode(value));
+        }
     }
 
     @Override
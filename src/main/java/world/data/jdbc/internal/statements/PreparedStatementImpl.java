@@ -20,6 +20,8 @@ package world.data.jdbc.internal.statements;
 
 import world.data.jdbc.DataWorldConnection;
 import world.data.jdbc.DataWorldPreparedStatement;
+import world.data.jdbc.ExportFormat;
+import world.data.jdbc.internal.query.ParsedQuery;
 import world.data.jdbc.internal.query.QueryEngine;
 import world.data.jdbc.internal.types.NodeConversions;
 import world.data.jdbc.model.Iri;
@@ -30,6 +32,7 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.math.BigDecimal;
 import java.net.URL;
+import java.nio.channels.WritableByteChannel;
 import java.sql.Array;
 import java.sql.Blob;
 import java.sql.Clob;
@@ -46,8 +49,11 @@ import java.sql.SQLType;
 import java.sql.SQLXML;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.BiFunction;
 import java.util.function.Function;
@@ -61,9 +67,10 @@ import static world.data.jdbc.internal.util.Optionals.mapIfPresent;
  * data.world JDBC implementation of a prepared statement
  */
 public class PreparedStatementImpl extends StatementImpl implements DataWorldPreparedStatement, ReadOnlyPreparedStatement {
-    private final String query;
+    private final ParsedQuery query;
     private final ParameterMetaData paramMetadata;
     private final Map<String, Node> params = new LinkedHashMap<>();
+    private final Map<String, List<Node>> arrays = new LinkedHashMap<>();
 
     /**
      * Creates a new prepared statement
@@ -75,34 +82,40 @@ public class PreparedStatementImpl extends StatementImpl implements DataWorldPre
                                  int resultSetType, int resultSetConcurrency, int resultSetHoldability)
             throws SQLException {
         super(queryEngine, connection, resultSetType, resultSetConcurrency, resultSetHoldability);
-        this.query = requireNonNull(query, "query");
-        this.paramMetadata = queryEngine.getParameterMetaData(query);
+        // Scan and encode the query once, executions only encode the parameter values
+        this.query = queryEngine.parse(requireNonNull(query, "query"));
+        this.paramMetadata = queryEngine.getParameterMetaData(this.query);
     }
 
     @Override
     public final void addBatch() throws SQLException {
         checkClosed();
-        doAddBatch(query, new LinkedHashMap<>(params));
+        doAddBatch(queryEngine.bind(query, new LinkedHashMap<>(params), new LinkedHashMap<>(arrays)));
     }
 
     @Override
     public final void clearParameters() throws SQLException {
         checkClosed();
         params.clear();
+        arrays.clear();
     }
 
     @Override
     public final boolean execute() throws SQLException {
         checkClosed();
-        return doExecuteQuery(query, params);
+        return doExecuteQuery(queryEngine.bind(query, params, arrays));
     }
 
     @Override
     public final ResultSet executeQuery() throws SQLException {
         checkClosed();
-        boolean hasResultSet = doExecuteQuery(query, params);
-        check(hasResultSet, "Query did not produce a result set");
-        return getResultSet();
+        return doExecute(queryEngine.bind(query, params, arrays));
+    }
+
+    @Override
+    public final long exportTo(WritableByteChannel out, ExportFormat format) throws SQLException {
+        checkClosed();
+        return doExport(queryEngine.bind(query, params, arrays), out, format);
     }
 
     @Override
@@ -123,7 +136,15 @@ public class PreparedStatementImpl extends StatementImpl implements DataWorldPre
 
     @Override
     public final void setArray(int parameterIndex, Array value) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+        if (value == null) {
+            setParameter(parameterIndex, null);
+            return;
+        }
+        List<Node> elements = toNodes(value);
+        setParameter(parameterIndex, null);  // validates the index
+        String name = ParsedQuery.positionalParameterName(parameterIndex - 1);
+        params.remove(name);
+        arrays.put(name, elements);
     }
 
     @Override
@@ -300,7 +321,11 @@ public class PreparedStatementImpl extends StatementImpl implements DataWorldPre
 
     @Override
     public final void setObject(int parameterIndex, Object value) throws SQLException {
-        setParameter(parameterIndex, NodeConversions.toNode(value));
+        if (value instanceof Array) {
+            setArray(parameterIndex, (Array) value);
+        } else {
+            setParameter(parameterIndex, NodeConversions.toNode(value));
+        }
     }
 
     @Override
@@ -390,17 +415,40 @@ public class PreparedStatementImpl extends StatementImpl implements DataWorldPre
         checkClosed();
         queryEngine.checkPositionalParametersSupported();
         check(parameterIndex >= 1 && parameterIndex <= paramMetadata.getParameterCount(), "Parameter Index is out of bounds");
-        params.put("$data_world_param" + (parameterIndex - 1), n);
+        String name = ParsedQuery.positionalParameterName(parameterIndex - 1);
+        arrays.remove(name);
+        params.put(name, n);
     }
 
     void setParameter(String parameterName, Node n) throws SQLException {
         checkClosed();
         queryEngine.checkNamedParametersSupported();
         check(parameterName != null && !parameterName.isEmpty(), "Empty or null parameter name");
-        check(!parameterName.startsWith("data_world_param"), "May not set positional parameter values using named parameter methods");
+        check(!ParsedQuery.isPositionalParameterName("$" + parameterName), "May not set positional parameter values using named parameter methods");
+        arrays.remove("$" + parameterName);
         params.put("$" + parameterName, n);
     }
 
+    void setArrayParameter(String parameterName, Array value) throws SQLException {
+        List<Node> elements = toNodes(value);
+        setParameter(parameterName, null);  // validates the name
+        params.remove("$" + parameterName);
+        arrays.put("$" + parameterName, elements);
+    }
+
+    /** Converts the elements of an array using the array's base type, if it has one. */
+    private static List<Node> toNodes(Array array) throws SQLException {
+        Object[] elements = (Object[]) array.getArray();
+        int baseType = array.getBaseType();
+        List<Node> nodes = new ArrayList<>(elements.length);
+        for (Object element : elements) {
+            nodes.add(baseType != Types.OTHER && baseType != Types.JAVA_OBJECT
+                    ? NodeConversions.toNode(element, baseType)
+                    : NodeConversions.toNode(element));
+        }
+        return nodes;
+    }
+
     static <T, U> Node mapIfPresent2(T t, U u, Function<T, Node> fn1, BiFunction<T, U, Node> fn2) {
         if (t == null) {
             return null;
@@ -22,13 +22,17 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.java.Log;
 import world.data.jdbc.DataWorldConnection;
 import world.data.jdbc.DataWorldStatement;
+import world.data.jdbc.ExportFormat;
 import world.data.jdbc.JdbcCompatibility;
 import world.data.jdbc.internal.query.QueryEngine;
+import world.data.jdbc.internal.transport.BoundQuery;
+import world.data.jdbc.internal.transport.EncodedQuery;
+import world.data.jdbc.internal.util.CancelToken;
 import world.data.jdbc.internal.util.ResourceContainer;
 import world.data.jdbc.internal.util.ResourceManager;
 import world.data.jdbc.internal.util.WarningList;
-import world.data.jdbc.model.Node;
 
+import java.nio.channels.WritableByteChannel;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
@@ -37,8 +41,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static java.util.Objects.requireNonNull;
 import static world.data.jdbc.internal.util.Conditions.check;
@@ -54,20 +58,22 @@ public class StatementImpl implements DataWorldStatement, ReadOnlyStatement, Res
 
     private static final int NO_LIMIT = 0;
 
-    private int timeout = NO_LIMIT;
-    private int maxRows = NO_LIMIT;
-    private JdbcCompatibility compatibilityLevel;
+    private volatile int timeout = NO_LIMIT;
+    private volatile int maxRows = NO_LIMIT;
+    private volatile JdbcCompatibility compatibilityLevel;
 
     final QueryEngine queryEngine;
     private final DataWorldConnection connection;
+    private final int resultSetType;
     private final ResourceManager resources = new ResourceManager();
     private final WarningList warnings = new WarningList();
 
-    private final List<BatchItem> commands = new ArrayList<>();
-    private final Queue<ResultSet> batchResults = new LinkedList<>();
-    private final List<ResultSet> openResults = new ArrayList<>();
-    private ResultSet currResults;
-    private boolean closed;
+    private final List<BatchItem> commands = new ArrayList<>();  // guarded by 'this'
+    private final Queue<ResultSet> batchResults = new LinkedList<>();  // guarded by 'this'
+    private final List<ResultSet> openResults = new ArrayList<>();  // guarded by 'this'
+    private ResultSet currResults;  // guarded by 'this'
+    private volatile CancelToken cancelToken = new CancelToken();
+    private final AtomicBoolean closed = new AtomicBoolean();
 
     public StatementImpl(QueryEngine queryEngine, DataWorldConnection connection,
                          int resultSetType, int resultSetConcurrency, int resultSetHoldability)
@@ -78,10 +84,17 @@ public class StatementImpl implements DataWorldStatement, ReadOnlyStatement, Res
         checkResultSetType(resultSetType);
         checkResultSetConcurrency(resultSetConcurrency);
         checkResultSetHoldability(resultSetHoldability);
-        checkSupported(resultSetType == ResultSet.TYPE_FORWARD_ONLY, "Only forward-only result sets are supported");
+        checkSupported(resultSetType != ResultSet.TYPE_SCROLL_SENSITIVE, "Scroll-sensitive result sets are not supported");
         checkSupported(resultSetConcurrency == ResultSet.CONCUR_READ_ONLY, "Only read-only concurrency result sets are supported");
+        this.resultSetType = resultSetType;
 
         ((ResourceContainer) connection).getResources().register(this);
+        if (connection.isClosed()) {
+            // Another thread closed the connection, possibly after it closed its open statements
+            ((ResourceContainer) connection).getResources().remove(this);
+            closed.set(true);
+            throw new SQLException("Connection is closed");
+        }
     }
 
     @Override
@@ -183,7 +196,7 @@ public class StatementImpl implements DataWorldStatement, ReadOnlyStatement, Res
     @Override
     public final int getResultSetType() throws SQLException {
         checkClosed();
-        return ResultSet.TYPE_FORWARD_ONLY;
+        return resultSetType;
     }
 
     @Override
@@ -206,16 +219,24 @@ public class StatementImpl implements DataWorldStatement, ReadOnlyStatement, Res
     @Override
     public final void addBatch(String query) throws SQLException {
         checkClosed();
-        doAddBatch(query, Collections.emptyMap());
+        doAddBatch(bind(query));
     }
 
-    void doAddBatch(String query, Map<String, Node> params) {
-        commands.add(new BatchItem(query, params));
+    synchronized void doAddBatch(List<BoundQuery> queries) {
+        commands.add(new BatchItem(queries));
     }
 
+    /**
+     * Cancels queries executed by this statement that are waiting for a response or still downloading results.
+     * May be called from any thread.  Blocked calls fail promptly with an {@code SQLException}, SQL state
+     * {@code HY008}.  The statement may be used to execute new queries afterwards.
+     */
     @Override
     public final void cancel() throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+        checkClosed();
+        CancelToken token = cancelToken;
+        cancelToken = new CancelToken();
+        token.cancel();
     }
 
     @Override
@@ -235,44 +256,47 @@ public class StatementImpl implements DataWorldStatement, ReadOnlyStatement, Res
         throw new SQLFeatureNotSupportedException();
     }
 
+    /**
+     * Executes the batched queries in order.  Like {@link #doExecute}, the statement is only locked to take the
+     * batch and to record each result, not while the queries run.
+     */
     @Override
     public final int[] executeBatch() throws SQLException {
         checkClosed();
+        List<BatchItem> batch;
+        synchronized (this) {
+            batch = new ArrayList<>(commands);
+        }
 
         // Go ahead and process the batch
-        int[] rets = new int[commands.size()];
-        ResultSet curr = currResults;
-        for (int i = 0; i < commands.size(); i++) {
-            BatchItem batchItem = commands.get(i);
-            if (doExecuteQuery(batchItem.query, batchItem.params)) {
-                // True means it returned a ResultSet
-                batchResults.add(getResultSet());
-                currResults = null;
-                rets[i] = SUCCESS_NO_INFO;
-            } else {
-                // Need to add a null to getMoreResults() to produce correct
-                // behavior across subsequent calls to getMoreResults()
-                batchResults.add(null);
-                rets[i] = -1;
+        int[] rets = new int[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            ResultSet results = executeQueries(batch.get(i).queries);
+            synchronized (this) {
+                batchResults.add(results);
             }
+            rets[i] = SUCCESS_NO_INFO;
         }
-        currResults = curr;
-        // Make the next available results the current results if there
-        // are no current results
-        if (currResults == null && !batchResults.isEmpty()) {
-            currResults = batchResults.poll();
+        synchronized (this) {
+            // Make the next available results the current results if there
+            // are no current results
+            if (currResults == null && !batchResults.isEmpty()) {
+                currResults = batchResults.poll();
+            }
         }
         return rets;
     }
 
     @Override
-    public final void clearBatch() {
+    public final synchronized void clearBatch() {
         commands.clear();
     }
 
     @Override
     public final void close() throws SQLException {
-        if (closed) {
+        // Mark the statement closed first so queries completing concurrently on other threads close their results
+        // instead of registering them after the statement closed its open results
+        if (!closed.compareAndSet(false, true)) {
             return;
         }
         log.fine("Closing statement");
@@ -283,7 +307,6 @@ public class StatementImpl implements DataWorldStatement, ReadOnlyStatement, Res
         } catch (Exception e) {
             log.warning("Unexpected trying to close resources: " + e);
         } finally {
-            closed = true;
             log.fine("Statement was closed");
         }
     }
@@ -351,31 +374,67 @@ public class StatementImpl implements DataWorldStatement, ReadOnlyStatement, Res
     @Override
     public final boolean execute(String query) throws SQLException {
         checkClosed();
-        return doExecuteQuery(query, Collections.emptyMap());
+        return doExecuteQuery(bind(query));
     }
 
     @Override
     public final ResultSet executeQuery(String query) throws SQLException {
         checkClosed();
-        boolean hasResultSet = doExecuteQuery(query, Collections.emptyMap());
-        check(hasResultSet, "Query did not produce a result set");
-        return getResultSet();
+        return doExecute(bind(query));
+    }
+
+    @Override
+    public final long exportTo(String query, WritableByteChannel out, ExportFormat format) throws SQLException {
+        checkClosed();
+        return doExport(bind(query), out, format);
     }
 
-    boolean doExecuteQuery(String query, Map<String, Node> parameters) throws SQLException {
-        log.fine(() -> "Received input command text:\n " + query);
+    long doExport(List<BoundQuery> queries, WritableByteChannel out, ExportFormat format) throws SQLException {
+        log.fine(() -> "Received input command text for export:\n " + queries.get(0).getQuery());
+        return queryEngine.export(this, queries, timeout != 0 ? timeout : null, cancelToken, format, out);
+    }
+
+    private static List<BoundQuery> bind(String query) {
+        return Collections.singletonList(new BoundQuery(EncodedQuery.of(query), Collections.emptyMap()));
+    }
+
+    boolean doExecuteQuery(List<BoundQuery> queries) throws SQLException {
+        doExecute(queries);
+        return true;
+    }
+
+    /**
+     * Executes the query and makes its results the current results.  The statement isn't locked while the query
+     * runs, so a statement shared by several threads doesn't serialize their queries.
+     */
+    ResultSet doExecute(List<BoundQuery> queries) throws SQLException {
+        ResultSet results = executeQueries(queries);
+        synchronized (this) {
+            currResults = results;
+        }
+        return results;
+    }
+
+    private ResultSet executeQueries(List<BoundQuery> queries) throws SQLException {
+        log.fine(() -> "Received input command text:\n " + queries.get(0).getQuery());
+        ResultSet results;
         try {
-            currResults = queryEngine.execute(this, query, parameters, timeout != 0 ? timeout : null);
-            return true;
+            results = queryEngine.execute(this, queries, timeout != 0 ? timeout : null, cancelToken);
         } catch (SQLException e) {
             throw e;
         } catch (Throwable e) {
             throw new SQLException("Error occurred during query evaluation", e);
         }
+        if (closed.get()) {
+            // Another thread closed the statement, possibly after it closed its open results
+            results.close();
+            throw new SQLException("Statement is closed");
+        }
+        return results;
     }
 
     @Override
-    public final boolean getMoreResults() throws SQLException {
+    public final synchronized boolean getMoreResults() throws SQLException {
         checkClosed();
         if (currResults != null) {
             currResults.close();
@@ -390,7 +449,7 @@ public class StatementImpl implements DataWorldStatement, ReadOnlyStatement, Res
     }
 
     @Override
-    public final boolean getMoreResults(int current) throws SQLException {
+    public final synchronized boolean getMoreResults(int current) throws SQLException {
         checkClosed();
         switch (current) {
             case CLOSE_CURRENT_RESULT:
@@ -419,23 +478,22 @@ public class StatementImpl implements DataWorldStatement, ReadOnlyStatement, Res
     }
 
     @Override
-    public final ResultSet getResultSet() throws SQLException {
+    public final synchronized ResultSet getResultSet() throws SQLException {
         checkClosed();
         return currResults;
     }
 
     @Override
     public final boolean isClosed() {
-        return closed;
+        return closed.get();
     }
 
     void checkClosed() throws SQLException {
-        check(!closed, "Statement is closed");
+        check(!closed.get(), "Statement is closed");
     }
 
     @RequiredArgsConstructor
     private static class BatchItem {
-        private final String query;
-        private final Map<String, Node> params;
+        private final List<BoundQuery> queries;
     }
 }
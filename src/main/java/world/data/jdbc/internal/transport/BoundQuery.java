@@ -0,0 +1,32 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.transport;
+
+import world.data.jdbc.model.Node;
+
+import java.util.Map;
+
+/**
+ * A query and the parameter values sent with it.  Parameter names include the {@code $} prefix.
+ */
+@lombok.Value
+public class BoundQuery {
+    private final EncodedQuery query;
+    private final Map<String, Node> parameters;
+}
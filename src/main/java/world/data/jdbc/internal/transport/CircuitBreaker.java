@@ -0,0 +1,148 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.transport;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Fails requests fast while an endpoint is unhealthy instead of letting every caller wait for it to time out.
+ * <ul>
+ * <li>Closed: requests flow normally.  The outcomes of the most recent requests are kept in a sliding window and
+ * the breaker opens once the failure rate reaches the threshold.</li>
+ * <li>Open: requests fail immediately until the open interval has passed.</li>
+ * <li>Half-open: a single probe request is let through.  The breaker closes if it succeeds and opens again if it
+ * fails.</li>
+ * </ul>
+ * Breakers are shared by all connections in the JVM to the same endpoint with the same settings.
+ */
+final class CircuitBreaker {
+    private static final ConcurrentMap<List<Object>, CircuitBreaker> SHARED = new ConcurrentHashMap<>();
+
+    /** SQL state for "client unable to establish connection". */
+    private static final String SQL_STATE_UNABLE_TO_CONNECT = "08001";
+
+    /** Number of recent outcomes used to compute the failure rate. */
+    private static final int WINDOW_SIZE = 20;
+
+    /** The breaker doesn't open until it has seen at least this many outcomes. */
+    private static final int MIN_REQUESTS = 10;
+
+    enum State {CLOSED, OPEN, HALF_OPEN}
+
+    enum Outcome {
+        SUCCESS,
+        FAILURE,
+        /** Outcomes that say nothing about the health of the endpoint, eg. client errors or cancellation. */
+        IGNORED,
+    }
+
+    private final String endpoint;
+    private final int failureRatePercent;
+    private final long openNanos;
+    private final boolean[] window = new boolean[WINDOW_SIZE];  // guarded by 'this', true = failure
+    private int count;  // guarded by 'this'
+    private int next;  // guarded by 'this'
+    private int failures;  // guarded by 'this'
+    private State state = State.CLOSED;  // guarded by 'this'
+    private long openedNanos;  // guarded by 'this'
+    private boolean probing;  // guarded by 'this'
+
+    CircuitBreaker(String endpoint, int failureRatePercent, long openMillis) {
+        this.endpoint = requireNonNull(endpoint, "endpoint");
+        this.failureRatePercent = failureRatePercent;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+    }
+
+    /** Returns the breaker shared by all connections to the endpoint with the specified settings. */
+    static CircuitBreaker forEndpoint(String endpoint, int failureRatePercent, long openMillis) {
+        return SHARED.computeIfAbsent(Arrays.asList(endpoint, failureRatePercent, openMillis),
+                key -> new CircuitBreaker(endpoint, failureRatePercent, openMillis));
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Asks permission to send a request, failing if the breaker is open.  Returns true if the request is the
+     * half-open probe.  Every successful call must be followed by a call to {@link #release}.
+     */
+    synchronized boolean acquire() throws SQLException {
+        if (state == State.OPEN && System.nanoTime() - openedNanos >= openNanos) {
+            state = State.HALF_OPEN;
+        }
+        if (state == State.CLOSED) {
+            return false;
+        }
+        if (state == State.HALF_OPEN && !probing) {
+            probing = true;
+            return true;
+        }
+        long retryMillis = Math.max(0, TimeUnit.NANOSECONDS.toMillis(openNanos - (System.nanoTime() - openedNanos)));
+        throw new SQLTransientConnectionException(String.format(
+                "Requests to '%s' are failing, not sending more for %d ms", endpoint, retryMillis),
+                SQL_STATE_UNABLE_TO_CONNECT);
+    }
+
+    /** Records the outcome of a request allowed by {@link #acquire}. */
+    synchronized void release(boolean probe, Outcome outcome) {
+        if (probe) {
+            probing = false;
+            if (outcome == Outcome.SUCCESS) {
+                close();
+            } else if (outcome == Outcome.FAILURE) {
+                open();
+            }
+        } else if (state == State.CLOSED && outcome != Outcome.IGNORED) {
+            // Requests that started before the breaker opened don't count once it has
+            boolean failure = (outcome == Outcome.FAILURE);
+            if (count == WINDOW_SIZE && window[next]) {
+                failures--;
+            }
+            window[next] = failure;
+            next = (next + 1) % WINDOW_SIZE;
+            count = Math.min(count + 1, WINDOW_SIZE);
+            if (failure) {
+                failures++;
+            }
+            if (count >= MIN_REQUESTS && failures * 100 >= failureRatePercent * count) {
+                open();
+            }
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedNanos = System.nanoTime();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        Arrays.fill(window, false);
+        count = next = failures = 0;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.transport;
+
+import world.data.jdbc.internal.util.CancelToken;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Limits the number of concurrent requests to an endpoint, adapting the limit to how the endpoint copes with load.
+ * <p>
+ * Uses additive increase/multiplicative decrease: each request that succeeds while the limit is in use raises the
+ * limit by roughly one per limit's worth of requests, each request that fails with an overload symptom such as a
+ * timeout or a 503 response cuts the limit by {@link #BACKOFF_RATIO}.  Requests over the limit wait for a slot.
+ * <p>
+ * Limiters are shared by all connections in the JVM to the same endpoint with the same settings.
+ */
+final class ConcurrencyLimiter {
+    private static final ConcurrentMap<List<Object>, ConcurrencyLimiter> SHARED = new ConcurrentHashMap<>();
+
+    static final double BACKOFF_RATIO = 0.9;
+
+    private final String endpoint;
+    private final int maxLimit;
+    private double limit;  // guarded by 'this'
+    private int inFlight;  // guarded by 'this'
+
+    ConcurrencyLimiter(String endpoint, int maxLimit) {
+        this.endpoint = requireNonNull(endpoint, "endpoint");
+        this.maxLimit = maxLimit;
+        this.limit = maxLimit;
+    }
+
+    /** Returns the limiter shared by all connections to the endpoint with the specified maximum limit. */
+    static ConcurrencyLimiter forEndpoint(String endpoint, int maxLimit) {
+        return SHARED.computeIfAbsent(Arrays.asList(endpoint, maxLimit), key -> new ConcurrencyLimiter(endpoint, maxLimit));
+    }
+
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Waits up to {@code timeoutMillis} for the number of requests in flight to drop below the limit, or until
+     * cancelled if {@code timeoutMillis} is {@code Long.MAX_VALUE}.  Every successful call must be followed by a
+     * call to {@link #release}.
+     */
+    void acquire(CancelToken cancelToken, long timeoutMillis) throws SQLException {
+        // Wake up the waiting thread if the query is cancelled
+        CancelToken.Registration registration = cancelToken.onCancel(this::wakeUp);
+        try {
+            synchronized (this) {
+                boolean timed = timeoutMillis != Long.MAX_VALUE;
+                long deadline = timed ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis) : 0;
+                while (inFlight >= (int) limit) {
+                    cancelToken.checkCancelled();
+                    if (!timed) {
+                        wait();
+                        continue;
+                    }
+                    long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (remaining <= 0) {
+                        throw new SQLTransientException(String.format(
+                                "Timed out waiting to send request to '%s', %d requests in flight", endpoint, inFlight));
+                    }
+                    wait(remaining);
+                }
+                inFlight++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting to send request to: " + endpoint, e);
+        } finally {
+            registration.close();
+        }
+    }
+
+    /** Releases a slot, adjusting the limit based on whether the request showed symptoms of overload. */
+    synchronized void release(boolean overloaded) {
+        if (overloaded) {
+            limit = Math.max(1, limit * BACKOFF_RATIO);
+        } else if (inFlight >= (int) limit) {
+            // Only probe for more capacity when the current limit is actually being used
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+        inFlight--;
+        notifyAll();
+    }
+
+    private synchronized void wakeUp() {
+        notifyAll();
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.transport;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A query along with its form-encoded request parameter.  Prepared statements encode the query text once and reuse
+ * the bytes on every execution, only the parameter values are encoded per request.
+ */
+public final class EncodedQuery {
+    private final String query;
+    private final byte[] formBytes;
+
+    private EncodedQuery(String query) {
+        this.query = requireNonNull(query, "query");
+        this.formBytes = new FormBody(query.length() + 6).add("query", query).toByteArray();
+    }
+
+    public static EncodedQuery of(String query) {
+        return new EncodedQuery(query);
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    /** Returns the {@code query=...} form parameter, percent-encoded.  Callers must not modify the array. */
+    byte[] getFormBytes() {
+        return formBytes;
+    }
+
+    @Override
+    public String toString() {
+        return query;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.transport;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Copies a response body in the requested export format to a channel without parsing it.
+ * <p>
+ * Unlike the other parsers this reads straight from the socket instead of a {@link FileBackedInputStream}, the
+ * response is consumed as fast as the channel accepts it.
+ */
+final class ExportParser implements StreamParser<Response> {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String mediaType;
+    private final WritableByteChannel out;
+
+    ExportParser(String mediaType, WritableByteChannel out) {
+        this.mediaType = requireNonNull(mediaType, "mediaType");
+        this.out = requireNonNull(out, "out");
+    }
+
+    @Override
+    public String getAcceptType() {
+        return mediaType;
+    }
+
+    @Override
+    public Response parse(InputStream in, String contentType) throws Exception {
+        long count = 0;
+        try (InputStream source = in) {
+            byte[] bytes = new byte[BUFFER_SIZE];
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            int read;
+            while ((read = source.read(bytes)) != -1) {
+                buf.clear().limit(read);
+                while (buf.hasRemaining()) {
+                    out.write(buf);
+                }
+                count += read;
+            }
+        }
+        return Response.builder()
+                .bytesExported(count)
+                .build();
+    }
+}
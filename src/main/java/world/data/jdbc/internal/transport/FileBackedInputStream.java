@@ -18,6 +18,10 @@
  */
 package world.data.jdbc.internal.transport;
 
+import world.data.jdbc.internal.metrics.JfrSupport;
+import world.data.jdbc.internal.metrics.QueryTracker;
+import world.data.jdbc.metrics.QueryPhase;
+
 import javax.annotation.Nonnull;
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -46,14 +50,28 @@ class FileBackedInputStream extends InputStream {
     private final Sync sync;
     private File file;
     private final InputStream fileIn;
+    private final QueryTracker tracker;
+    private final Runnable onComplete;
     /** Flag used by the main thread to tell the copyAsync thread that the main thread is done. */
     private volatile boolean fileInClosed;
     /** Flag used by the copyAsync thread to tell the main thread that copyAsync terminated abnormally. */
     private volatile Throwable throwable;
+    /** Flag used by a cancelling thread to stop the download and fail the reader. */
+    private volatile boolean aborted;
 
     FileBackedInputStream(InputStream in, int memLimit, Executor cachedThreadPool) throws IOException {
+        this(in, memLimit, cachedThreadPool, QueryTracker.untracked(), () -> {});
+    }
+
+    /**
+     * @param onComplete invoked once the entire response has been downloaded successfully
+     */
+    FileBackedInputStream(InputStream in, int memLimit, Executor cachedThreadPool, QueryTracker tracker,
+                          Runnable onComplete) throws IOException {
         requireNonNull(in, "in");
         requireNonNull(cachedThreadPool, "cachedThreadPool");
+        this.tracker = requireNonNull(tracker, "tracker");
+        this.onComplete = requireNonNull(onComplete, "onComplete");
 
         // Read the first 'memLimit' bytes immediately.
         byte[] buf = new byte[memLimit];
@@ -63,10 +81,13 @@ class FileBackedInputStream extends InputStream {
             remaining -= count;
         }
         this.memIn = new ByteArrayInputStream(buf, 0, length);
+        tracker.addResponseBytes(length);
 
         if (length < memLimit) {
             // All content fits in memory
             in.close();
+            tracker.phase(QueryPhase.DOWNLOAD);
+            onComplete.run();
             this.sync = null;
             this.fileIn = null;
             this.fileInClosed = true;
@@ -77,23 +98,38 @@ class FileBackedInputStream extends InputStream {
             this.file = File.createTempFile("dw-jdbc", ".tmp");
             this.fileIn = new FileInputStream(file);
             OutputStream fileOut = new FileOutputStream(file);
-            cachedThreadPool.execute(() -> copyAsync(in, fileOut));
+            JfrSupport.Span spill = JfrSupport.beginSpill();
+            cachedThreadPool.execute(() -> copyAsync(in, fileOut, spill));
         }
     }
 
-    private void copyAsync(InputStream source, OutputStream target) {
+    /** Returns true if the content didn't fit in memory and the rest is being downloaded to a temporary file. */
+    boolean isSpilled() {
+        return sync != null;
+    }
+
+    private void copyAsync(InputStream source, OutputStream target, JfrSupport.Span spill) {
+        long fileSize = 0;
         try (InputStream in = source; OutputStream out = target) {
             byte[] buf = new byte[4096];
             int count;
-            while (!fileInClosed && (count = in.read(buf)) != -1) {
+            while (!fileInClosed && !aborted && (count = in.read(buf)) != -1) {
                 out.write(buf, 0, count);
+                fileSize += count;
+                tracker.addResponseBytes(count);
+                tracker.addSpillBytes(count);
                 sync.releaseShared(count);
             }
+            if (!fileInClosed && !aborted) {
+                tracker.phase(QueryPhase.DOWNLOAD);
+                onComplete.run();
+            }
         } catch (Throwable t) {
             throwable = t;
         } finally {
             sync.releaseShared(Long.MAX_VALUE);
             deleteTempFile();
+            spill.end(fileSize);
         }
     }
 
@@ -134,18 +170,44 @@ class FileBackedInputStream extends InputStream {
     /** Wait until the copyAsync() thread has copied enough to read 'len' more bytes, or EOF. */
     private void acquire(int len) throws IOException {
         try {
-            sync.acquireSharedInterruptibly(len);
+            // Only time readers that actually have to block, the common case is the download is ahead
+            if (sync.tryAcquireShared(len) < 0) {
+                JfrSupport.Span wait = JfrSupport.beginAcquireWait();
+                sync.acquireSharedInterruptibly(len);
+                wait.end(len);
+            }
         } catch (InterruptedException e) {
             throw new IOException("Interrupted while reading from file.", e);
         }
+        if (aborted) {
+            throw new IOException("Download was cancelled.");
+        }
         // Rethrow on the main thread exceptions caught by the copyAsync() thread.
         if (throwable != null) {
             throw new IOException(throwable.getMessage(), throwable);
         }
     }
 
+    /**
+     * Stops the download, deletes the temporary file and fails pending and future reads from the file.  Unlike
+     * {@link #close()}, may be called from a thread other than the reader.
+     */
+    void abort() {
+        if (sync == null || aborted) {
+            return;
+        }
+        aborted = true;
+        // Wake up a blocked reader
+        sync.releaseShared(Long.MAX_VALUE);
+        try {
+            close();
+        } catch (IOException e) {
+            // Ignore, the reader will see the download was cancelled
+        }
+    }
+
     @Override
-    public void close() throws IOException {
+    public synchronized void close() throws IOException {
         if (!fileInClosed) {
             fileInClosed = true;
             fileIn.close();
@@ -0,0 +1,171 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.transport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * An {@code application/x-www-form-urlencoded} request body.  Names and values are percent-encoded as UTF-8
+ * directly into the body's byte buffer, without the intermediate strings and copies of {@link java.net.URLEncoder}.
+ * The encoding is byte-for-byte the same as {@code URLEncoder.encode(s, "UTF-8")}.
+ * <p>
+ * Once built, a body may be sent any number of times, eg. by retries and hedge requests, and from any thread.
+ * Large bodies may be {@linkplain #compress compressed} before they're sent.
+ */
+final class FormBody {
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(US_ASCII);
+    private static final boolean[] UNRESERVED = new boolean[128];
+
+    static {
+        for (char ch = 'a'; ch <= 'z'; ch++) {
+            UNRESERVED[ch] = UNRESERVED[ch - 'a' + 'A'] = true;
+        }
+        for (char ch = '0'; ch <= '9'; ch++) {
+            UNRESERVED[ch] = true;
+        }
+        UNRESERVED['.'] = UNRESERVED['-'] = UNRESERVED['*'] = UNRESERVED['_'] = true;
+    }
+
+    private byte[] buf;
+    private int count;
+    private final String contentEncoding;
+
+    FormBody(int initialCapacity) {
+        this.buf = new byte[Math.max(16, initialCapacity)];
+        this.contentEncoding = null;
+    }
+
+    private FormBody(byte[] compressed, String contentEncoding) {
+        this.buf = compressed;
+        this.count = compressed.length;
+        this.contentEncoding = contentEncoding;
+    }
+
+    /** Appends a {@code name=value} pair. */
+    FormBody add(String name, String value) {
+        separator();
+        encode(name);
+        append((byte) '=');
+        encode(value);
+        return this;
+    }
+
+    /** Appends a {@code name=value} pair that's already been encoded, eg. the cached query text. */
+    FormBody addEncoded(byte[] encoded) {
+        separator();
+        ensureCapacity(encoded.length);
+        System.arraycopy(encoded, 0, buf, count, encoded.length);
+        count += encoded.length;
+        return this;
+    }
+
+    int size() {
+        return count;
+    }
+
+    /** Returns the {@code Content-Encoding} of the body, null if it isn't compressed. */
+    String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    /**
+     * Returns a compressed copy of this body if it's at least {@code threshold} bytes and compression makes it
+     * smaller, otherwise returns this body.
+     */
+    FormBody compress(RequestCompression compression, int threshold) throws IOException {
+        if (compression == RequestCompression.NONE || contentEncoding != null || count < threshold) {
+            return this;
+        }
+        byte[] compressed = compression.compress(this);
+        return compressed.length < count ? new FormBody(compressed, compression.getContentEncoding()) : this;
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, count);
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buf, count);
+    }
+
+    private void separator() {
+        if (contentEncoding != null) {
+            throw new IllegalStateException("Body is compressed");
+        }
+        if (count > 0) {
+            append((byte) '&');
+        }
+    }
+
+    private void encode(String string) {
+        int length = string.length();
+        // Common case is mostly ASCII, reserve room for that up front
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            char ch = string.charAt(i);
+            if (ch < 0x80) {
+                if (UNRESERVED[ch]) {
+                    append((byte) ch);
+                } else if (ch == ' ') {
+                    append((byte) '+');
+                } else {
+                    escape(ch);
+                }
+            } else if (ch < 0x800) {
+                escape(0xc0 | (ch >> 6));
+                escape(0x80 | (ch & 0x3f));
+            } else if (Character.isHighSurrogate(ch) && i + 1 < length && Character.isLowSurrogate(string.charAt(i + 1))) {
+                int cp = Character.toCodePoint(ch, string.charAt(++i));
+                escape(0xf0 | (cp >> 18));
+                escape(0x80 | ((cp >> 12) & 0x3f));
+                escape(0x80 | ((cp >> 6) & 0x3f));
+                escape(0x80 | (cp & 0x3f));
+            } else if (Character.isSurrogate(ch)) {
+                // Unpaired surrogate, replaced with '?' the same as String.getBytes()
+                escape('?');
+            } else {
+                escape(0xe0 | (ch >> 12));
+                escape(0x80 | ((ch >> 6) & 0x3f));
+                escape(0x80 | (ch & 0x3f));
+            }
+        }
+    }
+
+    private void escape(int b) {
+        ensureCapacity(3);
+        buf[count++] = '%';
+        buf[count++] = HEX[(b >> 4) & 0xf];
+        buf[count++] = HEX[b & 0xf];
+    }
+
+    private void append(byte b) {
+        ensureCapacity(1);
+        buf[count++] = b;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (count + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + extra));
+        }
+    }
+}
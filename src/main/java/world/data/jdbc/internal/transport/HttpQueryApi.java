@@ -18,38 +18,79 @@
  */
 package world.data.jdbc.internal.transport;
 
+import lombok.extern.java.Log;
+import world.data.jdbc.ExportFormat;
+import world.data.jdbc.UncheckedSQLException;
+import world.data.jdbc.internal.metrics.QueryListeners;
+import world.data.jdbc.internal.metrics.QueryTracker;
+import world.data.jdbc.internal.util.AbstractIterator;
+import world.data.jdbc.internal.util.CancelToken;
 import world.data.jdbc.internal.util.CloseableRef;
+import world.data.jdbc.metrics.QueryListener;
+import world.data.jdbc.metrics.QueryPhase;
 import world.data.jdbc.model.Node;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.UnsupportedEncodingException;
+import java.lang.management.ManagementFactory;
 import java.net.HttpURLConnection;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
 import java.net.URL;
-import java.net.URLEncoder;
+import java.net.UnknownHostException;
+import java.nio.channels.WritableByteChannel;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
 import java.util.zip.GZIPInputStream;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.joining;
 import static world.data.jdbc.internal.util.Conditions.check;
-import static world.data.jdbc.internal.util.Optionals.or;
 
 /**
  * The class that actually executes HTTP requests against a remote data.world query server.
  */
+@Log
 public final class HttpQueryApi implements QueryApi {
     private static final AtomicLong THREAD_COUNTER = new AtomicLong(0);
+    private static final AtomicLong INSTANCE_COUNTER = new AtomicLong(0);
+
+    /** Read timeout used when neither a network timeout nor a query timeout is configured. */
+    private static final int DEFAULT_READ_TIMEOUT_MILLIS = 60_000;
+
+    /** Header telling the server how long the client will wait for the query, in milliseconds. */
+    static final String TIMEOUT_HEADER = "X-Request-Timeout-Ms";
+
+    /** Responses bigger than this are downloaded to a temp file in the background. */
+    private static final int MEM_LIMIT = 16384;
+
+    /** Rows are parsed ahead of the reader in batches of this size for responses bigger than {@link #MEM_LIMIT}. */
+    private static final int PARSE_AHEAD_BATCH_SIZE = 256;
+    private static final int PARSE_AHEAD_MAX_BATCHES = 16;
+    /** Maximum number of sub-queries of a split query that run at once, per statement. */
+    private static final int MAX_PARALLEL_SUB_QUERIES = 4;
 
     // Order the response parsers from most to least desirable for content-type negotiation
     private static final List<StreamParser<Response>> STANDARD_PARSERS = Arrays.asList(
@@ -59,88 +100,465 @@ public final class HttpQueryApi implements QueryApi {
     private final URL queryEndpoint;
     private final String userAgent;
     private final String authToken;
-    private final ExecutorService cachedThreadPool = Executors.newCachedThreadPool((Runnable target) ->
+    private final QueryListener listener;
+    private final TransportOptions options;
+    /** Set once the server rejects a compressed request body. */
+    private volatile boolean requestCompressionRejected;
+    // Equivalent to Executors.newCachedThreadPool(), typed so the pool stats can be monitored
+    private final ThreadPoolExecutor cachedThreadPool = new ThreadPoolExecutor(0, Integer.MAX_VALUE,
+            60L, TimeUnit.SECONDS, new SynchronousQueue<>(), (Runnable target) ->
             new Thread(target, String.format("dw-jdbc-%d", THREAD_COUNTER.getAndIncrement())));
+    private final CircuitBreaker circuitBreaker;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final RateLimiter rateLimiter;
+    private final QueryApiMonitor monitor;
+    private final ObjectName objectName;
 
     public HttpQueryApi(URL queryEndpoint, String userAgent, String authToken) {
+        this(queryEndpoint, userAgent, authToken, QueryListeners.NOOP);
+    }
+
+    public HttpQueryApi(URL queryEndpoint, String userAgent, String authToken, QueryListener listener) {
+        this(queryEndpoint, userAgent, authToken, listener, TransportOptions.DEFAULTS);
+    }
+
+    public HttpQueryApi(URL queryEndpoint, String userAgent, String authToken, QueryListener listener,
+                        TransportOptions options) {
         this.queryEndpoint = requireNonNull(queryEndpoint, "queryEndpoint");
         this.userAgent = requireNonNull(userAgent, "userAgent");
         this.authToken = authToken;
+        this.options = requireNonNull(options, "options");
+        String endpoint = queryEndpoint.toString();
+        this.circuitBreaker = options.getCircuitBreakerThreshold() > 0
+                ? CircuitBreaker.forEndpoint(endpoint, options.getCircuitBreakerThreshold(), options.getCircuitBreakerOpenMillis())
+                : null;
+        this.concurrencyLimiter = options.getMaxConcurrentQueries() > 0
+                ? ConcurrencyLimiter.forEndpoint(endpoint, options.getMaxConcurrentQueries())
+                : null;
+        this.rateLimiter = options.getRateLimitPerMinute() > 0
+                ? RateLimiter.forEndpoint(endpoint, authToken, options.getRateLimitPerMinute() / 60.0,
+                        options.getRateLimitBurst() > 0 ? options.getRateLimitBurst() : (options.getRateLimitPerMinute() + 59) / 60)
+                : null;
+        this.monitor = new QueryApiMonitor(endpoint, cachedThreadPool, circuitBreaker, concurrencyLimiter, rateLimiter);
+        this.listener = QueryListeners.compose(Arrays.asList(requireNonNull(listener, "listener"), monitor));
+        this.objectName = options.isJmxEnabled() ? registerMBean(monitor, queryEndpoint) : null;
     }
 
     @Override
     public void close() {
         cachedThreadPool.shutdown();
+        unregisterMBean(objectName);
+    }
+
+    QueryApiMonitorMXBean getMonitor() {
+        return monitor;
+    }
+
+    private static ObjectName registerMBean(QueryApiMonitor monitor, URL queryEndpoint) {
+        try {
+            ObjectName name = new ObjectName(String.format("world.data.jdbc:type=QueryApi,endpoint=%s,id=%d",
+                    ObjectName.quote(queryEndpoint.toString()), INSTANCE_COUNTER.incrementAndGet()));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(monitor, name);
+            return name;
+        } catch (JMException | RuntimeException e) {
+            log.log(Level.FINE, "Unable to register MBean for " + queryEndpoint, e);
+            return null;
+        }
+    }
+
+    private static void unregisterMBean(ObjectName name) {
+        if (name != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            } catch (JMException | RuntimeException e) {
+                log.log(Level.FINE, "Unable to unregister MBean " + name, e);
+            }
+        }
+    }
+
+    @Override
+    public Response executeQuery(EncodedQuery query, Map<String, Node> parameters, Integer maxRowsToReturn,
+                                 Integer timeoutSeconds, int networkTimeoutMillis, CancelToken cancelToken)
+            throws SQLException {
+        return executeQuery(query, parameters, maxRowsToReturn, timeoutSeconds, networkTimeoutMillis, cancelToken,
+                STANDARD_PARSERS);
     }
 
     @Override
-    public Response executeQuery(String query, Map<String, Node> parameters,
-                                 Integer maxRowsToReturn, Integer timeoutSeconds) throws SQLException {
+    public Response exportQuery(EncodedQuery query, Map<String, Node> parameters, Integer maxRowsToReturn,
+                                Integer timeoutSeconds, int networkTimeoutMillis, CancelToken cancelToken,
+                                ExportFormat format, WritableByteChannel out) throws SQLException {
+        // Prefer the export format, fall back to the standard formats if the server can't produce it
+        List<StreamParser<Response>> responseParsers = new ArrayList<>(STANDARD_PARSERS.size() + 1);
+        responseParsers.add(new ExportParser(format.getMediaType(), out));
+        responseParsers.addAll(STANDARD_PARSERS);
+        return executeQuery(query, parameters, maxRowsToReturn, timeoutSeconds, networkTimeoutMillis, cancelToken,
+                responseParsers);
+    }
+
+    private Response executeQuery(EncodedQuery query, Map<String, Node> parameters, Integer maxRowsToReturn,
+                                  Integer timeoutSeconds, int networkTimeoutMillis, CancelToken cancelToken,
+                                  List<StreamParser<Response>> responseParsers) throws SQLException {
         requireNonNull(query, "query");
         requireNonNull(parameters, "parameters");
+        requireNonNull(cancelToken, "cancelToken");
 
-        // Construct the request params
-        Map<String, String> requestParams = new LinkedHashMap<>();
-        requestParams.put("query", query);
+        // Build the form-encoded request body once, it's resent as-is on retries and hedge requests.  The query
+        // text was encoded when the statement was prepared, only the parameter values are encoded here.
+        FormBody requestBody = new FormBody(query.getFormBytes().length + 64 * parameters.size() + 32)
+                .addEncoded(query.getFormBytes());
         for (Map.Entry<String, Node> entry : parameters.entrySet()) {
             String name = entry.getKey();
             Node value = entry.getValue();
             check(name.startsWith("$") && name.length() > 1, "Illegal parameter name: %s", name);
             if (value != null) {
-                requestParams.put(name, value.toString());
+                requestBody.add(name, value.toString());
             }
         }
         if (maxRowsToReturn != null) {
-            requestParams.put("maxRowsReturned", Integer.toString(maxRowsToReturn));
+            requestBody.add("maxRowsReturned", Integer.toString(maxRowsToReturn));
+        }
+
+        // Execute the request.  The query gets its own token, cancelled by the statement or once the query timeout
+        // expires.  The token is released when the response is closed.
+        QueryTracker tracker = QueryTracker.start(listener, queryEndpoint.toString(), query.getQuery());
+        CancelToken queryToken = cancelToken.newChild();
+        try {
+            int queryTimeout = timeoutSeconds != null && timeoutSeconds > 0 ? timeoutSeconds : options.getQueryTimeoutSeconds();
+            if (queryTimeout > 0) {
+                queryToken.expireAfter(queryTimeout, TimeUnit.SECONDS);
+            }
+            FormBody compressedBody = compress(requestBody);
+            try {
+                return postWithRetries(compressedBody, responseParsers, networkTimeoutMillis, tracker, queryToken);
+            } catch (SQLException e) {
+                if (compressedBody == requestBody || e.getErrorCode() != 415) {
+                    throw e;
+                }
+                // The server doesn't accept compressed requests, don't try again on this connection
+                log.log(Level.FINE, "Server rejected compressed request, sending uncompressed: " + queryEndpoint, e);
+                requestCompressionRejected = true;
+                return postWithRetries(requestBody, responseParsers, networkTimeoutMillis, tracker, queryToken);
+            }
+        } catch (SQLException | RuntimeException e) {
+            queryToken.close();
+            tracker.finish(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Response executeQueries(List<BoundQuery> queries, Integer maxRowsToReturn, Integer timeoutSeconds,
+                                   int networkTimeoutMillis, CancelToken cancelToken) throws SQLException {
+        requireNonNull(queries, "queries");
+        requireNonNull(cancelToken, "cancelToken");
+        check(!queries.isEmpty(), "No queries to execute");
+        if (queries.size() == 1) {
+            BoundQuery query = queries.get(0);
+            return executeQuery(query.getQuery(), query.getParameters(), maxRowsToReturn, timeoutSeconds,
+                    networkTimeoutMillis, cancelToken);
+        }
+
+        // Sub-queries share a token so one failure cancels the rest, and the query timeout covers all of them
+        CancelToken batchToken = cancelToken.newChild();
+        int queryTimeout = timeoutSeconds != null && timeoutSeconds > 0 ? timeoutSeconds : options.getQueryTimeoutSeconds();
+        if (queryTimeout > 0) {
+            batchToken.expireAfter(queryTimeout, TimeUnit.SECONDS);
+        }
+        Semaphore parallelism = new Semaphore(MAX_PARALLEL_SUB_QUERIES);
+        List<CompletableFuture<Response>> futures = new ArrayList<>();
+        // Wake up the dispatch loop if the batch is cancelled while it waits for a slot
+        CancelToken.Registration wakeUp = batchToken.onCancel(() -> parallelism.release(queries.size()));
+        try {
+            for (BoundQuery query : queries) {
+                CompletableFuture<Response> future = new CompletableFuture<>();
+                futures.add(future);
+                // Wait on the calling thread so a big batch only ever occupies MAX_PARALLEL_SUB_QUERIES threads
+                try {
+                    parallelism.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    batchToken.cancel();
+                    future.completeExceptionally(new SQLException("Interrupted while waiting for query results.", e));
+                    break;
+                }
+                if (batchToken.isCancelled()) {
+                    future.completeExceptionally(batchToken.newCancelledException());
+                    break;
+                }
+                cachedThreadPool.execute(() -> {
+                    try {
+                        future.complete(executeQuery(query.getQuery(), query.getParameters(), maxRowsToReturn,
+                                timeoutSeconds, networkTimeoutMillis, batchToken));
+                    } catch (Throwable t) {
+                        batchToken.cancel();
+                        future.completeExceptionally(t);
+                    } finally {
+                        parallelism.release();
+                    }
+                });
+            }
+        } finally {
+            wakeUp.close();
+        }
+
+        // Wait for all the sub-queries to respond.  Rows are downloaded in the background while earlier results
+        // are read.
+        List<Response> responses = new ArrayList<>();
+        Throwable failure = null;
+        for (CompletableFuture<Response> future : futures) {
+            try {
+                responses.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batchToken.cancel();
+                failure = failure != null ? failure : new SQLException("Interrupted while waiting for query results.", e);
+            } catch (ExecutionException e) {
+                // Prefer the original failure over the cancellation of the other sub-queries
+                if (failure == null || isCancellation(failure) && !isCancellation(e.getCause())) {
+                    failure = e.getCause();
+                }
+            }
+        }
+        if (failure != null) {
+            try {
+                Response.closeAll(responses, batchToken);
+            } catch (Exception e) {
+                failure.addSuppressed(e);
+            }
+            if (failure instanceof SQLException) {
+                throw (SQLException) failure;
+            }
+            throw new SQLException("Unexpected exception executing query.", failure);
+        }
+        return Response.concat(responses, batchToken);
+    }
+
+    private static boolean isCancellation(Throwable t) {
+        return t instanceof SQLException && CancelToken.SQL_STATE_CANCELLED.equals(((SQLException) t).getSQLState());
+    }
+
+    private FormBody compress(FormBody requestBody) throws SQLException {
+        if (requestCompressionRejected) {
+            return requestBody;
+        }
+        try {
+            return requestBody.compress(options.getRequestCompression(), options.getRequestCompressionThreshold());
+        } catch (IOException e) {
+            throw new SQLException("Unable to compress request body.", e);
+        }
+    }
+
+    private Response postWithRetries(FormBody requestBody, List<StreamParser<Response>> responseParsers,
+                                     int networkTimeoutMillis, QueryTracker tracker, CancelToken queryToken)
+            throws SQLException {
+        RetryPolicy retryPolicy = options.getRetryPolicy();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return send(requestBody, responseParsers, networkTimeoutMillis, tracker, queryToken);
+            } catch (TransientQueryException e) {
+                long delay = retryPolicy.getDelayMillis(attempt, e.getRetryAfterMillis());
+                if (delay < 0 || delay >= queryToken.getRemainingMillis()) {
+                    throw e;
+                }
+                log.log(Level.FINE, String.format("Retrying query in %d ms after attempt %d failed", delay, attempt), e);
+                try {
+                    queryToken.await(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    e.addSuppressed(ie);
+                    throw e;
+                }
+                queryToken.checkCancelled();
+            }
         }
+    }
 
-        // Execute the request
-        return post(requestParams, timeoutSeconds, STANDARD_PARSERS);
+    /** Sends the request, racing it against a duplicate request if hedging is enabled and the request is slow. */
+    private Response send(FormBody requestBody, List<StreamParser<Response>> responseParsers,
+                          int networkTimeoutMillis, QueryTracker tracker, CancelToken queryToken) throws SQLException {
+        long hedgeDelay = options.getHedgePercentile() > 0
+                ? monitor.getFirstByteLatency().getPercentileMillis(options.getHedgePercentile())
+                : -1;
+        if (hedgeDelay < 0 || hedgeDelay >= queryToken.getRemainingMillis()) {
+            return post(requestBody, responseParsers, networkTimeoutMillis, tracker, queryToken, queryToken,
+                    () -> true);
+        }
+        return postHedged(requestBody, responseParsers, networkTimeoutMillis, tracker, queryToken, hedgeDelay);
     }
 
-    private <T> T post(Map<String, String> requestParams, Integer timeoutSeconds,
-                       List<StreamParser<T>> responseParsers) throws SQLException {
+    /**
+     * Sends the request and, if no response has arrived after {@code hedgeDelayMillis}, sends a duplicate request
+     * on a background thread.  The first request to receive a successful response is used and the other is
+     * cancelled.
+     */
+    private Response postHedged(FormBody requestBody, List<StreamParser<Response>> responseParsers,
+                                int networkTimeoutMillis, QueryTracker tracker, CancelToken queryToken,
+                                long hedgeDelayMillis) throws SQLException {
+        Hedge hedge = new Hedge(queryToken.newChild(), queryToken.newChild());
+        CompletableFuture<Response> secondary = new CompletableFuture<>();
+        cachedThreadPool.execute(() -> {
+            try {
+                hedge.secondary.await(hedgeDelayMillis);
+                if (hedge.secondary.isCancelled() || !hedge.startSecondary()) {
+                    hedge.secondary.close();
+                    secondary.complete(null);
+                    return;
+                }
+                log.fine(() -> String.format("Sending hedge request after %d ms: %s", hedgeDelayMillis, queryEndpoint));
+                monitor.recordHedge();
+                Response response = post(requestBody, responseParsers, networkTimeoutMillis, tracker, queryToken,
+                        hedge.secondary, () -> hedge.claim(hedge.secondary));
+                monitor.recordHedgeWin();
+                secondary.complete(response);
+            } catch (Throwable t) {
+                hedge.secondary.close();
+                secondary.completeExceptionally(t);
+            }
+        });
         try {
-            // Build the form-encoded request body
-            StringBuilder buf = new StringBuilder();
-            for (Map.Entry<String, String> entry : requestParams.entrySet()) {
-                if (buf.length() > 0) {
-                    buf.append('&');
+            return post(requestBody, responseParsers, networkTimeoutMillis, tracker, queryToken, hedge.primary,
+                    () -> hedge.claim(hedge.primary));
+        } catch (SQLException e) {
+            hedge.primary.close();
+            if (!hedge.primaryFailed()) {
+                // The hedge request was never sent
+                hedge.secondary.cancel();
+                throw e;
+            }
+            // Either the hedge request won the race or it's the only request left
+            try {
+                return secondary.get();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                hedge.secondary.cancel();
+                e.addSuppressed(ie);
+                throw e;
+            } catch (ExecutionException ee) {
+                Throwable cause = ee.getCause();
+                if (hedge.isWinner(hedge.secondary) && cause instanceof SQLException) {
+                    throw (SQLException) cause;
                 }
-                buf.append(encode(entry.getKey())).append('=').append(encode(entry.getValue()));
+                e.addSuppressed(cause);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Sends a single HTTP request, subject to the endpoint's circuit breaker, rate limit and concurrency limit.
+     * {@code networkTimeoutMillis} is the connection's network timeout, zero if unlimited.
+     * {@code queryToken} carries the query deadline and is released when the response is closed.
+     * {@code attemptToken} cancels this request, it's the same as {@code queryToken} unless hedging.
+     * {@code claim} is invoked when a successful response arrives and returns false if another request won.
+     */
+    private Response post(FormBody requestBody, List<StreamParser<Response>> responseParsers,
+                          int networkTimeoutMillis, QueryTracker tracker, CancelToken queryToken, CancelToken attemptToken,
+                          BooleanSupplier claim) throws SQLException {
+        boolean probe = circuitBreaker != null && circuitBreaker.acquire();
+        try {
+            if (rateLimiter != null) {
+                rateLimiter.acquire(attemptToken, Math.min(options.getRateLimitMaxWaitMillis(), queryToken.getRemainingMillis()));
+            }
+            if (concurrencyLimiter != null) {
+                // A zero connect timeout means no timeout, the wait is then only limited by the query deadline
+                long maxWaitMillis = options.getConnectTimeoutMillis() > 0 ? options.getConnectTimeoutMillis() : Long.MAX_VALUE;
+                concurrencyLimiter.acquire(attemptToken, Math.min(maxWaitMillis, queryToken.getRemainingMillis()));
+            }
+        } catch (SQLException e) {
+            if (circuitBreaker != null) {
+                circuitBreaker.release(probe, CircuitBreaker.Outcome.IGNORED);
             }
-            byte[] requestBody = buf.toString().getBytes(UTF_8);
+            throw e;
+        }
+        CircuitBreaker.Outcome outcome = CircuitBreaker.Outcome.SUCCESS;
+        try {
+            Response response = doPost(requestBody, responseParsers, networkTimeoutMillis, tracker, queryToken,
+                    attemptToken, claim);
+            if (rateLimiter != null) {
+                rateLimiter.succeeded();
+            }
+            return response;
+        } catch (SQLException e) {
+            outcome = getOutcome(e);
+            if (rateLimiter != null && e.getErrorCode() == 429 && e instanceof TransientQueryException) {
+                rateLimiter.throttled(((TransientQueryException) e).getRetryAfterMillis());
+            }
+            throw e;
+        } finally {
+            if (concurrencyLimiter != null) {
+                concurrencyLimiter.release(outcome == CircuitBreaker.Outcome.FAILURE);
+            }
+            if (circuitBreaker != null) {
+                circuitBreaker.release(probe, outcome);
+            }
+        }
+    }
 
+    private Response doPost(FormBody requestBody, List<StreamParser<Response>> responseParsers,
+                            int networkTimeoutMillis, QueryTracker tracker, CancelToken queryToken, CancelToken attemptToken,
+                            BooleanSupplier claim) throws SQLException {
+        // Cancelling disconnects the socket, failing any blocking calls on the connection or the download.
+        Cancellation cancellation = new Cancellation();
+        // Failures before the server starts responding can be retried
+        boolean connected = false;
+        boolean responded = false;
+        try (CloseableRef cancelRef = new CloseableRef(attemptToken.onCancel(cancellation))) {
             String acceptTypes = responseParsers.stream()
                     .map(StreamParser::getAcceptType)
                     .collect(joining(", "));
 
-            // Setup the request
-            int readTimeout = Math.min(or(timeoutSeconds, 60), 60);
-            int connectTimeout = Math.min(readTimeout, 5);
+            // Setup the request.  Socket timeouts never exceed the time left until the query deadline.
+            long remainingMillis = queryToken.getRemainingMillis();
+            int connectTimeout = (int) Math.min(options.getConnectTimeoutMillis(), remainingMillis);
+            int readTimeout = networkTimeoutMillis > 0 ? (int) Math.min(networkTimeoutMillis, remainingMillis)
+                    : remainingMillis != Long.MAX_VALUE ? (int) Math.min(Integer.MAX_VALUE, remainingMillis)
+                    : DEFAULT_READ_TIMEOUT_MILLIS;
+            long requestNanos = System.nanoTime();
             HttpURLConnection connection = (HttpURLConnection) queryEndpoint.openConnection();
-            connection.setConnectTimeout((int) TimeUnit.SECONDS.toMillis(connectTimeout));
-            connection.setReadTimeout((int) TimeUnit.SECONDS.toMillis(readTimeout));
+            monitor.attach(tracker, connection);
+            cancellation.connection = connection;
+            attemptToken.checkCancelled();
+            connection.setConnectTimeout(connectTimeout);
+            connection.setReadTimeout(readTimeout);
             connection.addRequestProperty("Content-Type", "application/x-www-form-urlencoded; charset=utf-8");
+            if (requestBody.getContentEncoding() != null) {
+                connection.addRequestProperty("Content-Encoding", requestBody.getContentEncoding());
+            }
             connection.addRequestProperty("Accept", acceptTypes);
             connection.addRequestProperty("Accept-Encoding", "gzip");
             connection.addRequestProperty("User-Agent", userAgent);
             if (authToken != null) {
                 connection.addRequestProperty("Authorization", "Bearer " + authToken);
             }
+            if (remainingMillis != Long.MAX_VALUE) {
+                // Let the server give up on work the client will abandon anyway
+                connection.addRequestProperty(TIMEOUT_HEADER, Long.toString(remainingMillis));
+            }
 
             // Send the request
             connection.setRequestMethod("POST");
             connection.setDoOutput(true);
-            connection.setFixedLengthStreamingMode(requestBody.length);
-            connection.getOutputStream().write(requestBody);
+            connection.setFixedLengthStreamingMode(requestBody.size());
+            connection.connect();
+            connected = true;
+            tracker.phase(QueryPhase.CONNECT);
+            requestBody.writeTo(connection.getOutputStream());
+            tracker.addRequestBytes(requestBody.size());
+            tracker.phase(QueryPhase.REQUEST_WRITE);
 
             // Wait for the response
             int status = connection.getResponseCode();
             String message = connection.getResponseMessage();
+            responded = true;
+            tracker.phase(QueryPhase.FIRST_BYTE);
 
             String contentType = trimHeader(connection.getHeaderField("Content-Type"));
 
+            if (status != 200) {
+                monitor.recordHttpError(status);
+            }
+
             // Check for errors, eg. 401 Unauthorized etc.
             if (status >= 400) {
                 String details;
@@ -148,11 +566,13 @@ public final class HttpQueryApi implements QueryApi {
                 try (CloseableRef ignored = new CloseableRef(err)) {
                     details = err != null ? new ErrorMessageParser().parse(err, contentType) : null;
                 }
-                if (details == null || details.isEmpty()) {
-                    throw new SQLException(String.format("HTTP request to '%s' failed with response %d: %s", queryEndpoint, status, message));
-                } else {
-                    throw new SQLException(String.format("HTTP request to '%s' failed with response %d: %s; %s", queryEndpoint, status, message, details));
+                String reason = details == null || details.isEmpty()
+                        ? String.format("HTTP request to '%s' failed with response %d: %s", queryEndpoint, status, message)
+                        : String.format("HTTP request to '%s' failed with response %d: %s; %s", queryEndpoint, status, message, details);
+                if (isTransientStatus(status)) {
+                    throw new TransientQueryException(reason, status, parseRetryAfter(connection.getHeaderField("Retry-After")));
                 }
+                throw new SQLException(reason, null, status);
             }
 
             // This endpoint isn't expected to return redirects or other 2xx, 3xx responses
@@ -160,11 +580,28 @@ public final class HttpQueryApi implements QueryApi {
                 throw new SQLException(String.format("HTTP request to '%s' failed with unexpected response %d: %s", queryEndpoint, status, message));
             }
 
+            monitor.recordFirstByte(System.nanoTime() - requestNanos);
+            if (!claim.getAsBoolean()) {
+                throw attemptToken.newCancelledException();
+            }
+            monitor.attach(tracker, connection);
+
             // Once we've checked that status is 2xx or 3xx it's safe to get the InputStream
             InputStream in = connection.getInputStream();
             try (CloseableRef cleanup = new CloseableRef(in)) {
+                StreamParser<Response> responseParser = selectParser(contentType, responseParsers);
+
                 // Download the content as fast as possible to release the http connection quickly
-                in = cleanup.set(new FileBackedInputStream(in, 16384, cachedThreadPool));
+                // The query timeout covers the download but not the time the caller takes to process the results
+                // Exports are copied straight from the socket, there the query timeout covers the entire copy
+                FileBackedInputStream download = null;
+                if (!(responseParser instanceof ExportParser)) {
+                    download = cleanup.set(new FileBackedInputStream(in, MEM_LIMIT, cachedThreadPool, tracker,
+                            queryToken::disarm));
+                    cancellation.download = download;
+                    attemptToken.checkCancelled();
+                    in = download;
+                }
 
                 // Decompress the response, if necessary
                 if ("gzip".equals(trimHeader(connection.getHeaderField("Content-Encoding")))) {
@@ -172,11 +609,24 @@ public final class HttpQueryApi implements QueryApi {
                 }
 
                 // Parse the InputStream.  The parser becomes responsible for closing.
-                return cleanup.detach(parseResponse(in, contentType, responseParsers));
+                Response response = responseParser.parse(in, contentType);
+
+                if (download == null) {
+                    tracker.addResponseBytes(response.getBytesExported());
+                    tracker.phase(QueryPhase.DOWNLOAD);
+                    queryToken.disarm();
+                } else if (download.isSpilled() && response.getRows() != null) {
+                    // For big responses, parse rows in the background while the caller processes earlier rows
+                    response = parseAhead(response);
+                }
+                response = track(response, tracker, queryToken, attemptToken);
+                return cleanup.detach(cancelRef.detach(response));
 
             } catch (SQLException e) {
                 throw e;
             } catch (IOException e) {
+                attemptToken.checkCancelled();
+                checkTimeout(e);
                 throw new SQLException("I/O exception while parsing HTTP response from server: " + queryEndpoint, e);
             } catch (Exception e) {
                 throw new SQLException("Unexpected exception parsing HTTP response from server: " + queryEndpoint, e);
@@ -184,34 +634,198 @@ public final class HttpQueryApi implements QueryApi {
         } catch (SQLException e) {
             throw e;
         } catch (IOException e) {
+            attemptToken.checkCancelled();
+            if (!responded && isTransientFailure(e, connected)) {
+                throw new TransientQueryException("I/O exception while making HTTP request to server: " + queryEndpoint, e);
+            }
+            checkTimeout(e);
             throw new SQLException("I/O exception while making HTTP request to server: " + queryEndpoint, e);
         } catch (Exception e) {
             throw new SQLException("Unexpected exception while making HTTP request to server: " + queryEndpoint, e);
         }
     }
 
-    private <T> T parseResponse(InputStream in, String contentType, List<StreamParser<T>> responseParsers) throws Exception {
+    private StreamParser<Response> selectParser(String contentType, List<StreamParser<Response>> responseParsers) throws SQLException {
         // Pick a parser based on the content type returned.
-        // for closing the InputStream
-        for (StreamParser<T> responseParser : responseParsers) {
+        for (StreamParser<Response> responseParser : responseParsers) {
             for (String acceptType : responseParser.getAcceptType().split(",")) {
                 if (trimHeader(acceptType).equals(contentType)) {
-                    return responseParser.parse(in, contentType);
+                    return responseParser;
                 }
             }
         }
         throw new SQLException(String.format("HTTP request to '%s' failed with unexpected content type: %s", queryEndpoint, contentType));
     }
 
+    private Response parseAhead(Response response) {
+        ReadAheadIterator<Node[]> rows = new ReadAheadIterator<>(response.getRows(), response.getCleanup(),
+                PARSE_AHEAD_BATCH_SIZE, PARSE_AHEAD_MAX_BATCHES, cachedThreadPool);
+        return response.toBuilder()
+                .rows(rows)
+                .cleanup(rows)
+                .build();
+    }
+
+    private Response track(Response response, QueryTracker tracker, CancelToken queryToken, CancelToken attemptToken) {
+        Iterator<Node[]> rows = response.getRows() != null ? cancellable(response.getRows(), attemptToken) : null;
+        AutoCloseable cleanup = response.getCleanup();
+        return response.toBuilder()
+                .rows(rows != null ? tracker.trackRows(rows) : null)
+                .cleanup(tracker.trackClose(() -> {
+                    try {
+                        if (cleanup != null) {
+                            cleanup.close();
+                        }
+                    } finally {
+                        attemptToken.close();
+                        queryToken.close();
+                    }
+                }))
+                .build();
+    }
+
+    /** Wraps an iterator to report cancellation instead of the I/O errors caused by disconnecting the socket. */
+    private static <T> Iterator<T> cancellable(Iterator<T> rows, CancelToken cancelToken) {
+        return new AbstractIterator<T>() {
+            @Override
+            protected T computeNext() {
+                try {
+                    checkCancelled();
+                    return rows.hasNext() ? rows.next() : endOfData();
+                } catch (RuntimeException e) {
+                    checkCancelled();
+                    throw e;
+                }
+            }
+
+            private void checkCancelled() {
+                if (cancelToken.isCancelled()) {
+                    throw new UncheckedSQLException(cancelToken.newCancelledException());
+                }
+            }
+        };
+    }
+
+    /**
+     * Classifies a failed request for the circuit breaker and concurrency limiter.  Client errors and cancellation
+     * say nothing about the health of the endpoint, other failures such as timeouts, 5xx responses and I/O errors do.
+     */
+    private static CircuitBreaker.Outcome getOutcome(SQLException e) {
+        if (CancelToken.SQL_STATE_CANCELLED.equals(e.getSQLState())) {
+            return CircuitBreaker.Outcome.IGNORED;
+        }
+        int status = e.getErrorCode();
+        if (status >= 400 && status < 500 && !isTransientStatus(status)) {
+            return CircuitBreaker.Outcome.IGNORED;
+        }
+        return CircuitBreaker.Outcome.FAILURE;
+    }
+
+    /** Returns true for statuses that indicate the server didn't process the request: 429, 502 and 503. */
+    private static boolean isTransientStatus(int status) {
+        return status == 429 || status == 502 || status == 503;
+    }
+
+    /**
+     * Returns true if an I/O error before the response started may succeed if retried: connection failures other
+     * than unknown hosts, or the connection being reset after connecting.  Read timeouts aren't retried since the
+     * server may still be working on the query.
+     */
+    private static boolean isTransientFailure(IOException e, boolean connected) {
+        return connected
+                ? e instanceof SocketException
+                : !(e instanceof UnknownHostException);
+    }
+
+    /** Parses a {@code Retry-After} header in seconds or HTTP date format, returning -1 if absent or invalid. */
+    static long parseRetryAfter(String header) {
+        if (header == null || header.trim().isEmpty()) {
+            return -1;
+        }
+        try {
+            return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(header.trim())));
+        } catch (NumberFormatException e) {
+            // Fall through to try the HTTP date format
+        }
+        try {
+            Instant retryAt = ZonedDateTime.parse(header.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return Math.max(0, Duration.between(Instant.now(), retryAt).toMillis());
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    private void checkTimeout(IOException e) throws SQLTimeoutException {
+        if (e instanceof SocketTimeoutException) {
+            throw new SQLTimeoutException("Timed out waiting for HTTP response from server: " + queryEndpoint, e);
+        }
+    }
+
     private String trimHeader(String header) {
         return header != null ? header.replaceFirst(";.*", "").trim() : null;
     }
 
-    private String encode(String string) {
-        try {
-            return URLEncoder.encode(string, "UTF-8");
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException(e);
+    /** Races a request against its hedge request.  The first to receive a successful response cancels the other. */
+    private static final class Hedge {
+        final CancelToken primary;
+        final CancelToken secondary;
+        private boolean started;  // guarded by 'this'
+        private boolean abandoned;  // guarded by 'this'
+        private CancelToken winner;  // guarded by 'this'
+
+        Hedge(CancelToken primary, CancelToken secondary) {
+            this.primary = primary;
+            this.secondary = secondary;
+        }
+
+        /** Returns true if the hedge request should be sent, ie. the primary request is still waiting. */
+        synchronized boolean startSecondary() {
+            if (winner != null || abandoned) {
+                return false;
+            }
+            started = true;
+            return true;
+        }
+
+        /** Returns true if the hedge request was sent and may still succeed after the primary request failed. */
+        synchronized boolean primaryFailed() {
+            abandoned = true;
+            return started;
+        }
+
+        synchronized boolean isWinner(CancelToken token) {
+            return winner == token;
+        }
+
+        boolean claim(CancelToken token) {
+            CancelToken loser;
+            synchronized (this) {
+                if (winner != null) {
+                    return false;
+                }
+                winner = token;
+                loser = (token == primary) ? secondary : primary;
+            }
+            loser.cancel();
+            return true;
+        }
+    }
+
+    /** Tears down the HTTP connection and download of an in-flight query, invoked from the cancelling thread. */
+    private static final class Cancellation implements Runnable {
+        volatile HttpURLConnection connection;
+        volatile FileBackedInputStream download;
+
+        @Override
+        public void run() {
+            FileBackedInputStream download = this.download;
+            if (download != null) {
+                download.abort();
+            }
+            HttpURLConnection connection = this.connection;
+            if (connection != null) {
+                connection.disconnect();
+            }
         }
     }
 }
@@ -18,14 +18,38 @@
  */
 package world.data.jdbc.internal.transport;
 
+import world.data.jdbc.ExportFormat;
+import world.data.jdbc.internal.util.CancelToken;
 import world.data.jdbc.model.Node;
 
 import java.io.Closeable;
+import java.nio.channels.WritableByteChannel;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.Map;
 
 public interface QueryApi extends Closeable {
 
-    Response executeQuery(String query, Map<String, Node> parameters,
-                          Integer maxRowsToReturn, Integer timeoutSeconds) throws SQLException;
+    /**
+     * Executes a query.  {@code networkTimeoutMillis} is the maximum time to wait for the server to send data,
+     * zero if the wait is only limited by the query timeout.
+     */
+    Response executeQuery(EncodedQuery query, Map<String, Node> parameters, Integer maxRowsToReturn,
+                          Integer timeoutSeconds, int networkTimeoutMillis, CancelToken cancelToken) throws SQLException;
+
+    /**
+     * Executes the sub-queries of a single query, concurrently, and concatenates their results in order.  Used
+     * when a large array parameter is split across several queries.
+     */
+    Response executeQueries(List<BoundQuery> queries, Integer maxRowsToReturn, Integer timeoutSeconds,
+                            int networkTimeoutMillis, CancelToken cancelToken) throws SQLException;
+
+    /**
+     * Executes a query, asking the server for results in the export format.  If the server responds in that format
+     * the response body is copied to {@code out} and the returned response only reports the number of bytes
+     * written.  Otherwise the response is parsed as usual for the caller to re-serialize.
+     */
+    Response exportQuery(EncodedQuery query, Map<String, Node> parameters, Integer maxRowsToReturn,
+                         Integer timeoutSeconds, int networkTimeoutMillis, CancelToken cancelToken,
+                         ExportFormat format, WritableByteChannel out) throws SQLException;
 }
@@ -0,0 +1,259 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.transport;
+
+import world.data.jdbc.internal.metrics.QueryTracker;
+import world.data.jdbc.metrics.QueryInfo;
+import world.data.jdbc.metrics.QueryListener;
+import world.data.jdbc.metrics.QueryStats;
+
+import javax.annotation.Nullable;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Tracks in-flight queries and error counts for an {@link HttpQueryApi} and exposes them via JMX.
+ * <p>
+ * Listens to the query lifecycle to maintain the set of in-flight queries.  {@code HttpQueryApi} attaches the
+ * tracker and HTTP connection once the request is sent so queries can be inspected and cancelled.
+ */
+final class QueryApiMonitor implements QueryApiMonitorMXBean, QueryListener {
+    private final String endpoint;
+    private final ThreadPoolExecutor downloadPool;
+    private final CircuitBreaker circuitBreaker;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final RateLimiter rateLimiter;
+    private final ConcurrentMap<Long, InFlight> inFlight = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<Integer, AtomicLong> errorCounts = new ConcurrentHashMap<>();
+    private final AtomicLong totalQueryCount = new AtomicLong();
+    private final AtomicLong failedQueryCount = new AtomicLong();
+    private final AtomicLong totalSpillBytes = new AtomicLong();
+    private final AtomicLong hedgedRequestCount = new AtomicLong();
+    private final AtomicLong hedgeWinCount = new AtomicLong();
+    /** Time from sending a request to receiving a successful response status, over recent requests. */
+    private final LatencyTracker firstByteLatency = new LatencyTracker(256, 20);
+
+    QueryApiMonitor(String endpoint, ThreadPoolExecutor downloadPool) {
+        this(endpoint, downloadPool, null, null, null);
+    }
+
+    QueryApiMonitor(String endpoint, ThreadPoolExecutor downloadPool, @Nullable CircuitBreaker circuitBreaker,
+                    @Nullable ConcurrencyLimiter concurrencyLimiter, @Nullable RateLimiter rateLimiter) {
+        this.endpoint = requireNonNull(endpoint, "endpoint");
+        this.downloadPool = requireNonNull(downloadPool, "downloadPool");
+        this.circuitBreaker = circuitBreaker;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public void queryStarted(QueryInfo query) {
+        totalQueryCount.incrementAndGet();
+        inFlight.put(query.getId(), new InFlight(query, System.nanoTime()));
+    }
+
+    @Override
+    public void queryFinished(QueryInfo query, QueryStats stats) {
+        inFlight.remove(query.getId());
+        totalSpillBytes.addAndGet(stats.getSpillBytes());
+        if (stats.getError() != null) {
+            failedQueryCount.incrementAndGet();
+        }
+    }
+
+    /** Associates an in-flight query with the objects needed to report on it and cancel it. */
+    void attach(QueryTracker tracker, HttpURLConnection connection) {
+        InFlight query = inFlight.get(tracker.getInfo().getId());
+        if (query != null) {
+            query.tracker = tracker;
+            query.connection = connection;
+        }
+    }
+
+    void recordHttpError(int status) {
+        errorCounts.computeIfAbsent(status, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    void recordFirstByte(long nanos) {
+        firstByteLatency.record(nanos);
+    }
+
+    void recordHedge() {
+        hedgedRequestCount.incrementAndGet();
+    }
+
+    void recordHedgeWin() {
+        hedgeWinCount.incrementAndGet();
+    }
+
+    LatencyTracker getFirstByteLatency() {
+        return firstByteLatency;
+    }
+
+    @Override
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    @Override
+    public int getInFlightQueryCount() {
+        return inFlight.size();
+    }
+
+    @Override
+    public List<InFlightQuery> getInFlightQueries() {
+        long now = System.nanoTime();
+        List<InFlightQuery> queries = new ArrayList<>();
+        for (InFlight query : inFlight.values()) {
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(now - query.startNanos);
+            queries.add(new InFlightQuery(query.info.getId(), elapsedMillis, query.info.getQuery()));
+        }
+        return queries;
+    }
+
+    @Override
+    public long getTotalQueryCount() {
+        return totalQueryCount.get();
+    }
+
+    @Override
+    public long getFailedQueryCount() {
+        return failedQueryCount.get();
+    }
+
+    @Override
+    public Map<Integer, Long> getErrorCountsByHttpStatus() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        errorCounts.forEach((status, count) -> counts.put(status, count.get()));
+        return counts;
+    }
+
+    @Override
+    public long getSpillBytesOnDisk() {
+        long bytes = 0;
+        for (InFlight query : inFlight.values()) {
+            QueryTracker tracker = query.tracker;
+            if (tracker != null) {
+                bytes += tracker.getSpillBytes();
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public long getTotalSpillBytes() {
+        return totalSpillBytes.get() + getSpillBytesOnDisk();
+    }
+
+    @Override
+    public long getFirstByteMillisP50() {
+        return firstByteLatency.getPercentileMillis(50);
+    }
+
+    @Override
+    public long getFirstByteMillisP99() {
+        return firstByteLatency.getPercentileMillis(99);
+    }
+
+    @Override
+    public long getHedgedRequestCount() {
+        return hedgedRequestCount.get();
+    }
+
+    @Override
+    public long getHedgeWinCount() {
+        return hedgeWinCount.get();
+    }
+
+    @Override
+    public String getCircuitBreakerState() {
+        return circuitBreaker != null ? circuitBreaker.getState().name() : "DISABLED";
+    }
+
+    @Override
+    public int getConcurrencyLimit() {
+        return concurrencyLimiter != null ? concurrencyLimiter.getLimit() : -1;
+    }
+
+    @Override
+    public int getConcurrencyLimitInFlight() {
+        return concurrencyLimiter != null ? concurrencyLimiter.getInFlight() : 0;
+    }
+
+    @Override
+    public double getRateLimitPerMinute() {
+        return rateLimiter != null ? rateLimiter.getPermitsPerSecond() * 60 : -1;
+    }
+
+    @Override
+    public int getDownloadPoolSize() {
+        return downloadPool.getPoolSize();
+    }
+
+    @Override
+    public int getDownloadPoolActiveCount() {
+        return downloadPool.getActiveCount();
+    }
+
+    @Override
+    public int getDownloadPoolLargestSize() {
+        return downloadPool.getLargestPoolSize();
+    }
+
+    @Override
+    public long getDownloadPoolCompletedTaskCount() {
+        return downloadPool.getCompletedTaskCount();
+    }
+
+    @Override
+    public boolean cancelQuery(long id) {
+        InFlight query = inFlight.get(id);
+        if (query == null) {
+            return false;
+        }
+        HttpURLConnection connection = query.connection;
+        if (connection != null) {
+            connection.disconnect();
+        }
+        return true;
+    }
+
+    private static final class InFlight {
+        final QueryInfo info;
+        final long startNanos;
+        volatile QueryTracker tracker;
+        volatile HttpURLConnection connection;
+
+        InFlight(QueryInfo info, long startNanos) {
+            this.info = info;
+            this.startNanos = startNanos;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.transport;
+
+import java.beans.ConstructorProperties;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JMX view of an {@link HttpQueryApi}, registered under {@code world.data.jdbc:type=QueryApi} while the
+ * connection that owns it is open.
+ */
+public interface QueryApiMonitorMXBean {
+
+    String getEndpoint();
+
+    int getInFlightQueryCount();
+
+    /** Queries that have been sent and whose result sets haven't been closed yet, oldest first. */
+    List<InFlightQuery> getInFlightQueries();
+
+    long getTotalQueryCount();
+
+    long getFailedQueryCount();
+
+    /** Failed responses, keyed by HTTP status code. */
+    Map<Integer, Long> getErrorCountsByHttpStatus();
+
+    /** Bytes in temporary files held by in-flight queries. */
+    long getSpillBytesOnDisk();
+
+    long getTotalSpillBytes();
+
+    /** Median time to receive a successful response over recent requests, in milliseconds, or -1 if unknown. */
+    long getFirstByteMillisP50();
+
+    /** 99th percentile time to receive a successful response over recent requests, in milliseconds, or -1 if unknown. */
+    long getFirstByteMillisP99();
+
+    /** Duplicate requests sent because the original request was slower than the hedging threshold. */
+    long getHedgedRequestCount();
+
+    /** Hedge requests that responded before the original request. */
+    long getHedgeWinCount();
+
+    /** One of CLOSED, OPEN or HALF_OPEN, or DISABLED if the connection doesn't use a circuit breaker. */
+    String getCircuitBreakerState();
+
+    /** Current adaptive limit on concurrent requests to the endpoint, or -1 if unlimited. */
+    int getConcurrencyLimit();
+
+    /** Requests to the endpoint in flight across all connections that share the concurrency limit. */
+    int getConcurrencyLimitInFlight();
+
+    /** Current rate limit for the endpoint in requests per minute, lowered after 429 responses, or -1 if unlimited. */
+    double getRateLimitPerMinute();
+
+    int getDownloadPoolSize();
+
+    int getDownloadPoolActiveCount();
+
+    int getDownloadPoolLargestSize();
+
+    long getDownloadPoolCompletedTaskCount();
+
+    /**
+     * Aborts the HTTP connection of an in-flight query.  The thread reading the query's results gets an exception.
+     * Returns false if no such query is in flight.
+     */
+    boolean cancelQuery(long id);
+
+    final class InFlightQuery {
+        private final long id;
+        private final long elapsedMillis;
+        private final String query;
+
+        @ConstructorProperties({"id", "elapsedMillis", "query"})
+        public InFlightQuery(long id, long elapsedMillis, String query) {
+            this.id = id;
+            this.elapsedMillis = elapsedMillis;
+            this.query = query;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public String getQuery() {
+            return query;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.transport;
+
+import world.data.jdbc.internal.util.CancelToken;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A token bucket that keeps the rate of requests to an endpoint within the account's quota.
+ * <p>
+ * Requests take a permit from the bucket, waiting if necessary, so bursts are smoothed out on the client instead
+ * of being rejected by the server.  Permits are reserved in order so waiting requests are spaced out evenly.
+ * <p>
+ * When the server responds with 429 Too Many Requests anyway, eg. because other clients share the quota, the rate
+ * is halved and no permits are handed out until the {@code Retry-After} delay has passed.  The rate recovers
+ * gradually as requests succeed.
+ * <p>
+ * Limiters are shared by all connections in the JVM to the same endpoint with the same auth token and settings.
+ */
+final class RateLimiter {
+    private static final ConcurrentMap<List<Object>, RateLimiter> SHARED = new ConcurrentHashMap<>();
+
+    private static final double BACKOFF_RATIO = 0.5;
+
+    /** The rate never drops below this fraction of the configured rate. */
+    private static final double MIN_RATE_RATIO = 0.1;
+
+    /** Each successful request restores this fraction of the configured rate. */
+    private static final double RECOVERY_RATIO = 0.05;
+
+    private final String endpoint;
+    private final double maxPermitsPerSecond;
+    private final double burst;
+    private double permitsPerSecond;  // guarded by 'this'
+    /** Permits available now.  Negative when permits have been reserved ahead of time.  Guarded by 'this'. */
+    private double permits;
+    private long refilledNanos;  // guarded by 'this'
+    private long backoffNanos;  // guarded by 'this'
+
+    RateLimiter(String endpoint, double permitsPerSecond, int burst) {
+        this.endpoint = requireNonNull(endpoint, "endpoint");
+        this.maxPermitsPerSecond = permitsPerSecond;
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = Math.max(1, burst);
+        this.permits = this.burst;
+        this.refilledNanos = System.nanoTime();
+        this.backoffNanos = refilledNanos - TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /**
+     * Returns the limiter shared by all connections to the endpoint that use the specified auth token and settings.
+     */
+    static RateLimiter forEndpoint(String endpoint, String authToken, double permitsPerSecond, int burst) {
+        return SHARED.computeIfAbsent(Arrays.asList(endpoint, fingerprint(authToken), permitsPerSecond, burst),
+                key -> new RateLimiter(endpoint, permitsPerSecond, burst));
+    }
+
+    synchronized double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    /**
+     * Takes a permit, waiting until one is available.  Fails without waiting if a permit won't be available within
+     * {@code maxWaitMillis}.
+     */
+    void acquire(CancelToken cancelToken, long maxWaitMillis) throws SQLException {
+        long waitMillis = reserve(maxWaitMillis);
+        if (waitMillis > 0) {
+            try {
+                cancelToken.await(waitMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting to send request to: " + endpoint, e);
+            }
+            cancelToken.checkCancelled();
+        }
+    }
+
+    /** Reserves the next permit and returns how long to wait before using it, in milliseconds. */
+    private synchronized long reserve(long maxWaitMillis) throws SQLException {
+        refill();
+        long waitMillis = permits >= 1 ? 0 : (long) Math.ceil((1 - permits) / permitsPerSecond * 1000);
+        if (waitMillis > maxWaitMillis) {
+            throw new SQLTransientException(String.format(
+                    "Request rate limit for '%s' exceeded, next request allowed in %d ms", endpoint, waitMillis));
+        }
+        permits -= 1;
+        return waitMillis;
+    }
+
+    /** Slows down after the server responded with 429 Too Many Requests. */
+    synchronized void throttled(long retryAfterMillis) {
+        refill();
+        long now = System.nanoTime();
+        // Concurrent requests rejected together count as a single signal
+        if (now - backoffNanos >= TimeUnit.SECONDS.toNanos(1)) {
+            permitsPerSecond = Math.max(maxPermitsPerSecond * MIN_RATE_RATIO, permitsPerSecond * BACKOFF_RATIO);
+            backoffNanos = now;
+        }
+        // Discard the burst allowance and, if the server said when to come back, hold off until then
+        permits = Math.min(permits, 0);
+        if (retryAfterMillis > 0) {
+            permits = Math.min(permits, -retryAfterMillis / 1000.0 * permitsPerSecond);
+        }
+    }
+
+    synchronized void succeeded() {
+        if (permitsPerSecond < maxPermitsPerSecond) {
+            permitsPerSecond = Math.min(maxPermitsPerSecond, permitsPerSecond + maxPermitsPerSecond * RECOVERY_RATIO);
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        permits = Math.min(burst, permits + (now - refilledNanos) / 1e9 * permitsPerSecond);
+        refilledNanos = now;
+    }
+
+    /** Avoids keeping auth tokens in memory for the life of the JVM. */
+    private static String fingerprint(String authToken) {
+        if (authToken == null) {
+            return "";
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(authToken.getBytes(UTF_8));
+            StringBuilder buf = new StringBuilder();
+            for (byte b : digest) {
+                buf.append(String.format("%02x", b));
+            }
+            return buf.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
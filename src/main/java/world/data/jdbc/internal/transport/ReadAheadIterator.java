@@ -0,0 +1,227 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.transport;
+
+import world.data.jdbc.internal.util.AbstractIterator;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * An {@link Iterator} that parses rows on a background thread ahead of the reader.
+ * <p>
+ * Used for responses too big to fit in memory.  Json parsing and gzip decompression run on the download thread
+ * pool while the application processes the rows that have already been parsed.  Rows are handed off in batches
+ * to keep synchronization overhead low and at most {@code maxBatches} batches are buffered at any one time.
+ * <p>
+ * Closing the iterator stops the background thread before closing the underlying parser, since the parser is
+ * not thread-safe.  The background thread only holds a weak reference to the iterator, so if the reader abandons
+ * the iterator without closing it the thread notices the next time it waits for the reader, stops and closes the
+ * parser itself instead of being pinned forever.
+ */
+final class ReadAheadIterator<T> extends AbstractIterator<T> implements AutoCloseable {
+    private static final List<Object> END = new ArrayList<>(0);
+    private static final long POLL_MILLIS = 1000;
+
+    private final Worker<T> worker;
+    private Iterator<T> batch = Collections.emptyIterator();
+
+    ReadAheadIterator(Iterator<T> source, AutoCloseable cleanup, int batchSize, int maxBatches, Executor executor) {
+        this(source, cleanup, batchSize, maxBatches, executor, POLL_MILLIS);
+    }
+
+    ReadAheadIterator(Iterator<T> source, AutoCloseable cleanup, int batchSize, int maxBatches, Executor executor,
+                      long pollMillis) {
+        Worker<T> worker = new Worker<>(source, cleanup, batchSize, maxBatches, pollMillis);
+        this.worker = worker;
+        // The task must not reference 'this' or the iterator could never be garbage collected
+        WeakReference<ReadAheadIterator<T>> reader = new WeakReference<>(this);
+        executor.execute(() -> worker.parseAsync(reader));
+    }
+
+    @Override
+    protected T computeNext() {
+        while (!batch.hasNext()) {
+            List<T> rows;
+            try {
+                rows = worker.queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new IOException("Interrupted while waiting for the response to be parsed.", e));
+            }
+            if (rows == END) {
+                // Rethrow on the main thread exceptions caught by the background thread.
+                Throwable t = worker.throwable;
+                if (t instanceof RuntimeException) {
+                    throw (RuntimeException) t;
+                } else if (t instanceof Error) {
+                    throw (Error) t;
+                } else if (t != null) {
+                    throw new IllegalStateException(t.getMessage(), t);
+                }
+                return endOfData();
+            }
+            worker.available.release();
+            batch = rows.iterator();
+        }
+        return batch.next();
+    }
+
+    @Override
+    public void close() throws IOException {
+        boolean running;
+        synchronized (worker) {
+            if (worker.closed) {
+                return;
+            }
+            worker.closed = true;
+            running = (worker.thread != null);
+            if (running) {
+                worker.thread.interrupt();
+            }
+        }
+        // Wait for the background thread to stop using the parser before closing it
+        if (running) {
+            try {
+                worker.done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the response parser to stop.");
+            }
+        }
+        worker.closeCleanup();
+    }
+
+    /** The state shared with the background thread.  Must not reference the iterator. */
+    private static final class Worker<T> {
+        private final Iterator<T> source;
+        private final AutoCloseable cleanup;
+        private final int batchSize;
+        private final long pollMillis;
+        private final BlockingQueue<List<T>> queue = new LinkedBlockingQueue<>();
+        private final Semaphore available;
+        private final CountDownLatch done = new CountDownLatch(1);
+        /** The background thread, while it's running.  Guarded by 'this'. */
+        private Thread thread;
+        /** Flag used by the main thread to tell the background thread that the main thread is done. */
+        private volatile boolean closed;
+        /** Flag used by the background thread to tell the main thread that parsing terminated abnormally. */
+        private volatile Throwable throwable;
+
+        Worker(Iterator<T> source, AutoCloseable cleanup, int batchSize, int maxBatches, long pollMillis) {
+            this.source = requireNonNull(source, "source");
+            this.cleanup = cleanup;
+            this.batchSize = batchSize;
+            this.pollMillis = pollMillis;
+            this.available = new Semaphore(maxBatches);
+        }
+
+        void parseAsync(WeakReference<?> reader) {
+            synchronized (this) {
+                if (closed) {
+                    done.countDown();
+                    return;
+                }
+                thread = Thread.currentThread();
+            }
+            boolean abandoned = false;
+            List<T> buf = new ArrayList<>(batchSize);
+            try {
+                while (!closed && source.hasNext()) {
+                    buf.add(source.next());
+                    if (buf.size() == batchSize) {
+                        if (!put(buf, reader)) {
+                            abandoned = true;
+                            break;
+                        }
+                        buf = new ArrayList<>(batchSize);
+                    }
+                }
+            } catch (Throwable t) {
+                throwable = t;
+            } finally {
+                // Hand off rows parsed before the end of the response or before an exception
+                if (!buf.isEmpty() && !abandoned) {
+                    queue.add(buf);
+                }
+                putEnd();
+                synchronized (this) {
+                    thread = null;
+                    // Don't leak an interrupt from close() to the next task that runs on this pooled thread
+                    Thread.interrupted();
+                }
+                done.countDown();
+            }
+            if (abandoned) {
+                // Nobody is left to call close()
+                try {
+                    closeCleanup();
+                } catch (IOException e) {
+                    // Ignore, there's no reader to report the error to
+                }
+            }
+        }
+
+        /** Waits for the reader to catch up if it's too far behind, returns false if the reader went away. */
+        private boolean put(List<T> rows, WeakReference<?> reader) throws InterruptedException {
+            while (!available.tryAcquire(pollMillis, MILLISECONDS)) {
+                if (closed) {
+                    return true;  // the rows are discarded, close() is waiting for this thread to finish
+                }
+                if (reader.get() == null) {
+                    return false;
+                }
+            }
+            queue.add(rows);
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void putEnd() {
+            queue.add((List<T>) END);
+        }
+
+        void closeCleanup() throws IOException {
+            if (cleanup == null) {
+                return;
+            }
+            try {
+                cleanup.close();
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * How large request bodies are compressed before they're sent, see {@link TransportOptions#requestCompression}.
+ */
+public enum RequestCompression {
+    NONE(null),
+    GZIP("gzip"),
+    /** The zlib format, which is what HTTP calls {@code deflate}. */
+    DEFLATE("deflate");
+
+    private final String contentEncoding;
+
+    RequestCompression(String contentEncoding) {
+        this.contentEncoding = contentEncoding;
+    }
+
+    /** Returns the {@code Content-Encoding} header value, null if the body isn't compressed. */
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    /** Returns the compressed bytes of {@code body}. */
+    byte[] compress(FormBody body) throws IOException {
+        // Form-encoded queries typically compress 4-10x
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(Math.max(64, body.size() / 4));
+        try (OutputStream out = this == GZIP ? new GZIPOutputStream(buf, 8192) : new DeflaterOutputStream(buf)) {
+            body.writeTo(out);
+        }
+        return buf.toByteArray();
+    }
+}
@@ -18,9 +18,11 @@
  */
 package world.data.jdbc.internal.transport;
 
+import world.data.jdbc.internal.util.AbstractIterator;
 import world.data.jdbc.model.Node;
 
 import javax.annotation.Nonnull;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -29,12 +31,69 @@ import java.util.List;
  * 'application/rdf+json'.
  */
 @lombok.Value
-@lombok.Builder(builderClassName = "Builder")
+@lombok.Builder(builderClassName = "Builder", toBuilder = true)
 public final class Response {
     private final Boolean booleanResult;
     private final List<Column> columns;
     private final Iterator<Node[]> rows;
     private final AutoCloseable cleanup;
+    /** Set instead of rows when the response body was copied verbatim to an export channel. */
+    private final Long bytesExported;
+
+    /**
+     * Concatenates the responses to the sub-queries of a single query.  Columns come from the first response and
+     * ASK results are or'ed together.  The cleanup of the result closes every response, then {@code cleanup}.
+     */
+    static Response concat(List<Response> responses, AutoCloseable cleanup) {
+        Response first = responses.get(0);
+        Boolean booleanResult = first.getBooleanResult() != null
+                ? responses.stream().anyMatch(response -> Boolean.TRUE.equals(response.getBooleanResult()))
+                : null;
+        Iterator<Node[]> rows = first.getRows() != null ? new AbstractIterator<Node[]>() {
+            private final Iterator<Response> remaining = responses.iterator();
+            private Iterator<Node[]> current = Collections.emptyIterator();
+
+            @Override
+            protected Node[] computeNext() {
+                while (!current.hasNext()) {
+                    if (!remaining.hasNext()) {
+                        return endOfData();
+                    }
+                    Iterator<Node[]> next = remaining.next().getRows();
+                    current = next != null ? next : Collections.emptyIterator();
+                }
+                return current.next();
+            }
+        } : null;
+        return first.toBuilder()
+                .booleanResult(booleanResult)
+                .rows(rows)
+                .cleanup(() -> closeAll(responses, cleanup))
+                .build();
+    }
+
+    static void closeAll(List<Response> responses, AutoCloseable cleanup) throws Exception {
+        Exception failure = null;
+        for (Response response : responses) {
+            try {
+                if (response != null && response.getCleanup() != null) {
+                    response.getCleanup().close();
+                }
+            } catch (Exception e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (cleanup != null) {
+            cleanup.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
 
     @lombok.Value
     @lombok.Builder(builderClassName = "Builder")
@@ -0,0 +1,66 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.transport;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Controls how {@link HttpQueryApi} retries queries that fail with a transient error before any part of the
+ * response is handed to the caller.  All queries are read-only so retrying them is safe.
+ * <p>
+ * Retries use exponential backoff with "full jitter", ie. a random delay between zero and the exponential cap,
+ * and honor the server's {@code Retry-After} header.
+ */
+@lombok.Value
+@lombok.Builder(builderClassName = "Builder", toBuilder = true)
+public final class RetryPolicy {
+    public static final RetryPolicy DEFAULTS = builder().build();
+    public static final RetryPolicy NONE = builder().maxAttempts(1).build();
+
+    /** Maximum number of attempts, including the first.  One disables retries. */
+    @lombok.Builder.Default
+    private int maxAttempts = 3;
+
+    /** Upper bound of the delay before the first retry, in milliseconds.  Doubles after each attempt. */
+    @lombok.Builder.Default
+    private long initialBackoffMillis = 100;
+
+    /** Upper bound of the delay between attempts, in milliseconds. */
+    @lombok.Builder.Default
+    private long maxBackoffMillis = 5_000;
+
+    /** Requests to retry later than this, in milliseconds, fail the query instead of waiting. */
+    @lombok.Builder.Default
+    private long maxRetryAfterMillis = 30_000;
+
+    /**
+     * Returns the delay before the next attempt, in milliseconds, or -1 if the query shouldn't be retried.
+     *
+     * @param attempt          the number of attempts made so far, starting at 1
+     * @param retryAfterMillis the delay requested by the server, or -1 if none
+     */
+    long getDelayMillis(int attempt, long retryAfterMillis) {
+        if (attempt >= maxAttempts || retryAfterMillis > maxRetryAfterMillis) {
+            return -1;
+        }
+        long cap = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 30));
+        long jitter = ThreadLocalRandom.current().nextLong(cap + 1);
+        return Math.max(jitter, retryAfterMillis);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.transport;
+
+import java.sql.SQLTransientException;
+
+/**
+ * A failure that happened before the server started sending results and that may succeed if retried, eg.
+ * a 503 Service Unavailable response or a connection reset.
+ */
+class TransientQueryException extends SQLTransientException {
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterMillis;
+
+    /**
+     * @param status the HTTP response status, reported as the vendor error code
+     */
+    TransientQueryException(String reason, int status, long retryAfterMillis) {
+        super(reason, null, status);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    TransientQueryException(String reason, Throwable cause) {
+        super(reason, cause);
+        this.retryAfterMillis = -1;
+    }
+
+    /** Returns the delay requested by the server's {@code Retry-After} header, or -1 if none. */
+    long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
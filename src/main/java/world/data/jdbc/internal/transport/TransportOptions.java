@@ -0,0 +1,102 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.transport;
+
+/**
+ * Per-connection settings for {@link HttpQueryApi}.
+ */
+@lombok.Value
+@lombok.Builder(builderClassName = "Builder", toBuilder = true)
+public final class TransportOptions {
+    public static final TransportOptions DEFAULTS = builder().build();
+
+    /** Maximum time to establish a connection to the server, in milliseconds. */
+    @lombok.Builder.Default
+    private int connectTimeoutMillis = 5000;
+
+    /** Default query timeout for statements that don't set one, in seconds.  Zero means no limit. */
+    @lombok.Builder.Default
+    private int queryTimeoutSeconds = 0;
+
+    /** How queries that fail with transient errors are retried. */
+    @lombok.Builder.Default
+    private RetryPolicy retryPolicy = RetryPolicy.DEFAULTS;
+
+    /**
+     * When non-zero, a duplicate request is sent if a query hasn't received a response within this percentile
+     * (1-99) of recent response times for the endpoint.  The first response wins and the other request is cancelled.
+     * Trades extra backend load for lower tail latency.  Zero disables hedging.
+     */
+    @lombok.Builder.Default
+    private int hedgePercentile = 0;
+
+    /**
+     * When non-zero, requests to the endpoint fail fast once this percentage of recent requests has failed with
+     * server errors, timeouts or connection failures.  A probe request is let through after
+     * {@link #circuitBreakerOpenMillis}.  Zero disables the circuit breaker.
+     */
+    @lombok.Builder.Default
+    private int circuitBreakerThreshold = 0;
+
+    /** How long the circuit breaker fails requests before letting a probe request through, in milliseconds. */
+    @lombok.Builder.Default
+    private int circuitBreakerOpenMillis = 30_000;
+
+    /**
+     * When non-zero, the upper bound of an adaptive limit on concurrent requests to the endpoint, shared by all
+     * connections.  Requests over the limit wait up to the connect timeout for a slot, or up to the query timeout
+     * if the connect timeout is zero.  Zero means no limit.
+     */
+    @lombok.Builder.Default
+    private int maxConcurrentQueries = 0;
+
+    /**
+     * When non-zero, the maximum rate of requests to the endpoint per minute, shared by all connections using the
+     * same auth token.  Requests over the rate wait for their turn.  Zero means no limit.
+     */
+    @lombok.Builder.Default
+    private int rateLimitPerMinute = 0;
+
+    /** Number of requests that may be sent at once before the rate limit applies.  Zero means one second's worth. */
+    @lombok.Builder.Default
+    private int rateLimitBurst = 0;
+
+    /** Maximum time a request waits for the rate limit, in milliseconds.  Requests that would wait longer fail. */
+    @lombok.Builder.Default
+    private int rateLimitMaxWaitMillis = 30_000;
+
+    /**
+     * How request bodies of at least {@link #requestCompressionThreshold} bytes are compressed.  If the server
+     * rejects a compressed request with 415 Unsupported Media Type, the request is resent uncompressed and
+     * compression is turned off for the connection.
+     */
+    @lombok.Builder.Default
+    private RequestCompression requestCompression = RequestCompression.NONE;
+
+    /** Minimum size of a request body before it's compressed, in bytes. */
+    @lombok.Builder.Default
+    private int requestCompressionThreshold = 8192;
+
+    /**
+     * When true, the transport registers a {@link QueryApiMonitorMXBean} with the platform MBean server until it's
+     * closed.  Off by default since connections that are never closed would keep their MBean registered.
+     */
+    @lombok.Builder.Default
+    private boolean jmxEnabled = false;
+}
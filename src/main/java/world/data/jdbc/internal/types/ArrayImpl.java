@@ -0,0 +1,123 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.types;
+
+import java.sql.Array;
+import java.sql.JDBCType;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+import static world.data.jdbc.internal.util.Conditions.check;
+
+/**
+ * A client-side {@link Array} created by {@link java.sql.Connection#createArrayOf} for binding a list of values to a
+ * single parameter.  The type name is a {@link JDBCType} name, eg. {@code VARCHAR}.  Unrecognized type names are
+ * treated as {@link Types#OTHER} and the elements are converted based on their Java class.
+ */
+public final class ArrayImpl implements Array {
+    private final String baseTypeName;
+    private final int baseType;
+    private Object[] elements;
+
+    public ArrayImpl(String typeName, Object[] elements) throws SQLException {
+        check(typeName != null, "Array type name may not be null");
+        this.baseTypeName = typeName;
+        this.baseType = toJdbcType(typeName);
+        this.elements = requireNonNull(elements, "elements").clone();
+    }
+
+    private static int toJdbcType(String typeName) {
+        try {
+            return JDBCType.valueOf(typeName.trim().toUpperCase()).getVendorTypeNumber();
+        } catch (IllegalArgumentException e) {
+            return Types.OTHER;
+        }
+    }
+
+    @Override
+    public String getBaseTypeName() throws SQLException {
+        checkFreed();
+        return baseTypeName;
+    }
+
+    @Override
+    public int getBaseType() throws SQLException {
+        checkFreed();
+        return baseType;
+    }
+
+    @Override
+    public Object getArray() throws SQLException {
+        checkFreed();
+        return elements.clone();
+    }
+
+    @Override
+    public Object getArray(Map<String, Class<?>> map) throws SQLException {
+        check(map == null || map.isEmpty(), "Type maps are not supported");
+        return getArray();
+    }
+
+    @Override
+    public Object getArray(long index, int count) throws SQLException {
+        checkFreed();
+        check(index >= 1 && count >= 0 && index - 1 + count <= elements.length, "Array index is out of bounds");
+        return Arrays.copyOfRange(elements, (int) index - 1, (int) index - 1 + count);
+    }
+
+    @Override
+    public Object getArray(long index, int count, Map<String, Class<?>> map) throws SQLException {
+        check(map == null || map.isEmpty(), "Type maps are not supported");
+        return getArray(index, count);
+    }
+
+    @Override
+    public ResultSet getResultSet() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public ResultSet getResultSet(Map<String, Class<?>> map) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public ResultSet getResultSet(long index, int count) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public ResultSet getResultSet(long index, int count, Map<String, Class<?>> map) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void free() {
+        elements = null;
+    }
+
+    private void checkFreed() throws SQLException {
+        check(elements != null, "Array has been freed");
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.util;
+
+import lombok.extern.java.Log;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Signals cancellation of in-flight work, eg. {@link java.sql.Statement#cancel()} called from another thread or
+ * a query timeout expiring.
+ * <p>
+ * Work in progress registers callbacks that tear down blocking resources such as sockets.  A token can only be
+ * cancelled once, callbacks registered after that are invoked immediately.
+ * <p>
+ * A child token is cancelled when its parent is cancelled and may also have its own deadline.  Close child tokens
+ * when the work completes to release the timer and unregister from the parent.
+ */
+@Log
+public final class CancelToken implements AutoCloseable {
+    /** SQL state for "operation canceled". */
+    public static final String SQL_STATE_CANCELLED = "HY008";
+    /** SQL state for "timeout expired". */
+    private static final String SQL_STATE_TIMEOUT = "HYT00";
+
+    private static final ScheduledThreadPoolExecutor TIMER = newTimer();
+
+    /** A registered callback.  Close it once the work completes normally. */
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final Set<Runnable> callbacks = new LinkedHashSet<>();  // guarded by 'this'
+    private Registration parentRegistration;  // guarded by 'this'
+    private ScheduledFuture<?> timer;  // guarded by 'this'
+    private long deadlineNanos;  // guarded by 'this'
+    private volatile boolean cancelled;
+    private volatile boolean expired;
+
+    /** Returns a token that is cancelled when this token is cancelled. */
+    public CancelToken newChild() {
+        CancelToken child = new CancelToken();
+        // Propagate the reason so the child reports a timeout when the parent's deadline passes
+        Registration registration = onCancel(() -> child.cancel(expired));
+        synchronized (child) {
+            child.parentRegistration = registration;
+        }
+        return child;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /** Returns true if the token was cancelled because its deadline passed. */
+    public boolean isExpired() {
+        return expired;
+    }
+
+    /** Invokes all registered callbacks.  Subsequent calls have no effect. */
+    public void cancel() {
+        cancel(false);
+    }
+
+    /** Cancels the token with a timeout after the specified delay, unless it completes or is disarmed first. */
+    public synchronized void expireAfter(long timeout, TimeUnit unit) {
+        deadlineNanos = System.nanoTime() + unit.toNanos(timeout);
+        if (!cancelled && timer == null) {
+            timer = TIMER.schedule(() -> cancel(true), timeout, unit);
+        }
+    }
+
+    /**
+     * Returns the time until the deadline in milliseconds, at least 1, or {@code Long.MAX_VALUE} if there is no
+     * deadline.
+     */
+    public synchronized long getRemainingMillis() {
+        if (timer == null) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+    }
+
+    /** Stops the deadline timer, eg. once all the work subject to the deadline is complete. */
+    public synchronized void disarm() {
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+        }
+    }
+
+    private void cancel(boolean expire) {
+        List<Runnable> toRun;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            expired = expire;
+            cancelled = true;
+            toRun = new ArrayList<>(callbacks);
+            callbacks.clear();
+            notifyAll();
+        }
+        for (Runnable callback : toRun) {
+            run(callback);
+        }
+    }
+
+    /** Registers a callback to invoke on cancel.  The callback is invoked immediately if already cancelled. */
+    public Registration onCancel(Runnable callback) {
+        synchronized (this) {
+            if (!cancelled) {
+                callbacks.add(callback);
+                return () -> {
+                    synchronized (this) {
+                        callbacks.remove(callback);
+                    }
+                };
+            }
+        }
+        run(callback);
+        return () -> {};
+    }
+
+    /** Waits for the specified time, returning early if the token is cancelled. */
+    public synchronized void await(long millis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long remaining = millis;
+        while (!cancelled && remaining > 0) {
+            wait(remaining);
+            remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        }
+    }
+
+    public void checkCancelled() throws SQLException {
+        if (cancelled) {
+            throw newCancelledException();
+        }
+    }
+
+    /** Returns the exception that reports why the token was cancelled. */
+    public SQLException newCancelledException() {
+        return expired
+                ? new SQLTimeoutException("Query timed out", SQL_STATE_TIMEOUT)
+                : new SQLException("Statement was cancelled", SQL_STATE_CANCELLED);
+    }
+
+    /** Stops the deadline timer and unregisters from the parent token. */
+    @Override
+    public void close() {
+        Registration registration;
+        synchronized (this) {
+            disarm();
+            registration = parentRegistration;
+            parentRegistration = null;
+        }
+        if (registration != null) {
+            registration.close();
+        }
+    }
+
+    private static void run(Runnable callback) {
+        try {
+            callback.run();
+        } catch (RuntimeException e) {
+            log.log(Level.WARNING, "Unexpected exception cancelling work", e);
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor newTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, (Runnable target) -> {
+            Thread thread = new Thread(target, "dw-jdbc-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+}
@@ -18,11 +18,13 @@
  */
 package world.data.jdbc.internal.util;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Set;
-import java.util.WeakHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Keeps track of a collection of resources to be closed when the {@code ResourceManager} itself are closed.
@@ -30,28 +32,65 @@ import java.util.WeakHashMap;
  * alive.  This is useful for resources like HTTP connections that are closed automatically via their finalize
  * method, but it's preferable for the application to close them explicitly before the garbage collector gets
  * around to them.
+ * <p>
+ * Thread-safe without locking, result sets register and remove themselves from their statement on every query
+ * and statements may be shared across threads.  Resources are compared by identity.  Entries for resources that
+ * have been garbage collected are purged via a {@link ReferenceQueue} as other resources are registered.
  */
 public class ResourceManager implements AutoCloseable {
-    private final Set<AutoCloseable> resources = Collections.newSetFromMap(new WeakHashMap<>());
+    private final Map<WeakKey, Boolean> resources = new ConcurrentHashMap<>();
+    private final ReferenceQueue<AutoCloseable> collected = new ReferenceQueue<>();
 
-    public synchronized void register(AutoCloseable closeable) {
-        resources.add(closeable);
+    public void register(AutoCloseable closeable) {
+        expungeCollected();
+        resources.put(new WeakKey(closeable, collected), Boolean.TRUE);
     }
 
-    public synchronized void remove(AutoCloseable closeable) {
-        resources.remove(closeable);
+    public void remove(AutoCloseable closeable) {
+        resources.remove(new WeakKey(closeable, null));
     }
 
-    private synchronized List<AutoCloseable> snapshot() {
-        return new ArrayList<>(resources);
+    /** Returns the currently registered resources of the specified type. */
+    public <T> List<T> getAll(Class<T> type) {
+        List<T> matching = new ArrayList<>();
+        for (WeakKey key : resources.keySet()) {
+            AutoCloseable resource = key.get();
+            if (type.isInstance(resource)) {
+                matching.add(type.cast(resource));
+            }
+        }
+        return matching;
+    }
+
+    /** Returns the number of registered resources that haven't been garbage collected. */
+    int size() {
+        expungeCollected();
+        return resources.size();
+    }
+
+    private List<AutoCloseable> snapshot() {
+        List<AutoCloseable> closeables = new ArrayList<>(resources.size());
+        for (WeakKey key : resources.keySet()) {
+            AutoCloseable resource = key.get();
+            if (resource != null) {
+                closeables.add(resource);
+            }
+        }
+        return closeables;
+    }
+
+    private void expungeCollected() {
+        Reference<? extends AutoCloseable> ref;
+        while ((ref = collected.poll()) != null) {
+            resources.remove(ref);
+        }
     }
 
     @Override
     public void close() throws Exception {
-        // Make a copy to avoid concurrent modification exceptions
+        // Make a copy, resources are expected to remove themselves from 'resources' in their close()
         List<AutoCloseable> closeables = snapshot();
 
-        // Resources are expected to remove themselves from 'resources' in their close()
         Exception firstException = null;
         for (AutoCloseable closeable : closeables) {
             try {
@@ -68,4 +107,31 @@ public class ResourceManager implements AutoCloseable {
             throw firstException;
         }
     }
+
+    /** A weak reference that compares by the identity of its referent, and still equals itself once cleared. */
+    private static final class WeakKey extends WeakReference<AutoCloseable> {
+        private final int hash;
+
+        WeakKey(AutoCloseable referent, ReferenceQueue<AutoCloseable> queue) {
+            super(referent, queue);
+            this.hash = System.identityHashCode(referent);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof WeakKey)) {
+                return false;
+            }
+            AutoCloseable referent = get();
+            return referent != null && referent == ((WeakKey) obj).get();
+        }
+    }
 }
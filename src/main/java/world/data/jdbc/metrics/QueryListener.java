@@ -0,0 +1,51 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.metrics;
+
+/**
+ * Receives notifications about the progress of queries, for example to record latency metrics.
+ * <p>
+ * Listeners are registered by listing the class name in the {@code metricsListener} connection property (comma
+ * separated if more than one) or globally via the standard {@link java.util.ServiceLoader} mechanism using a
+ * {@code META-INF/services/world.data.jdbc.metrics.QueryListener} file.  Listeners must have a public no-arg
+ * constructor.
+ * <p>
+ * Callbacks may be invoked from background download threads as well as from application threads, so
+ * implementations must be thread-safe.  They should also be fast since they're called on the query path.
+ * Exceptions thrown by listeners are logged and otherwise ignored.
+ */
+public interface QueryListener {
+
+    /** Invoked before the request is sent to the server. */
+    default void queryStarted(QueryInfo query) {
+    }
+
+    /**
+     * Invoked the first time a query reaches each phase.  Not all phases are reached by all queries, eg.
+     * queries that fail or return no rows.
+     *
+     * @param elapsedNanos the time since the start of the query, in nanoseconds
+     */
+    default void queryPhase(QueryInfo query, QueryPhase phase, long elapsedNanos) {
+    }
+
+    /** Invoked once when the query fails or when its result set is closed. */
+    default void queryFinished(QueryInfo query, QueryStats stats) {
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.metrics;
+
+/**
+ * Milestones in the life of a query, in the order they normally occur.
+ */
+public enum QueryPhase {
+    /** The http connection to the query server has been established. */
+    CONNECT,
+    /** The request body has been sent to the server. */
+    REQUEST_WRITE,
+    /** The response status and headers have been received, ie. time-to-first-byte. */
+    FIRST_BYTE,
+    /** The entire response body has been downloaded from the server. */
+    DOWNLOAD,
+    /** The first row has been parsed and returned to the application. */
+    FIRST_ROW,
+    /** The application has read the last row. */
+    LAST_ROW,
+    /** The result set has been closed and all resources associated with the query released. */
+    CLOSE,
+}
@@ -0,0 +1,45 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.metrics;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+
+/**
+ * Summary statistics for a completed query.
+ */
+@lombok.Value
+@lombok.Builder(builderClassName = "Builder")
+public final class QueryStats {
+    /** The size of the http request body. */
+    private long requestBytes;
+    /** The size of the http response body, as received over the network. */
+    private long responseBytes;
+    /** The number of response bytes that didn't fit in memory and were saved to a temporary file. */
+    private long spillBytes;
+    /** The number of rows read by the application. */
+    private long rowCount;
+    /** The time from the start of the query to the end of each phase reached, in nanoseconds. */
+    private Map<QueryPhase, Long> phaseNanos;
+    /** The time from the start of the query until it finished, in nanoseconds. */
+    private long elapsedNanos;
+    /** The error that caused the query to fail, if any. */
+    @Nullable
+    private Throwable error;
+}
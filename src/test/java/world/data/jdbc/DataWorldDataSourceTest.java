@@ -0,0 +1,176 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc;
+
+import fi.iki.elonen.NanoHTTPD;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import world.data.jdbc.testing.CloserResource;
+import world.data.jdbc.testing.NanoHTTPDResource;
+import world.data.jdbc.testing.Utils;
+
+import javax.sql.ConnectionEvent;
+import javax.sql.ConnectionEventListener;
+import javax.sql.DataSource;
+import javax.sql.PooledConnection;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static world.data.jdbc.testing.MoreAssertions.assertSQLException;
+
+public class DataWorldDataSourceTest {
+    private static final Queue<String> authorizations = new ConcurrentLinkedQueue<>();
+    private static volatile long responseDelayMillis;
+
+    @ClassRule
+    public static final NanoHTTPDResource proxiedServer = new NanoHTTPDResource(3333) {
+        @Override
+        protected NanoHTTPD.Response serve(NanoHTTPD.IHTTPSession session) throws Exception {
+            authorizations.add(session.getHeaders().get("authorization"));
+            Thread.sleep(responseDelayMillis);
+            String body = IOUtils.toString(getClass().getResourceAsStream("/select.json"), UTF_8);
+            return newResponse(NanoHTTPD.Response.Status.OK, Utils.TYPE_SPARQL_RESULTS, body);
+        }
+    };
+
+    @Rule
+    public final CloserResource closer = new CloserResource();
+
+    @Before
+    public void setup() {
+        authorizations.clear();
+        responseDelayMillis = 0;
+    }
+
+    private DataWorldDataSource newDataSource() {
+        DataWorldDataSource dataSource = new DataWorldDataSource("jdbc:data:world:sql:dave:lahman-sabremetrics-dataset");
+        dataSource.setPassword("access-token");
+        dataSource.setProperty("queryBaseUrl", "http://localhost:3333");
+        return closer.register(dataSource);
+    }
+
+    @Test
+    public void testGetConnection() throws Exception {
+        DataWorldDataSource dataSource = newDataSource();
+        try (Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection()) {
+            assertThat(first).isNotSameAs(second);
+            assertThat(first.prepareStatement("select * from HallOfFame").executeQuery().next()).isTrue();
+            first.close();
+            // Closing one connection leaves the shared transport open for the others
+            assertThat(second.prepareStatement("select * from HallOfFame").executeQuery().next()).isTrue();
+        }
+        assertThat(authorizations).containsExactly("Bearer access-token", "Bearer access-token");
+    }
+
+    @Test
+    public void testNetworkTimeoutPerConnection() throws Exception {
+        DataWorldDataSource dataSource = newDataSource();
+        try (Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection()) {
+            first.setNetworkTimeout(Runnable::run, 50);
+            assertThat(second.getNetworkTimeout()).isEqualTo(0);
+
+            // Only the connection with the network timeout gives up on a slow response
+            responseDelayMillis = 500;
+            assertSQLException(() -> first.createStatement().executeQuery("select * from HallOfFame"));
+            assertThat(second.createStatement().executeQuery("select * from HallOfFame").next()).isTrue();
+        }
+    }
+
+    @Test
+    public void testGetConnectionWithPassword() throws Exception {
+        DataWorldDataSource dataSource = newDataSource();
+        try (Connection connection = dataSource.getConnection(null, "other-token");
+             Statement statement = connection.createStatement()) {
+            statement.executeQuery("select * from HallOfFame").close();
+        }
+        assertThat(authorizations).containsExactly("Bearer other-token");
+    }
+
+    @Test
+    public void testPooledConnection() throws Exception {
+        DataWorldDataSource dataSource = newDataSource();
+        PooledConnection pooled = dataSource.getPooledConnection();
+        ConnectionEventListener listener = mock(ConnectionEventListener.class);
+        pooled.addConnectionEventListener(listener);
+
+        Connection connection = pooled.getConnection();
+        try (ResultSet resultSet = connection.createStatement().executeQuery("select * from HallOfFame")) {
+            assertThat(resultSet.next()).isTrue();
+        }
+        connection.close();
+        verify(listener, times(1)).connectionClosed(any(ConnectionEvent.class));
+
+        // Opening a new handle closes the previous one without an event
+        Connection second = pooled.getConnection();
+        Connection third = pooled.getConnection();
+        assertThat(second.isClosed()).isTrue();
+        verify(listener, times(1)).connectionClosed(any(ConnectionEvent.class));
+
+        pooled.close();
+        assertThat(third.isClosed()).isTrue();
+        assertSQLException(pooled::getConnection);
+        verify(listener, never()).connectionErrorOccurred(any(ConnectionEvent.class));
+    }
+
+    @Test
+    public void testUnwrap() throws Exception {
+        DataSource dataSource = newDataSource();
+        assertThat(dataSource.isWrapperFor(DataWorldDataSource.class)).isTrue();
+        assertThat(dataSource.isWrapperFor(Connection.class)).isFalse();
+        assertThat(dataSource.unwrap(DataWorldDataSource.class)).isSameAs(dataSource);
+        assertSQLException(() -> dataSource.unwrap(Connection.class));
+    }
+
+    @Test
+    public void testConfigurationFrozen() throws Exception {
+        DataWorldDataSource dataSource = newDataSource();
+        dataSource.getConnection().close();
+        assertThatThrownBy(() -> dataSource.setUrl("jdbc:data:world:sql:dave:other"))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(dataSource.getProperties().getProperty("password")).isEqualTo("access-token");
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        DataWorldDataSource dataSource = newDataSource();
+        dataSource.close();
+        assertSQLException(dataSource::getConnection);
+        assertSQLException(dataSource::getPooledConnection);
+    }
+
+    @Test
+    public void testInvalidUrl() throws Exception {
+        assertSQLException(() -> new DataWorldDataSource().getConnection());
+        assertSQLException(() -> new DataWorldDataSource("jdbc:mysql://localhost").getConnection());
+    }
+}
@@ -19,10 +19,13 @@
 package world.data.jdbc;
 
 import org.junit.Test;
+import world.data.jdbc.internal.connections.ConnectionConfig;
 
+import java.sql.Connection;
 import java.util.Properties;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static world.data.jdbc.testing.MoreAssertions.assertSQLException;
 
 public class DriverTest {
     @Test
@@ -47,6 +50,59 @@ public class DriverTest {
         assertThat(driver.connect("jdbc:data:world:sql:dave:lahman-sabremetrics-dataset", props)).isNotNull();
     }
 
+    @Test
+    public void configCache() throws Exception {
+        String url = "jdbc:data:world:sql:dave:lahman-sabremetrics-dataset;queryTimeout=30";
+        Properties props = new Properties();
+        props.setProperty("queryBaseUrl", "http://localhost:9092");
+        ConnectionConfig config = Driver.getConfig(url, props);
+        assertThat(config.getQueryEndpoint().toString()).isEqualTo("http://localhost:9092/sql/dave/lahman-sabremetrics-dataset");
+        assertThat(config.getTransportOptions().getQueryTimeoutSeconds()).isEqualTo(30);
+
+        // The same url and properties reuse the parsed configuration
+        Properties copy = new Properties();
+        copy.putAll(props);
+        assertThat(Driver.getConfig(url, copy)).isSameAs(config);
+
+        // Changing either the url or the properties is parsed again
+        assertThat(Driver.getConfig(url + ";queryTimeout=60", props)).isNotSameAs(config);
+        props.setProperty("password", "other-token");
+        ConnectionConfig other = Driver.getConfig(url, props);
+        assertThat(other).isNotSameAs(config);
+        assertThat(other.getPassword()).isEqualTo("other-token");
+
+        // The password isn't kept in the cache
+        props.remove("password");
+        assertThat(Driver.getConfig(url, props).getPassword()).isNull();
+        assertThat(Driver.getConfig(url + ";password=url-token", copy).getPassword()).isEqualTo("url-token");
+    }
+
+    @Test
+    public void configCacheUrlPassword() throws Exception {
+        String url = "jdbc:data:world:sql:dave:lahman-sabremetrics-dataset;queryTimeout=45";
+        ConnectionConfig first = Driver.getConfig(url + ";password=first-token", null);
+        ConnectionConfig second = Driver.getConfig(url + ";password=second-token", null);
+        assertThat(first.getPassword()).isEqualTo("first-token");
+        assertThat(second.getPassword()).isEqualTo("second-token");
+
+        // Urls that only differ by password share the parsed configuration
+        ConnectionConfig cached = Driver.getConfig(url, null);
+        assertThat(first.getTransportOptions()).isSameAs(cached.getTransportOptions());
+        assertThat(second.getTransportOptions()).isSameAs(cached.getTransportOptions());
+        assertThat(cached.getPassword()).isNull();
+
+        // The url password takes precedence over the password property
+        Properties props = new Properties();
+        props.setProperty("password", "property-token");
+        assertThat(Driver.getConfig(url + ";password=first-token", props).getPassword()).isEqualTo("first-token");
+
+        // The cache never holds the token
+        assertThat(Driver.getCachedConfigs()).allSatisfy((cachedUrl, config) -> {
+            assertThat(cachedUrl).doesNotContain("token");
+            assertThat(config.getPassword()).isNull();
+        });
+    }
+
     @Test
     public void connectWithUrlOverride() throws Exception {
         Driver driver = new Driver();
@@ -55,6 +111,68 @@ public class DriverTest {
         assertThat(connection.getJdbcCompatibilityLevel()).isEqualTo(JdbcCompatibility.LOW);
     }
 
+    @Test
+    public void connectWithBadMetricsListener() throws Exception {
+        Driver driver = new Driver();
+        assertSQLException(() -> driver.connect("jdbc:data:world:sql:dave:lahman-sabremetrics-dataset;metricsListener=com.example.Missing", null));
+    }
+
+    @Test
+    public void connectWithTimeouts() throws Exception {
+        Driver driver = new Driver();
+        try (Connection connection = driver.connect("jdbc:data:world:sql:dave:lahman-sabremetrics-dataset;connectTimeout=1000;networkTimeout=30000;queryTimeout=600", null)) {
+            assertThat(connection.getNetworkTimeout()).isEqualTo(30000);
+        }
+        assertSQLException(() -> driver.connect("jdbc:data:world:sql:dave:lahman-sabremetrics-dataset;queryTimeout=forever", null));
+        assertSQLException(() -> driver.connect("jdbc:data:world:sql:dave:lahman-sabremetrics-dataset;networkTimeout=-1", null));
+    }
+
+    @Test
+    public void connectWithHedging() throws Exception {
+        Driver driver = new Driver();
+        try (Connection connection = driver.connect("jdbc:data:world:sql:dave:lahman-sabremetrics-dataset;hedgePercentile=95", null)) {
+            assertThat(connection.isClosed()).isFalse();
+        }
+        assertSQLException(() -> driver.connect("jdbc:data:world:sql:dave:lahman-sabremetrics-dataset;hedgePercentile=100", null));
+    }
+
+    @Test
+    public void connectWithCircuitBreaker() throws Exception {
+        Driver driver = new Driver();
+        try (Connection connection = driver.connect("jdbc:data:world:sql:dave:lahman-sabremetrics-dataset;circuitBreakerThreshold=50;maxConcurrentQueries=20", null)) {
+            assertThat(connection.isClosed()).isFalse();
+        }
+        assertSQLException(() -> driver.connect("jdbc:data:world:sql:dave:lahman-sabremetrics-dataset;circuitBreakerThreshold=101", null));
+    }
+
+    @Test
+    public void connectWithRateLimit() throws Exception {
+        Driver driver = new Driver();
+        try (Connection connection = driver.connect("jdbc:data:world:sql:dave:lahman-sabremetrics-dataset;rateLimit=600;rateLimitBurst=5", null)) {
+            assertThat(connection.isClosed()).isFalse();
+        }
+        assertSQLException(() -> driver.connect("jdbc:data:world:sql:dave:lahman-sabremetrics-dataset;rateLimit=fast", null));
+    }
+
+    @Test
+    public void connectWithRequestCompression() throws Exception {
+        Driver driver = new Driver();
+        try (Connection connection = driver.connect("jdbc:data:world:sql:dave:lahman-sabremetrics-dataset;requestCompression=gzip;requestCompressionThreshold=1024", null)) {
+            assertThat(connection.isClosed()).isFalse();
+        }
+        assertSQLException(() -> driver.connect("jdbc:data:world:sql:dave:lahman-sabremetrics-dataset;requestCompressionThreshold=-1", null));
+    }
+
+    @Test
+    public void connectWithJmx() throws Exception {
+        assertThat(Driver.getConfig("jdbc:data:world:sql:dave:lahman-sabremetrics-dataset", null)
+                .getTransportOptions().isJmxEnabled()).isFalse();
+        assertThat(Driver.getConfig("jdbc:data:world:sql:dave:lahman-sabremetrics-dataset;jmx=true", null)
+                .getTransportOptions().isJmxEnabled()).isTrue();
+        Driver driver = new Driver();
+        assertSQLException(() -> driver.connect("jdbc:data:world:sql:dave:lahman-sabremetrics-dataset;jmx=yes", null));
+    }
+
     @Test
     public void getMajorVersion() throws Exception {
         Driver driver = new Driver();
@@ -26,15 +26,29 @@ import org.junit.Before;
 import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.Test;
+import world.data.jdbc.metrics.QueryInfo;
+import world.data.jdbc.metrics.QueryListener;
+import world.data.jdbc.metrics.QueryPhase;
+import world.data.jdbc.metrics.QueryStats;
 import world.data.jdbc.testing.NanoHTTPDHandler;
 import world.data.jdbc.testing.NanoHTTPDResource;
 import world.data.jdbc.testing.SparqlHelper;
 import world.data.jdbc.testing.Utils;
 
+import java.io.ByteArrayOutputStream;
 import java.net.URL;
+import java.nio.channels.Channels;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static world.data.jdbc.testing.MoreAssertions.assertSQLException;
@@ -116,6 +130,92 @@ public class SparqlTest {
                 Utils.queryParam("query", "Construct{?o ?p ?s} where{?s ?p ?o.} limit 10"));
     }
 
+    @Test
+    public void testExportNTriples() throws Exception {
+        resultResourceName = "/construct.rj";
+        resultMimeType = Utils.TYPE_RDF_JSON;
+
+        DataWorldStatement statement = sparql.createStatement(sparql.connect());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = statement.exportTo("Construct{?o ?p ?s} where{?s ?p ?o.} limit 10", Channels.newChannel(out),
+                ExportFormat.N_TRIPLES);
+        assertThat(count).isEqualTo(out.size());
+        assertThat(new String(out.toByteArray(), UTF_8)).startsWith(
+                "<http://www.w3.org/ns/entailment/Simple> " +
+                        "<http://www.w3.org/ns/sparql-service-description#defaultEntailmentRegime> " +
+                        "<http://data.world/user8/lahman-baseball/> .\n");
+
+        // ASK results aren't triples
+        resultResourceName = "/ask.json";
+        resultMimeType = Utils.TYPE_SPARQL_RESULTS;
+        assertSQLException(() -> statement.exportTo("ask{?s ?p ?o.}", Channels.newChannel(out), ExportFormat.N_TRIPLES));
+    }
+
+    @Test
+    public void testScrollable() throws Exception {
+        resultResourceName = "/select.json";
+        resultMimeType = Utils.TYPE_SPARQL_RESULTS;
+
+        DataWorldConnection connection = sparql.connect();
+        Statement statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        assertThat(statement.getResultSetType()).isEqualTo(ResultSet.TYPE_SCROLL_INSENSITIVE);
+        try (ResultSet resultSet = statement.executeQuery("select ?s ?p ?o where{?s ?p ?o.}")) {
+            assertThat(resultSet.getType()).isEqualTo(ResultSet.TYPE_SCROLL_INSENSITIVE);
+            assertThat(resultSet.next()).isTrue();
+            String first = resultSet.getString("o");
+            assertThat(resultSet.last()).isTrue();
+            assertThat(resultSet.getRow()).isEqualTo(10);
+            assertThat(resultSet.absolute(1)).isTrue();
+            assertThat(resultSet.getString("o")).isEqualTo(first);
+        }
+    }
+
+    @Test
+    public void testMetricsListener() throws Exception {
+        resultResourceName = "/select.json";
+        resultMimeType = Utils.TYPE_SPARQL_RESULTS;
+        RecordingListener.events.clear();
+
+        Properties props = new Properties();
+        props.setProperty("password", "access-token");
+        props.setProperty("queryBaseUrl", "http://localhost:3333");
+        props.setProperty(Driver.PARAM_METRICS_LISTENER, RecordingListener.class.getName());
+        try (Connection connection = DriverManager.getConnection("jdbc:data:world:sparql:dave:lahman-sabremetrics-dataset", props);
+             ResultSet resultSet = connection.createStatement().executeQuery("select ?s ?p ?o where{?s ?p ?o.}")) {
+            while (resultSet.next()) {
+                resultSet.getString(1);
+            }
+        }
+
+        assertThat(RecordingListener.events).containsExactly(
+                "started", "CONNECT", "REQUEST_WRITE", "FIRST_BYTE", "DOWNLOAD", "FIRST_ROW", "LAST_ROW", "CLOSE", "finished 10");
+        assertThat(RecordingListener.stats.getResponseBytes()).isGreaterThan(0);
+        assertThat(RecordingListener.stats.getRequestBytes()).isGreaterThan(0);
+        assertThat(RecordingListener.stats.getSpillBytes()).isEqualTo(0);
+        assertThat(RecordingListener.stats.getError()).isNull();
+    }
+
+    public static class RecordingListener implements QueryListener {
+        static final List<String> events = new CopyOnWriteArrayList<>();
+        static volatile QueryStats stats;
+
+        @Override
+        public void queryStarted(QueryInfo query) {
+            events.add("started");
+        }
+
+        @Override
+        public void queryPhase(QueryInfo query, QueryPhase phase, long elapsedNanos) {
+            events.add(phase.name());
+        }
+
+        @Override
+        public void queryFinished(QueryInfo query, QueryStats stats) {
+            RecordingListener.stats = stats;
+            events.add("finished " + stats.getRowCount());
+        }
+    }
+
     @Test
     public void testPrepared() throws Exception {
         resultResourceName = "/select.json";
@@ -163,7 +163,6 @@ public class SqlTest {
     @SuppressWarnings("deprecation")
     public void testAllNotSupported() throws Exception {
         DataWorldPreparedStatement statement = samplePreparedStatement();
-        assertSQLFeatureNotSupported(() -> statement.setArray(1, null));
         assertSQLFeatureNotSupported(() -> statement.setAsciiStream(1, null));
         assertSQLFeatureNotSupported(() -> statement.setAsciiStream(1, null, 3));
         assertSQLFeatureNotSupported(() -> statement.setAsciiStream(1, null, 3L));
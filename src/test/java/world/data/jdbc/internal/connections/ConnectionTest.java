@@ -18,22 +18,48 @@
  */
 package world.data.jdbc.internal.connections;
 
+import fi.iki.elonen.NanoHTTPD;
+import org.apache.commons.io.IOUtils;
+import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.Test;
 import world.data.jdbc.DataWorldConnection;
 import world.data.jdbc.DataWorldStatement;
+import world.data.jdbc.testing.NanoHTTPDResource;
 import world.data.jdbc.testing.SparqlHelper;
+import world.data.jdbc.testing.Utils;
 
+import java.sql.Array;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
 import static world.data.jdbc.testing.MoreAssertions.assertSQLException;
 import static world.data.jdbc.testing.MoreAssertions.assertSQLFeatureNotSupported;
 
 public class ConnectionTest {
+    private static final AtomicInteger requests = new AtomicInteger();
+
+    @ClassRule
+    public static final NanoHTTPDResource proxiedServer = new NanoHTTPDResource(3333) {
+        @Override
+        protected NanoHTTPD.Response serve(NanoHTTPD.IHTTPSession session) throws Exception {
+            requests.incrementAndGet();
+            String body = IOUtils.toString(getClass().getResourceAsStream("/ask.json"), UTF_8);
+            return newResponse(NanoHTTPD.Response.Status.OK, Utils.TYPE_SPARQL_RESULTS, body);
+        }
+    };
 
     @Rule
     public final SparqlHelper sparql = new SparqlHelper();
@@ -129,11 +155,50 @@ public class ConnectionTest {
     @Test
     public void testIsValid() throws SQLException {
         DataWorldConnection connection = sparql.connect();
+        int before = requests.get();
         assertThat(connection.isValid(0)).isTrue();
+        assertThat(requests.get()).isEqualTo(before + 1);
+        // The outcome is cached briefly
+        assertThat(connection.isValid(5)).isTrue();
+        assertThat(requests.get()).isEqualTo(before + 1);
+        assertSQLException(() -> connection.isValid(-1));
         connection.close();
         assertThat(connection.isValid(0)).isFalse();
     }
 
+    @Test
+    public void testConcurrentStatements() throws Exception {
+        DataWorldConnection connection = sparql.connect();
+        DataWorldStatement shared = sparql.createStatement(connection);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10; i++) {
+                        try (Statement statement = connection.createStatement();
+                             ResultSet resultSet = statement.executeQuery("ASK { ?s ?p ?o }")) {
+                            assertThat(resultSet.next()).isTrue();
+                            assertThat(resultSet.getBoolean(1)).isTrue();
+                        }
+                        try (ResultSet resultSet = shared.executeQuery("ASK { ?s ?p ?o }")) {
+                            assertThat(resultSet.next()).isTrue();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        connection.close();
+        assertThat(shared.isClosed()).isTrue();
+        assertSQLException(connection::createStatement);
+    }
+
     @Test
     public void testIsReadOnly() throws SQLException {
         DataWorldConnection connection = sparql.connect();
@@ -189,29 +254,58 @@ public class ConnectionTest {
         assertSQLException(() -> connection.setReadOnly(false));
     }
 
+    @Test
+    public void testNetworkTimeout() throws Exception {
+        DataWorldConnection connection = sparql.connect();
+        assertThat(connection.getNetworkTimeout()).isEqualTo(0);
+        connection.setNetworkTimeout(Runnable::run, 120_000);
+        assertThat(connection.getNetworkTimeout()).isEqualTo(120_000);
+        assertSQLException(() -> connection.setNetworkTimeout(null, 1000));
+        assertSQLException(() -> connection.setNetworkTimeout(Runnable::run, -1));
+    }
+
+    @Test
+    public void testAbort() throws Exception {
+        DataWorldConnection connection = sparql.connect();
+        Statement statement = connection.createStatement();
+        assertSQLException(() -> connection.abort(null));
+
+        connection.abort(Runnable::run);
+        assertThat(connection.isClosed()).isTrue();
+        assertThat(statement.isClosed()).isTrue();
+        connection.abort(Runnable::run);  // no-op
+    }
+
+    @Test
+    public void testCreateArrayOf() throws Exception {
+        DataWorldConnection connection = sparql.connect();
+        Array array = connection.createArrayOf("varchar", new Object[]{"a", "b"});
+        assertThat(array.getBaseType()).isEqualTo(Types.VARCHAR);
+        assertThat((Object[]) array.getArray()).containsExactly("a", "b");
+        assertSQLException(() -> connection.createArrayOf(null, new Object[0]));
+        connection.close();
+        assertSQLException(() -> connection.createArrayOf("varchar", new Object[0]));
+    }
+
     @Test
     public void testAllNotSupported() throws Exception {
         DataWorldConnection connection = sparql.connect();
-        assertSQLFeatureNotSupported(() -> connection.abort(null));
-        assertSQLFeatureNotSupported(() -> connection.createArrayOf("String", new Object[0]));
         assertSQLFeatureNotSupported(connection::createBlob);
         assertSQLFeatureNotSupported(connection::createClob);
         assertSQLFeatureNotSupported(connection::createNClob);
         assertSQLFeatureNotSupported(connection::createSQLXML);
         assertSQLFeatureNotSupported(() -> connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_UPDATABLE, ResultSet.CLOSE_CURSORS_AT_COMMIT));
-        assertSQLFeatureNotSupported(() -> connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY, ResultSet.CLOSE_CURSORS_AT_COMMIT));
+        assertSQLFeatureNotSupported(() -> connection.createStatement(ResultSet.TYPE_SCROLL_SENSITIVE, ResultSet.CONCUR_READ_ONLY, ResultSet.CLOSE_CURSORS_AT_COMMIT));
         assertSQLFeatureNotSupported(() -> connection.createStruct("String", new Object[0]));
-        assertSQLFeatureNotSupported(connection::getNetworkTimeout);
         assertSQLFeatureNotSupported(connection::getTypeMap);
         assertSQLFeatureNotSupported(() -> connection.nativeSQL(""));
         assertSQLFeatureNotSupported(() -> connection.prepareStatement("", (String[]) null));
         assertSQLFeatureNotSupported(() -> connection.prepareStatement("", (int[]) null));
         assertSQLFeatureNotSupported(() -> connection.prepareStatement("", Statement.RETURN_GENERATED_KEYS));
         assertSQLFeatureNotSupported(() -> connection.prepareStatement("", ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_UPDATABLE, ResultSet.CLOSE_CURSORS_AT_COMMIT));
-        assertSQLFeatureNotSupported(() -> connection.prepareStatement("", ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY, ResultSet.CLOSE_CURSORS_AT_COMMIT));
+        assertSQLFeatureNotSupported(() -> connection.prepareStatement("", ResultSet.TYPE_SCROLL_SENSITIVE, ResultSet.CONCUR_READ_ONLY, ResultSet.CLOSE_CURSORS_AT_COMMIT));
         assertSQLFeatureNotSupported(() -> connection.releaseSavepoint(null));
         assertSQLFeatureNotSupported(() -> connection.rollback(null));
-        assertSQLFeatureNotSupported(() -> connection.setNetworkTimeout(null, 1000));
         assertSQLFeatureNotSupported(() -> connection.setSavepoint(""));
         assertSQLFeatureNotSupported(connection::setSavepoint);
         assertSQLFeatureNotSupported(() -> connection.setTypeMap(null));
@@ -18,22 +18,39 @@
  */
 package world.data.jdbc.internal.metadata;
 
+import fi.iki.elonen.NanoHTTPD;
+import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.Test;
 import world.data.jdbc.DataWorldConnection;
 import world.data.jdbc.internal.util.Versions;
+import world.data.jdbc.testing.NanoHTTPDResource;
 import world.data.jdbc.testing.SqlHelper;
+import world.data.jdbc.testing.Utils;
 
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.RowIdLifetime;
 import java.sql.SQLException;
+import java.sql.Types;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class SqlDatabaseMetaDataTest {
+    private static final String TABLE_COLUMNS_RESULTS = "{\"head\":{\"vars\":[\"owner\",\"dataset\",\"tableName\"," +
+            "\"columnIndex\",\"columnName\",\"columnDatatype\",\"columnNullable\"]},\"results\":{\"bindings\":[" +
+            row("yearID", 1, "integer", "false") + "," +
+            row("teamID", 2, "string", "true") + "]}}";
+
+    @ClassRule
+    public static final NanoHTTPDResource proxiedServer = new NanoHTTPDResource(3333) {
+        @Override
+        protected NanoHTTPD.Response serve(NanoHTTPD.IHTTPSession session) throws Exception {
+            return newResponse(NanoHTTPD.Response.Status.OK, Utils.TYPE_SPARQL_RESULTS, TABLE_COLUMNS_RESULTS);
+        }
+    };
 
     @Rule
     public final SqlHelper sql = new SqlHelper();
@@ -143,9 +160,11 @@ public class SqlDatabaseMetaDataTest {
         assertThat(metaData.supportsRefCursors()).isFalse();
         assertThat(metaData.supportsResultSetConcurrency(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)).isTrue();
         assertThat(metaData.supportsResultSetConcurrency(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_UPDATABLE)).isFalse();
-        assertThat(metaData.supportsResultSetConcurrency(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY)).isFalse();
+        assertThat(metaData.supportsResultSetConcurrency(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY)).isTrue();
+        assertThat(metaData.supportsResultSetConcurrency(ResultSet.TYPE_SCROLL_SENSITIVE, ResultSet.CONCUR_READ_ONLY)).isFalse();
         assertThat(metaData.supportsResultSetType(ResultSet.TYPE_FORWARD_ONLY)).isTrue();
-        assertThat(metaData.supportsResultSetType(ResultSet.TYPE_SCROLL_INSENSITIVE)).isFalse();
+        assertThat(metaData.supportsResultSetType(ResultSet.TYPE_SCROLL_INSENSITIVE)).isTrue();
+        assertThat(metaData.supportsResultSetType(ResultSet.TYPE_SCROLL_SENSITIVE)).isFalse();
         assertThat(metaData.supportsSavepoints()).isFalse();
         assertThat(metaData.supportsSchemasInDataManipulation()).isTrue();
         assertThat(metaData.supportsSchemasInIndexDefinitions()).isFalse();
@@ -207,8 +226,43 @@ public class SqlDatabaseMetaDataTest {
         assertThat(metaData.getResultSetHoldability()).isEqualTo(ResultSet.CLOSE_CURSORS_AT_COMMIT);
     }
 
+    @Test
+    public void testGetColumns() throws SQLException {
+        DatabaseMetaData metaData = sql.connect().getMetaData();
+        ResultSet resultSet = metaData.getColumns("dave", "lahman-sabremetrics-dataset", "Teams", null);
+        assertThat(resultSet.next()).isTrue();
+        assertThat(resultSet.getString("TABLE_CAT")).isEqualTo("dave");
+        assertThat(resultSet.getString("TABLE_NAME")).isEqualTo("Teams");
+        assertThat(resultSet.getString("COLUMN_NAME")).isEqualTo("yearID");
+        assertThat(resultSet.getInt("DATA_TYPE")).isEqualTo(Types.NUMERIC);
+        assertThat(resultSet.getObject("ORDINAL_POSITION")).isEqualTo(1);
+        assertThat(resultSet.getString("IS_NULLABLE")).isEqualTo("NO");
+        assertThat(resultSet.getObject("REMARKS")).isNull();
+        assertThat(resultSet.wasNull()).isTrue();
+        assertThat(resultSet.next()).isTrue();
+        assertThat(resultSet.getString("COLUMN_NAME")).isEqualTo("teamID");
+        assertThat(resultSet.getInt("CHAR_OCTET_LENGTH")).isEqualTo(Integer.MAX_VALUE);
+        assertThat(resultSet.getShort("NULLABLE")).isEqualTo((short) DatabaseMetaData.columnNullable);
+        assertThat(resultSet.next()).isFalse();
+    }
+
     @Test
     public void testNullConnection() throws SQLException {
         assertThatThrownBy(() -> new SqlDatabaseMetaData(null, "foo", "bar")).isInstanceOf(NullPointerException.class);
     }
+
+    private static String row(String columnName, int columnIndex, String datatype, String nullable) {
+        return "{" + literal("owner", "dave", "string") + "," +
+                literal("dataset", "lahman-sabremetrics-dataset", "string") + "," +
+                literal("tableName", "Teams", "string") + "," +
+                literal("columnIndex", Integer.toString(columnIndex), "integer") + "," +
+                literal("columnName", columnName, "string") + "," +
+                literal("columnDatatype", "http://www.w3.org/2001/XMLSchema#" + datatype, "string") + "," +
+                literal("columnNullable", nullable, "boolean") + "}";
+    }
+
+    private static String literal(String var, String value, String datatype) {
+        return "\"" + var + "\":{\"type\":\"literal\",\"datatype\":\"http://www.w3.org/2001/XMLSchema#" + datatype +
+                "\",\"value\":\"" + value + "\"}";
+    }
 }
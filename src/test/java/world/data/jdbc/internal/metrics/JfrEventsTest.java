@@ -0,0 +1,117 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.metrics;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+import world.data.jdbc.metrics.QueryPhase;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JfrEventsTest {
+
+    @Test
+    public void testDisabledByDefault() throws Exception {
+        assertThat(JfrSupport.isAvailable()).isTrue();
+        try (Recording recording = new Recording()) {
+            recording.start();
+            runQuery();
+            JfrSupport.beginSpill().end(100);
+            recording.stop();
+            assertThat(readEvents(recording)).isEmpty();
+        }
+    }
+
+    @Test
+    public void testEvents() throws Exception {
+        try (Recording recording = new Recording()) {
+            recording.enable("world.data.jdbc.Query");
+            recording.enable("world.data.jdbc.Spill");
+            recording.enable("world.data.jdbc.AcquireWait");
+            recording.start();
+            runQuery();
+            JfrSupport.beginSpill().end(100);
+            JfrSupport.beginAcquireWait().end(4096);
+            recording.stop();
+
+            List<RecordedEvent> events = readEvents(recording);
+            assertThat(events).extracting(e -> e.getEventType().getName()).containsExactlyInAnyOrder(
+                    "world.data.jdbc.Query", "world.data.jdbc.Spill", "world.data.jdbc.AcquireWait");
+            for (RecordedEvent event : events) {
+                switch (event.getEventType().getName()) {
+                    case "world.data.jdbc.Query":
+                        assertThat(event.getString("language")).isEqualTo("sparql");
+                        assertThat(event.getString("endpoint")).isEqualTo("http://localhost:3333/sparql/agent/dataset");
+                        assertThat(event.getLong("rowCount")).isEqualTo(2);
+                        assertThat(event.getLong("responseBytes")).isEqualTo(1234);
+                        assertThat(event.getString("error")).isNull();
+                        break;
+                    case "world.data.jdbc.Spill":
+                        assertThat(event.getLong("fileSize")).isEqualTo(100);
+                        break;
+                    case "world.data.jdbc.AcquireWait":
+                        assertThat(event.getLong("bytesRequested")).isEqualTo(4096);
+                        break;
+                    default:
+                        throw new AssertionError(event);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNoListenerOverhead() throws Exception {
+        // Flight Recorder events don't go through the listener chain, connections without listeners pay nothing
+        assertThat(QueryListeners.create(null)).isSameAs(QueryListeners.NOOP);
+    }
+
+    @Test
+    public void testGetLanguage() {
+        assertThat(JfrEvents.getLanguage("https://query.data.world/sql/agent/dataset")).isEqualTo("sql");
+        assertThat(JfrEvents.getLanguage("dataset")).isNull();
+    }
+
+    private void runQuery() throws Exception {
+        QueryTracker tracker = QueryTracker.start(QueryListeners.NOOP, "http://localhost:3333/sparql/agent/dataset", "select ?s {?s ?p ?o}");
+        tracker.addResponseBytes(1234);
+        tracker.phase(QueryPhase.FIRST_BYTE);
+        tracker.trackRows(Arrays.asList("a", "b").iterator()).forEachRemaining(row -> {});
+        tracker.finish(null);
+    }
+
+    private List<RecordedEvent> readEvents(Recording recording) throws Exception {
+        Path file = Files.createTempFile("dw-jdbc", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(e -> e.getEventType().getName().startsWith("world.data.jdbc."))
+                    .collect(Collectors.toList());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
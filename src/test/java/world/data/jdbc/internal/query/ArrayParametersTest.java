@@ -0,0 +1,123 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.query;
+
+import org.junit.Test;
+import world.data.jdbc.internal.transport.BoundQuery;
+import world.data.jdbc.model.Iri;
+import world.data.jdbc.model.LiteralFactory;
+import world.data.jdbc.model.Node;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static world.data.jdbc.testing.MoreAssertions.assertSQLException;
+
+public class ArrayParametersTest {
+    private static final Node A = LiteralFactory.createString("a");
+    private static final Node B = LiteralFactory.createString("b");
+    private static final Node C = LiteralFactory.createString("c");
+    private static final Node X = LiteralFactory.createInteger(1);
+
+    @Test
+    public void testSqlNoArrays() throws Exception {
+        ParsedQuery query = QueryLexer.parseSql("select * from t where a = ?");
+        Map<String, Node> params = Collections.singletonMap("$data_world_param0", X);
+        List<BoundQuery> bound = ArrayParameters.bindSql(query, params, Collections.emptyMap(), 10);
+        assertThat(bound).hasSize(1);
+        assertThat(bound.get(0).getQuery()).isSameAs(query.getEncodedQuery());
+        assertThat(bound.get(0).getParameters()).isSameAs(params);
+    }
+
+    @Test
+    public void testSqlInList() throws Exception {
+        ParsedQuery query = QueryLexer.parseSql("select '?' from t where a in (?) and b = ? and c in (?)");
+        Map<String, Node> params = new LinkedHashMap<>();
+        params.put("$data_world_param1", X);
+        Map<String, List<Node>> arrays = new LinkedHashMap<>();
+        arrays.put("$data_world_param0", Arrays.asList(A, B));
+        arrays.put("$data_world_param2", Collections.emptyList());
+
+        List<BoundQuery> bound = ArrayParameters.bindSql(query, params, arrays, 10);
+        assertThat(bound).hasSize(1);
+        assertThat(bound.get(0).getQuery().getQuery())
+                .isEqualTo("select '?' from t where a in (?, ?) and b = ? and c in (NULL)");
+        assertThat(bound.get(0).getParameters()).containsExactly(
+                entry("$data_world_param0", A),
+                entry("$data_world_param1", B),
+                entry("$data_world_param2", X));
+    }
+
+    @Test
+    public void testSqlSplit() throws Exception {
+        ParsedQuery query = QueryLexer.parseSql("select * from t where a in (?) and b = ?");
+        Map<String, Node> params = Collections.singletonMap("$data_world_param1", X);
+        Map<String, List<Node>> arrays = Collections.singletonMap("$data_world_param0", Arrays.asList(A, B, C));
+
+        List<BoundQuery> bound = ArrayParameters.bindSql(query, params, arrays, 2);
+        assertThat(bound).hasSize(2);
+        assertThat(bound.get(0).getQuery().getQuery()).isEqualTo("select * from t where a in (?, ?) and b = ?");
+        assertThat(bound.get(0).getParameters()).containsExactly(
+                entry("$data_world_param0", A),
+                entry("$data_world_param1", B),
+                entry("$data_world_param2", X));
+        assertThat(bound.get(1).getQuery().getQuery()).isEqualTo("select * from t where a in (?) and b = ?");
+        assertThat(bound.get(1).getParameters()).containsExactly(
+                entry("$data_world_param0", C),
+                entry("$data_world_param1", X));
+    }
+
+    @Test
+    public void testSparqlValues() throws Exception {
+        ParsedQuery query = QueryLexer.parseSparql("select ?s ?o { ?s ?p ?o } # comment");
+        Map<String, Node> params = Collections.singletonMap("$p", new Iri("http://x/p"));
+        Map<String, List<Node>> arrays = Collections.singletonMap("$s", Arrays.asList(new Iri("http://x/a"), null));
+
+        List<BoundQuery> bound = ArrayParameters.bindSparql(query, params, arrays, 10);
+        assertThat(bound).hasSize(1);
+        assertThat(bound.get(0).getQuery().getQuery())
+                .isEqualTo("select ?s ?o { ?s ?p ?o } # comment\nVALUES ?s { <http://x/a> UNDEF }");
+        assertThat(bound.get(0).getParameters()).isSameAs(params);
+    }
+
+    @Test
+    public void testSparqlSplit() throws Exception {
+        ParsedQuery query = QueryLexer.parseSparql("select * { ?s ?p ?o }");
+        Map<String, List<Node>> arrays = Collections.singletonMap("$o", Arrays.asList(A, B, C));
+
+        List<BoundQuery> bound = ArrayParameters.bindSparql(query, Collections.emptyMap(), arrays, 2);
+        assertThat(bound).extracting(q -> q.getQuery().getQuery()).containsExactly(
+                "select * { ?s ?p ?o }\nVALUES ?o { \"a\" \"b\" }",
+                "select * { ?s ?p ?o }\nVALUES ?o { \"c\" }");
+    }
+
+    @Test
+    public void testSparqlMultipleArrays() throws Exception {
+        ParsedQuery query = QueryLexer.parseSparql("select * { ?s ?p ?o }");
+        Map<String, List<Node>> arrays = new LinkedHashMap<>();
+        arrays.put("$s", Collections.singletonList(A));
+        arrays.put("$o", Collections.singletonList(B));
+        assertSQLException(() -> ArrayParameters.bindSparql(query, Collections.emptyMap(), arrays, 10));
+    }
+}
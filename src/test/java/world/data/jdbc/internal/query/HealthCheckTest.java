@@ -0,0 +1,98 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.query;
+
+import org.junit.Test;
+import world.data.jdbc.internal.transport.EncodedQuery;
+import world.data.jdbc.internal.transport.QueryApi;
+import world.data.jdbc.internal.transport.Response;
+import world.data.jdbc.internal.util.CancelToken;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HealthCheckTest {
+
+    @Test
+    public void testIsValid() throws Exception {
+        AutoCloseable cleanup = mock(AutoCloseable.class);
+        QueryApi queryApi = mock(QueryApi.class);
+        when(queryApi.executeQuery(any(EncodedQuery.class), anyMap(), any(), any(), anyInt(), any(CancelToken.class)))
+                .thenReturn(Response.builder().booleanResult(true).cleanup(cleanup).build())
+                .thenThrow(new SQLException("Unauthorized", null, 401));
+        AtomicLong now = new AtomicLong();
+        HealthCheck healthCheck = new HealthCheck(queryApi, "ASK {}", now::get);
+
+        assertThat(healthCheck.isValid(0)).isTrue();
+        verify(queryApi).executeQuery(any(EncodedQuery.class), anyMap(), eq(1), isNull(), eq(0), any(CancelToken.class));
+        verify(cleanup).close();
+
+        // Within the cache window the last outcome is reused
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(HealthCheck.CACHE_MILLIS - 1));
+        assertThat(healthCheck.isValid(3)).isTrue();
+        verify(queryApi, times(1)).executeQuery(any(EncodedQuery.class), anyMap(), any(), any(), anyInt(), any(CancelToken.class));
+
+        // Once it expires the server is probed again
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertThat(healthCheck.isValid(3)).isFalse();
+        verify(queryApi).executeQuery(any(EncodedQuery.class), anyMap(), eq(1), eq(3), eq(0), any(CancelToken.class));
+        assertThat(healthCheck.isValid(3)).isFalse();
+        verify(queryApi, times(2)).executeQuery(any(EncodedQuery.class), anyMap(), any(), any(), anyInt(), any(CancelToken.class));
+    }
+
+    @Test
+    public void testWaitBoundedByTimeout() throws Exception {
+        CountDownLatch probing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        QueryApi queryApi = mock(QueryApi.class);
+        when(queryApi.executeQuery(any(EncodedQuery.class), anyMap(), any(), any(), anyInt(), any(CancelToken.class)))
+                .thenAnswer(invocation -> {
+                    probing.countDown();
+                    release.await();
+                    return Response.builder().booleanResult(true).build();
+                });
+        HealthCheck healthCheck = new HealthCheck(queryApi, "ASK {}");
+
+        // A caller with a short timeout doesn't wait for a slow probe started by a caller without one
+        CompletableFuture<Boolean> unbounded = CompletableFuture.supplyAsync(() -> healthCheck.isValid(0));
+        probing.await();
+        long start = System.nanoTime();
+        assertThat(healthCheck.isValid(1)).isFalse();
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(5));
+
+        release.countDown();
+        assertThat(unbounded.get()).isTrue();
+        assertThat(healthCheck.isValid(1)).isTrue();
+        verify(queryApi, times(1)).executeQuery(any(EncodedQuery.class), anyMap(), any(), any(), anyInt(), any(CancelToken.class));
+    }
+}
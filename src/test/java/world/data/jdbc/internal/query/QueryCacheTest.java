@@ -0,0 +1,44 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.query;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class QueryCacheTest {
+    @Test
+    public void testGet() throws Exception {
+        AtomicInteger parses = new AtomicInteger();
+        QueryCache cache = new QueryCache(2);
+        ParsedQuery first = cache.get("select 1", query -> {
+            parses.incrementAndGet();
+            return QueryLexer.parseSql(query);
+        });
+        assertThat(cache.get("select 1", QueryLexer::parseSql)).isSameAs(first);
+
+        // Least recently used entries are evicted
+        cache.get("select 2", QueryLexer::parseSql);
+        cache.get("select 3", QueryLexer::parseSql);
+        assertThat(cache.get("select 1", QueryLexer::parseSql)).isNotSameAs(first);
+        assertThat(parses.get()).isEqualTo(1);
+    }
+}
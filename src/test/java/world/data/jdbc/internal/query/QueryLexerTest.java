@@ -0,0 +1,68 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.query;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class QueryLexerTest {
+    @Test
+    public void testSqlParameters() throws Exception {
+        assertThat(QueryLexer.parseSql("select * from t").getParameterOffsets()).isEmpty();
+        assertThat(QueryLexer.parseSql("select * from t where a = ? and b = ?").getParameterOffsets())
+                .containsExactly(26, 36);
+        assertThat(QueryLexer.parseSql("?").getParameterOffsets()).containsExactly(0);
+    }
+
+    @Test
+    public void testSqlQuoting() throws Exception {
+        assertThat(QueryLexer.parseSql("select '?', 'it''s ?', \"?\", `?` from t where a = ?").getParameterOffsets())
+                .containsExactly(49);
+        assertThat(QueryLexer.parseSql("select -- ?\n ? /* ? */ - ?").getParameterOffsets())
+                .containsExactly(13, 25);
+        // Unterminated literals are left for the server to report
+        assertThat(QueryLexer.parseSql("select ? 'abc ?").getParameterOffsets()).containsExactly(7);
+        assertThat(QueryLexer.parseSql("select ? /* ?").getParameterOffsets()).containsExactly(7);
+    }
+
+    @Test
+    public void testSparqlVariables() throws Exception {
+        ParsedQuery query = QueryLexer.parseSparql("select ?s $p ?o where { ?s $p ?o . ?s ?p ?o_2 }");
+        assertThat(query.getParameterNames()).containsExactly("s", "p", "o", "o_2");
+        assertThat(query.getParameterOffsets()).isEmpty();
+    }
+
+    @Test
+    public void testSparqlQuoting() throws Exception {
+        ParsedQuery query = QueryLexer.parseSparql("select ?a { <http://x/?b> ?p '?c', \"?d\\\"?e\", '''?f\n''', " +
+                "\"\"\"?g\"\"\" # ?h\n FILTER(?i<?j) }");
+        assertThat(query.getParameterNames()).containsExactly("a", "p", "i", "j");
+        // Property path modifier isn't a variable
+        assertThat(QueryLexer.parseSparql("select * { ?s <http://x/p>? ?o }").getParameterNames())
+                .containsExactly("s", "o");
+    }
+
+    @Test
+    public void testEncodedQuery() throws Exception {
+        ParsedQuery query = QueryLexer.parseSql("select 1");
+        assertThat(query.getQuery()).isEqualTo("select 1");
+        assertThat(query.getEncodedQuery().getQuery()).isEqualTo("select 1");
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.query;
+
+import org.junit.Test;
+import world.data.jdbc.ExportFormat;
+import world.data.jdbc.internal.transport.Response;
+import world.data.jdbc.model.Blank;
+import world.data.jdbc.model.Iri;
+import world.data.jdbc.model.LiteralFactory;
+import world.data.jdbc.model.Node;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static world.data.jdbc.testing.MoreAssertions.assertSQLException;
+
+public class ResultExporterTest {
+
+    @Test
+    public void testCsv() throws Exception {
+        Response response = triples(
+                new Node[]{new Iri("http://example.com/a"), new Iri("http://example.com/name"), LiteralFactory.createString("Smith, \"Jo\"")},
+                new Node[]{new Blank("b0"), new Iri("http://example.com/age"), LiteralFactory.createInteger(42)},
+                new Node[]{new Blank("b1"), new Iri("http://example.com/note"), null});
+        assertThat(export(response, 0, ExportFormat.CSV)).isEqualTo("" +
+                "Subject,Predicate,Object\r\n" +
+                "http://example.com/a,http://example.com/name,\"Smith, \"\"Jo\"\"\"\r\n" +
+                "_:b0,http://example.com/age,42\r\n" +
+                "_:b1,http://example.com/note,\r\n");
+    }
+
+    @Test
+    public void testCsvMaxRows() throws Exception {
+        Response response = triples(
+                new Node[]{new Blank("b0"), new Iri("http://example.com/p"), LiteralFactory.createString("a\nb")},
+                new Node[]{new Blank("b1"), new Iri("http://example.com/p"), LiteralFactory.createString("c")});
+        assertThat(export(response, 1, ExportFormat.CSV)).isEqualTo("" +
+                "Subject,Predicate,Object\r\n" +
+                "_:b0,http://example.com/p,\"a\nb\"\r\n");
+    }
+
+    @Test
+    public void testCsvAsk() throws Exception {
+        Response response = Response.builder().booleanResult(true).build();
+        assertThat(export(response, 0, ExportFormat.CSV)).isEqualTo("ASK\r\ntrue\r\n");
+    }
+
+    @Test
+    public void testNTriples() throws Exception {
+        Response response = triples(
+                new Node[]{new Iri("http://example.com/a"), new Iri("http://example.com/name"), LiteralFactory.createString("Jo \"J\"\n")},
+                new Node[]{new Blank("b0"), new Iri("http://example.com/age"), LiteralFactory.createInteger(42)});
+        assertThat(export(response, 0, ExportFormat.N_TRIPLES)).isEqualTo("" +
+                "<http://example.com/a> <http://example.com/name> \"Jo \\\"J\\\"\\n\" .\n" +
+                "_:b0 <http://example.com/age> \"42\"^^<http://www.w3.org/2001/XMLSchema#integer> .\n");
+
+        assertSQLException(() -> export(Response.builder().booleanResult(true).build(), 0, ExportFormat.N_TRIPLES));
+    }
+
+    private static Response triples(Node[]... rows) {
+        return Response.builder()
+                .columns(Arrays.asList(
+                        Response.Column.builder().name("Subject").build(),
+                        Response.Column.builder().name("Predicate").build(),
+                        Response.Column.builder().name("Object").build()))
+                .rows(Arrays.asList(rows).iterator())
+                .build();
+    }
+
+    private static String export(Response response, int maxRows, ExportFormat format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = ResultExporter.transcode(response, maxRows, format, Channels.newChannel(out));
+        assertThat(count).isEqualTo(out.size());
+        return new String(out.toByteArray(), UTF_8);
+    }
+}
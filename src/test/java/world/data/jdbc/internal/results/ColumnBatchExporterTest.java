@@ -0,0 +1,145 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.results;
+
+import org.junit.Test;
+import world.data.jdbc.ColumnBatchWriter;
+import world.data.jdbc.DataWorldResultSet;
+import world.data.jdbc.internal.metadata.ColumnFactory;
+import world.data.jdbc.internal.metadata.ResultSetMetaDataImpl;
+import world.data.jdbc.model.Iri;
+import world.data.jdbc.model.LiteralFactory;
+import world.data.jdbc.model.Node;
+import world.data.jdbc.vocab.Xsd;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static world.data.jdbc.testing.MoreAssertions.assertSQLException;
+
+public class ColumnBatchExporterTest {
+
+    @Test
+    public void testExportBatches() throws Exception {
+        ResultSet resultSet = new ResultSetImpl(null, new ResultSetMetaDataImpl(
+                ColumnFactory.builder("b", Xsd.BOOLEAN).build(),
+                ColumnFactory.builder("l", Xsd.LONG).build(),
+                ColumnFactory.builder("d", Xsd.DOUBLE).build(),
+                ColumnFactory.builder("n", Xsd.DECIMAL).build(),
+                ColumnFactory.builder("s", Xsd.STRING).build()), Arrays.asList(
+                new Node[]{LiteralFactory.TRUE, LiteralFactory.createLong(1), LiteralFactory.createDouble(1.5),
+                        LiteralFactory.createDecimal(new BigDecimal("1.25")), new Iri("http://example.com/1")},
+                new Node[]{null, null, null, null, null},
+                new Node[]{LiteralFactory.FALSE, LiteralFactory.createLong(-3), LiteralFactory.createDouble(-0.5),
+                        LiteralFactory.createDecimal(new BigDecimal("100")), LiteralFactory.createString("x")}));
+        RecordingWriter writer = new RecordingWriter();
+
+        resultSet.unwrap(DataWorldResultSet.class).exportBatches(2, writer);
+
+        assertThat(writer.events).containsExactly(
+                "start",
+                "boolean 1 0 true", "long 2 0 1", "double 3 0 1.5", "decimal 4 0 1.25", "string 5 0 http://example.com/1",
+                "null 1 1", "null 2 1", "null 3 1", "null 4 1", "null 5 1",
+                "end 2",
+                "start",
+                "boolean 1 0 false", "long 2 0 -3", "double 3 0 -0.5", "decimal 4 0 100", "string 5 0 x",
+                "end 1");
+        assertThat(resultSet.next()).isFalse();
+    }
+
+    @Test
+    public void testExportRemainingRows() throws Exception {
+        ResultSet resultSet = new ResultSetImpl(null, new ResultSetMetaDataImpl(
+                ColumnFactory.builder("l", Xsd.INT).build()), Arrays.asList(
+                new Node[]{LiteralFactory.createInt(1)},
+                new Node[]{LiteralFactory.createInt(2)}));
+        assertThat(resultSet.next()).isTrue();
+        RecordingWriter writer = new RecordingWriter();
+
+        resultSet.unwrap(DataWorldResultSet.class).exportBatches(10, writer);
+
+        assertThat(writer.events).containsExactly("start", "long 1 0 2", "end 1");
+    }
+
+    @Test
+    public void testExportEmpty() throws Exception {
+        ResultSet resultSet = new ResultSetImpl(null, new ResultSetMetaDataImpl(
+                ColumnFactory.builder("l", Xsd.INT).build()), new ArrayList<>());
+        RecordingWriter writer = new RecordingWriter();
+
+        resultSet.unwrap(DataWorldResultSet.class).exportBatches(10, writer);
+
+        assertThat(writer.events).isEmpty();
+    }
+
+    @Test
+    public void testInvalidBatchSize() throws Exception {
+        ResultSet resultSet = new ResultSetImpl(null, new ResultSetMetaDataImpl(
+                ColumnFactory.builder("l", Xsd.INT).build()), new ArrayList<>());
+        assertSQLException(() -> resultSet.unwrap(DataWorldResultSet.class).exportBatches(0, new RecordingWriter()));
+    }
+
+    private static class RecordingWriter implements ColumnBatchWriter {
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void startBatch() {
+            events.add("start");
+        }
+
+        @Override
+        public void writeNull(int column, int row) {
+            events.add("null " + column + " " + row);
+        }
+
+        @Override
+        public void writeBoolean(int column, int row, boolean value) {
+            events.add("boolean " + column + " " + row + " " + value);
+        }
+
+        @Override
+        public void writeLong(int column, int row, long value) {
+            events.add("long " + column + " " + row + " " + value);
+        }
+
+        @Override
+        public void writeDouble(int column, int row, double value) {
+            events.add("double " + column + " " + row + " " + value);
+        }
+
+        @Override
+        public void writeDecimal(int column, int row, BigDecimal value) {
+            events.add("decimal " + column + " " + row + " " + value);
+        }
+
+        @Override
+        public void writeString(int column, int row, String value) {
+            events.add("string " + column + " " + row + " " + value);
+        }
+
+        @Override
+        public void endBatch(int rowCount) {
+            events.add("end " + rowCount);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.results;
+
+import org.junit.Test;
+import world.data.jdbc.model.Blank;
+import world.data.jdbc.model.Iri;
+import world.data.jdbc.model.Literal;
+import world.data.jdbc.model.LiteralFactory;
+import world.data.jdbc.model.Node;
+import world.data.jdbc.vocab.Xsd;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ColumnarRowsTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        List<Node[]> rows = Arrays.asList(
+                new Node[]{LiteralFactory.createLong(1), LiteralFactory.createDouble(1.5), LiteralFactory.TRUE,
+                        new Iri("http://example.com/a"), LiteralFactory.createString("x", "en"), null},
+                new Node[]{null, null, null, null, null, null},
+                new Node[]{LiteralFactory.createLong(Long.MIN_VALUE), LiteralFactory.createDouble(-0.0), LiteralFactory.FALSE,
+                        new Iri("http://example.com/a"), new Blank("b0"), null},
+                new Node[]{LiteralFactory.createLong(Long.MAX_VALUE), LiteralFactory.createDouble(Double.NaN), LiteralFactory.TRUE,
+                        new Iri("http://example.com/b"), LiteralFactory.createString("x", "en"), null});
+
+        assertThat(copy(rows)).containsExactlyElementsOf(rows);
+    }
+
+    @Test
+    public void testNonCanonicalLexicalForms() throws Exception {
+        // Values that can't be reconstructed exactly from a primitive must not be altered
+        List<Node[]> rows = Arrays.asList(
+                new Node[]{new Literal("007", Xsd.INTEGER), new Literal("1.5E0", Xsd.DOUBLE), new Literal("1", Xsd.BOOLEAN)},
+                new Node[]{new Literal("+7", Xsd.INTEGER), new Literal("1e10", Xsd.DOUBLE), new Literal("0", Xsd.BOOLEAN)});
+
+        assertThat(copy(rows)).containsExactlyElementsOf(rows);
+    }
+
+    @Test
+    public void testMixedColumn() throws Exception {
+        // Starts out as longs, switches to a dictionary on the first value with another datatype
+        List<Node[]> rows = Arrays.asList(
+                new Node[]{null},
+                new Node[]{LiteralFactory.createInteger(1)},
+                new Node[]{LiteralFactory.createInteger(2)},
+                new Node[]{null},
+                new Node[]{LiteralFactory.createInt(2)},
+                new Node[]{LiteralFactory.createString("two")},
+                new Node[]{LiteralFactory.createInteger(1)});
+
+        assertThat(copy(rows)).containsExactlyElementsOf(rows);
+    }
+
+    @Test
+    public void testGrowth() throws Exception {
+        ColumnarRows.Builder builder = ColumnarRows.builder(2);
+        for (int i = 0; i < 1000; i++) {
+            builder.add(new Node[]{LiteralFactory.createInt(i), i % 3 == 0 ? null : LiteralFactory.createString("s" + (i % 10))});
+        }
+        List<Node[]> rows = builder.build();
+
+        assertThat(rows).hasSize(1000);
+        assertThat(rows.get(999)).containsExactly(LiteralFactory.createInt(999), null);
+        assertThat(rows.get(998)).containsExactly(LiteralFactory.createInt(998), LiteralFactory.createString("s8"));
+        assertThatThrownBy(() -> rows.get(1000)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        assertThat(ColumnarRows.builder(3).build()).isEmpty();
+    }
+
+    private static List<Node[]> copy(List<Node[]> rows) {
+        ColumnarRows.Builder builder = ColumnarRows.builder(rows.get(0).length);
+        rows.forEach(builder::add);
+        return builder.build();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.results;
+
+import org.junit.Test;
+import world.data.jdbc.DataWorldResultSet;
+import world.data.jdbc.UncheckedSQLException;
+import world.data.jdbc.internal.metadata.ColumnFactory;
+import world.data.jdbc.internal.metadata.ResultSetMetaDataImpl;
+import world.data.jdbc.model.LiteralFactory;
+import world.data.jdbc.model.Node;
+import world.data.jdbc.vocab.Xsd;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ResultSetSpliteratorTest {
+
+    @Test
+    public void testStream() throws Exception {
+        ResultSetImpl resultSet = newResultSet(10);
+        try (Stream<Integer> stream = resultSet.unwrap(DataWorldResultSet.class).stream(rs -> rs.getInt(1))) {
+            assertThat(stream.collect(Collectors.toList())).isEqualTo(range(10));
+        }
+        assertThat(resultSet.isClosed()).isTrue();
+    }
+
+    @Test
+    public void testStreamRemainingRows() throws Exception {
+        ResultSetImpl resultSet = newResultSet(10);
+        resultSet.next();
+        resultSet.next();
+        try (Stream<Integer> stream = resultSet.stream(rs -> rs.getInt(1))) {
+            assertThat(stream.limit(3).collect(Collectors.toList())).containsExactly(2, 3, 4);
+        }
+        assertThat(resultSet.isClosed()).isTrue();
+    }
+
+    @Test
+    public void testParallelStream() throws Exception {
+        int count = 10 * ResultSetSpliterator.BATCH_UNIT + 17;
+        ResultSetImpl resultSet = newResultSet(count);
+        try (Stream<Integer> stream = resultSet.stream(rs -> rs.getInt("n"))) {
+            assertThat(stream.parallel().collect(Collectors.toList())).isEqualTo(range(count));
+        }
+    }
+
+    @Test
+    public void testSplit() throws Exception {
+        int count = 3 * ResultSetSpliterator.BATCH_UNIT;
+        ResultSetImpl resultSet = newResultSet(count);
+        Spliterator<Integer> spliterator = new ResultSetSpliterator<>(
+                resultSet, resultSet::nextRow, rs -> rs.getInt(1), count, Spliterator.ORDERED);
+
+        Spliterator<Integer> first = spliterator.trySplit();
+        assertThat(first.estimateSize()).isEqualTo(ResultSetSpliterator.BATCH_UNIT);
+        assertThat(first.hasCharacteristics(Spliterator.SIZED)).isTrue();
+        assertThat(spliterator.estimateSize()).isEqualTo(2 * ResultSetSpliterator.BATCH_UNIT);
+
+        // Batches grow with each split
+        Spliterator<Integer> second = spliterator.trySplit();
+        assertThat(second.estimateSize()).isEqualTo(2 * ResultSetSpliterator.BATCH_UNIT);
+        assertThat(spliterator.estimateSize()).isEqualTo(0);
+        assertThat(spliterator.trySplit()).isNull();
+
+        first.tryAdvance(n -> assertThat(n).isEqualTo(0));
+        assertThat(first.estimateSize()).isEqualTo(ResultSetSpliterator.BATCH_UNIT - 1);
+        second.tryAdvance(n -> assertThat(n).isEqualTo(ResultSetSpliterator.BATCH_UNIT));
+    }
+
+    @Test
+    public void testUnknownSize() throws Exception {
+        ResultSetImpl resultSet = newResultSet(5);
+        Spliterator<Integer> spliterator = resultSet.stream(rs -> rs.getInt(1)).spliterator();
+        assertThat(spliterator.estimateSize()).isEqualTo(Long.MAX_VALUE);
+        assertThat(spliterator.hasCharacteristics(Spliterator.SIZED)).isFalse();
+    }
+
+    @Test
+    public void testMapperException() throws Exception {
+        ResultSetImpl resultSet = newResultSet(5);
+        try (Stream<Integer> stream = resultSet.stream(rs -> {
+            throw new SQLException("boom");
+        })) {
+            assertThatThrownBy(() -> stream.forEach(n -> {}))
+                    .isInstanceOf(UncheckedSQLException.class)
+                    .hasCauseInstanceOf(SQLException.class);
+        }
+    }
+
+    private static ResultSetImpl newResultSet(int count) throws SQLException {
+        List<Node[]> rows = IntStream.range(0, count)
+                .mapToObj(i -> new Node[]{LiteralFactory.createInt(i)})
+                .collect(Collectors.toList());
+        return new ResultSetImpl(null, new ResultSetMetaDataImpl(ColumnFactory.builder("n", Xsd.INT).build()), rows);
+    }
+
+    private static List<Integer> range(int count) {
+        return IntStream.range(0, count).boxed().collect(Collectors.toList());
+    }
+}
@@ -24,6 +24,7 @@ import org.junit.Before;
 import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.Test;
+import world.data.jdbc.DataWorldResultSet;
 import world.data.jdbc.DataWorldStatement;
 import world.data.jdbc.model.Blank;
 import world.data.jdbc.model.Iri;
@@ -500,7 +501,14 @@ public class ResultSetTest {
         assertSQLFeatureNotSupported(() -> resultSet.getSQLXML(3));
         assertSQLFeatureNotSupported(() -> resultSet.getUnicodeStream("s"));
         assertSQLFeatureNotSupported(() -> resultSet.getUnicodeStream(3));
-        assertSQLFeatureNotSupported(() -> resultSet.isWrapperFor(Class.class));
-        assertSQLFeatureNotSupported(() -> resultSet.unwrap(Class.class));
+    }
+
+    @Test
+    public void testWrapper() throws Exception {
+        ResultSet resultSet = sampleResultSet();
+        assertThat(resultSet.isWrapperFor(DataWorldResultSet.class)).isTrue();
+        assertThat(resultSet.isWrapperFor(Class.class)).isFalse();
+        assertThat(resultSet.unwrap(DataWorldResultSet.class)).isSameAs(resultSet);
+        assertSQLException(() -> resultSet.unwrap(Class.class));
     }
 }
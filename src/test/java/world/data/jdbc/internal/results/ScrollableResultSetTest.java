@@ -0,0 +1,153 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.results;
+
+import org.junit.Test;
+import world.data.jdbc.DataWorldResultSet;
+import world.data.jdbc.internal.metadata.ColumnFactory;
+import world.data.jdbc.internal.metadata.ResultSetMetaDataImpl;
+import world.data.jdbc.model.LiteralFactory;
+import world.data.jdbc.model.Node;
+import world.data.jdbc.vocab.Xsd;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static world.data.jdbc.testing.MoreAssertions.assertSQLException;
+
+public class ScrollableResultSetTest {
+
+    @Test
+    public void testScrolling() throws Exception {
+        ResultSet rs = newResultSet(5);
+        assertThat(rs.getType()).isEqualTo(ResultSet.TYPE_SCROLL_INSENSITIVE);
+        assertThat(rs.isBeforeFirst()).isTrue();
+        assertThat(rs.getRow()).isEqualTo(0);
+        assertSQLException(() -> rs.getInt(1));
+
+        assertThat(rs.next()).isTrue();
+        assertThat(rs.isFirst()).isTrue();
+        assertThat(rs.getInt(1)).isEqualTo(1);
+
+        assertThat(rs.last()).isTrue();
+        assertThat(rs.isLast()).isTrue();
+        assertThat(rs.getRow()).isEqualTo(5);
+        assertThat(rs.getInt("n")).isEqualTo(5);
+
+        assertThat(rs.previous()).isTrue();
+        assertThat(rs.getInt(1)).isEqualTo(4);
+
+        assertThat(rs.absolute(2)).isTrue();
+        assertThat(rs.getInt(1)).isEqualTo(2);
+        assertThat(rs.absolute(-2)).isTrue();
+        assertThat(rs.getInt(1)).isEqualTo(4);
+        assertThat(rs.relative(-2)).isTrue();
+        assertThat(rs.getInt(1)).isEqualTo(2);
+
+        assertThat(rs.relative(10)).isFalse();
+        assertThat(rs.isAfterLast()).isTrue();
+        assertThat(rs.getRow()).isEqualTo(0);
+        assertThat(rs.previous()).isTrue();
+        assertThat(rs.getInt(1)).isEqualTo(5);
+
+        assertThat(rs.absolute(-10)).isFalse();
+        assertThat(rs.isBeforeFirst()).isTrue();
+        assertThat(rs.absolute(0)).isFalse();
+        assertThat(rs.first()).isTrue();
+        assertThat(rs.getInt(1)).isEqualTo(1);
+
+        rs.afterLast();
+        assertThat(rs.next()).isFalse();
+        assertThat(rs.isAfterLast()).isTrue();
+        rs.beforeFirst();
+        assertThat(rs.previous()).isFalse();
+        assertThat(rs.isBeforeFirst()).isTrue();
+    }
+
+    @Test
+    public void testRepeatedIteration() throws Exception {
+        ResultSet rs = newResultSet(3);
+        for (int pass = 0; pass < 2; pass++) {
+            List<Integer> values = new ArrayList<>();
+            while (rs.next()) {
+                values.add(rs.getInt(1));
+            }
+            assertThat(values).containsExactly(1, 2, 3);
+            rs.beforeFirst();
+        }
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        ResultSet rs = newResultSet(0);
+        assertThat(rs.isBeforeFirst()).isFalse();
+        assertThat(rs.isAfterLast()).isFalse();
+        assertThat(rs.first()).isFalse();
+        assertThat(rs.last()).isFalse();
+        assertThat(rs.next()).isFalse();
+    }
+
+    @Test
+    public void testFetchDirection() throws Exception {
+        ResultSet rs = newResultSet(1);
+        assertThat(rs.getFetchDirection()).isEqualTo(ResultSet.FETCH_FORWARD);
+        rs.setFetchDirection(ResultSet.FETCH_REVERSE);
+        assertThat(rs.getFetchDirection()).isEqualTo(ResultSet.FETCH_REVERSE);
+        assertSQLException(() -> rs.setFetchDirection(-1));
+    }
+
+    @Test
+    public void testMaterialize() throws Exception {
+        List<Node[]> rows = IntStream.rangeClosed(1, 5)
+                .mapToObj(i -> new Node[]{LiteralFactory.createInt(i), LiteralFactory.createString(i % 2 == 0 ? "even" : "odd")})
+                .collect(Collectors.toList());
+        ResultSet source = new ResultSetImpl(null, new ResultSetMetaDataImpl(
+                ColumnFactory.builder("n", Xsd.INT).build(),
+                ColumnFactory.builder("s", Xsd.STRING).build()), rows);
+        ResultSetMetaData metaData = source.getMetaData();
+        assertThat(source.next()).isTrue();
+
+        DataWorldResultSet rs = source.unwrap(DataWorldResultSet.class).materialize();
+        assertThat(source.isClosed()).isTrue();
+        assertThat(rs.getMetaData()).isSameAs(metaData);
+        assertThat(rs.last()).isTrue();
+        assertThat(rs.getRow()).isEqualTo(4);
+        assertThat(rs.getInt(1)).isEqualTo(5);
+        assertThat(rs.getString("s")).isEqualTo("odd");
+        assertThat(rs.first()).isTrue();
+        assertThat(rs.getInt(1)).isEqualTo(2);
+        assertThat(rs.getString("s")).isEqualTo("even");
+
+        // The row count of a materialized result set is known exactly
+        assertThat(rs.stream(r -> r.getInt(1)).spliterator().estimateSize()).isEqualTo(3);
+    }
+
+    private static ResultSet newResultSet(int count) throws SQLException {
+        List<Node[]> rows = IntStream.rangeClosed(1, count)
+                .mapToObj(i -> new Node[]{LiteralFactory.createInt(i)})
+                .collect(Collectors.toList());
+        return new ScrollableResultSetImpl(null, new ResultSetMetaDataImpl(ColumnFactory.builder("n", Xsd.INT).build()), rows, null);
+    }
+}
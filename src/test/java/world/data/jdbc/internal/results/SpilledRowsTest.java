@@ -0,0 +1,94 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.results;
+
+import org.junit.Test;
+import world.data.jdbc.model.Blank;
+import world.data.jdbc.model.Iri;
+import world.data.jdbc.model.LiteralFactory;
+import world.data.jdbc.model.Node;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class SpilledRowsTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        char[] big = new char[100_000];
+        Arrays.fill(big, 'é');
+        List<Node[]> expected = Arrays.asList(
+                new Node[]{new Iri("http://example.com/a"), new Blank("b0"), null},
+                new Node[]{LiteralFactory.createString("chat", "fr"), LiteralFactory.createInt(5), LiteralFactory.createString(new String(big))},
+                new Node[]{});
+        try (SpilledRows rows = new SpilledRows(expected.iterator(), null)) {
+            assertThat(rows).hasSize(3);
+            for (int i = expected.size() - 1; i >= 0; i--) {
+                assertThat(rows.get(i)).containsExactly(expected.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testLazy() throws Exception {
+        AtomicInteger read = new AtomicInteger();
+        Iterator<Node[]> source = IntStream.range(0, 100)
+                .peek(i -> read.incrementAndGet())
+                .mapToObj(i -> new Node[]{LiteralFactory.createInt(i)})
+                .iterator();
+        AutoCloseable cleanup = mock(AutoCloseable.class);
+        try (SpilledRows rows = new SpilledRows(source, cleanup)) {
+            assertThat(rows.isAvailable(9)).isTrue();
+            assertThat(rows.get(3)).containsExactly(LiteralFactory.createInt(3));
+            assertThat(read.get()).isEqualTo(10);
+            assertThat(rows.isComplete()).isFalse();
+            verify(cleanup, never()).close();
+
+            // Reading all the rows releases the source
+            assertThat(rows.isAvailable(100)).isFalse();
+            assertThat(rows.isComplete()).isTrue();
+            verify(cleanup).close();
+            assertThat(rows.get(99)).containsExactly(LiteralFactory.createInt(99));
+            assertThat(rows.get(0)).containsExactly(LiteralFactory.createInt(0));
+            assertThatThrownBy(() -> rows.get(100)).isInstanceOf(IndexOutOfBoundsException.class);
+        }
+    }
+
+    @Test
+    public void testEarlyClose() throws Exception {
+        List<Node[]> source = IntStream.range(0, 100)
+                .mapToObj(i -> new Node[]{LiteralFactory.createInt(i)})
+                .collect(Collectors.toList());
+        AutoCloseable cleanup = mock(AutoCloseable.class);
+        SpilledRows rows = new SpilledRows(source.iterator(), cleanup);
+        rows.get(5);
+        rows.close();
+        verify(cleanup).close();
+    }
+}
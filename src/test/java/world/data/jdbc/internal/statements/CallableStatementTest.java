@@ -119,6 +119,18 @@ public class CallableStatementTest {
                 Utils.queryParam("$p", "\"not-null\"")));
     }
 
+    @Test
+    public void testArray() throws Exception {
+        DataWorldConnection connection = sparql.connect();
+        DataWorldCallableStatement statement = sparql.prepareCall(connection, "select ?s ?p ?o where {?s ?p ?o.}");
+        statement.setObject("s", connection.createArrayOf("other", new Object[]{new URL("http://example.com/a"), null}));
+        statement.setString("o", "x");
+        statement.execute();
+        verify(lastBackendRequest).handle(Method.POST, sparql.urlPath(), null, Utils.TYPE_FORM_URLENCODED, String.join("&",
+                Utils.queryParam("query", "select ?s ?p ?o where {?s ?p ?o.}\nVALUES ?s { <http://example.com/a> UNDEF }"),
+                Utils.queryParam("$o", "\"x\"")));
+    }
+
     @Test
     public void testWrapperFor() throws SQLException {
         DataWorldCallableStatement statement = sampleSparqlCallableStatement();
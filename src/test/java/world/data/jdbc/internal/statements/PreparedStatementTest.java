@@ -41,6 +41,7 @@ import java.sql.Clob;
 import java.sql.Date;
 import java.sql.JDBCType;
 import java.sql.NClob;
+import java.sql.ResultSet;
 import java.sql.RowId;
 import java.sql.SQLException;
 import java.sql.SQLType;
@@ -48,13 +49,16 @@ import java.sql.SQLXML;
 import java.sql.Time;
 import java.sql.Types;
 import java.time.LocalTime;
+import java.util.Arrays;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.endsWith;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static world.data.jdbc.testing.MoreAssertions.assertSQLException;
 import static world.data.jdbc.testing.MoreAssertions.assertSQLFeatureNotSupported;
@@ -118,7 +122,60 @@ public class PreparedStatementTest {
 
     @Test
     public void getParameterMetaData() throws Exception {
+        DataWorldPreparedStatement statement = sql.prepareStatement(sql.connect(),
+                "select 'why?', \"a?\" from Fielding -- where yearid = ?\nwhere yearid = ? /* or ? */ and teamid = ?");
+        assertThat(statement.getParameterMetaData().getParameterCount()).isEqualTo(2);
+        statement.setInt(2, 1900);
+        assertSQLException(() -> statement.setInt(3, 1900));
+    }
 
+    @Test
+    public void setArray() throws Exception {
+        DataWorldConnection connection = sql.connect();
+        DataWorldPreparedStatement statement = sql.prepareStatement(connection,
+                "select * from Fielding where playerid in (?) and yearid = ?");
+        statement.setArray(1, connection.createArrayOf("varchar", new Object[]{"a", "b"}));
+        statement.setInt(2, 1900);
+        statement.execute();
+        verify(lastBackendRequest).handle(Method.POST, sql.urlPath(), null, Utils.TYPE_FORM_URLENCODED, String.join("&",
+                Utils.queryParam("query", "select * from Fielding where playerid in (?, ?) and yearid = ?"),
+                Utils.queryParam("$data_world_param0", "\"a\""),
+                Utils.queryParam("$data_world_param1", "\"b\""),
+                Utils.queryParam("$data_world_param2", "\"1900\"^^<http://www.w3.org/2001/XMLSchema#integer>")));
+
+        // Setting a scalar value replaces the array
+        statement.setString(1, "c");
+        statement.execute();
+        verify(lastBackendRequest).handle(Method.POST, sql.urlPath(), null, Utils.TYPE_FORM_URLENCODED, String.join("&",
+                Utils.queryParam("query", "select * from Fielding where playerid in (?) and yearid = ?"),
+                Utils.queryParam("$data_world_param1", "\"1900\"^^<http://www.w3.org/2001/XMLSchema#integer>"),
+                Utils.queryParam("$data_world_param0", "\"c\"")));
+        assertSQLException(() -> statement.setArray(3, connection.createArrayOf("varchar", new Object[0])));
+    }
+
+    @Test
+    public void setArrayLarge() throws Exception {
+        DataWorldConnection connection = sql.connect();
+        DataWorldPreparedStatement statement = sql.prepareStatement(connection, "select * from Fielding where yearid in (?)");
+        statement.setObject(1, connection.createArrayOf("integer", new Object[]{1900}));
+        int rowsPerQuery = countRows(statement.executeQuery());
+
+        // A large array is split into several queries and the results are concatenated
+        Object[] years = new Object[2500];
+        Arrays.fill(years, 1900);
+        statement.setArray(1, connection.createArrayOf("integer", years));
+        assertThat(countRows(statement.executeQuery())).isEqualTo(3 * rowsPerQuery);
+        verify(lastBackendRequest, times(4)).handle(eq(Method.POST), eq(sql.urlPath()), isNull(),
+                eq(Utils.TYPE_FORM_URLENCODED), anyString());
+    }
+
+    private static int countRows(ResultSet resultSet) throws SQLException {
+        int count = 0;
+        while (resultSet.next()) {
+            count++;
+        }
+        resultSet.close();
+        return count;
     }
 
     @Test
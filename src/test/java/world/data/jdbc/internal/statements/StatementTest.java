@@ -35,15 +35,26 @@ import world.data.jdbc.testing.Utils;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static world.data.jdbc.testing.MoreAssertions.assertSQLException;
 import static world.data.jdbc.testing.MoreAssertions.assertSQLFeatureNotSupported;
 
 public class StatementTest {
     private static NanoHTTPDHandler lastBackendRequest;
+    private static volatile Map<String, String> lastBackendHeaders;
     private static final String resultResourceName = "/select.json";
     private static final String resultMimeType = Utils.TYPE_SPARQL_RESULTS;
 
@@ -51,6 +62,7 @@ public class StatementTest {
     public static final NanoHTTPDResource proxiedServer = new NanoHTTPDResource(3333) {
         @Override
         protected NanoHTTPD.Response serve(NanoHTTPD.IHTTPSession session) throws Exception {
+            lastBackendHeaders = session.getHeaders();
             NanoHTTPDHandler.invoke(session, lastBackendRequest);
             String body = IOUtils.toString(getClass().getResourceAsStream(resultResourceName), UTF_8);
             return newResponse(NanoHTTPD.Response.Status.OK, resultMimeType, body);
@@ -177,6 +189,63 @@ public class StatementTest {
         assertSQLException(statement::getMoreResults);
     }
 
+    @Test(timeout = 10000)
+    public void executeBatchNotLocked() throws Exception {
+        // Hold the first batched query on the server
+        CountDownLatch received = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            received.countDown();
+            release.await();
+            return null;
+        }).when(lastBackendRequest).handle(any(), any(), any(), any(), any());
+
+        DataWorldStatement statement = sparql.createStatement(sparql.connect());
+        statement.addBatch("select ?s where {?s ?p ?o.}");
+        statement.addBatch("select ?o where {?s ?p ?o.}");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<int[]> future = executor.submit(statement::executeBatch);
+            received.await();
+            // Other threads can use the statement while the batch runs
+            assertThat(statement.getResultSet()).isNull();
+            release.countDown();
+            assertThat(future.get()).containsExactly(DataWorldStatement.SUCCESS_NO_INFO, DataWorldStatement.SUCCESS_NO_INFO);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        assertThat(statement.getResultSet()).isNotNull();
+    }
+
+    @Test(timeout = 10000)
+    public void closeWhileExecuting() throws Exception {
+        CountDownLatch received = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            received.countDown();
+            release.await();
+            return null;
+        }).when(lastBackendRequest).handle(any(), any(), any(), any(), any());
+
+        DataWorldStatement statement = sparql.createStatement(sparql.connect());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<ResultSet> future = executor.submit(() -> statement.executeQuery("select ?s ?p ?o where {?s ?p ?o.}"));
+            received.await();
+            statement.close();
+            release.countDown();
+            // The query's results aren't left open on the closed statement
+            assertThatThrownBy(future::get)
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(SQLException.class)
+                    .hasMessageContaining("Statement is closed");
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
     @Test
     public void clearBatch() throws Exception {
         DataWorldStatement statement = sparql.createStatement(sparql.connect());
@@ -331,10 +400,65 @@ public class StatementTest {
         assertSQLException(statement::getResultSet);
     }
 
+    @Test(timeout = 10000)
+    public void testQueryTimeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(lastBackendRequest).handle(any(), any(), any(), any(), any());
+        try {
+            DataWorldStatement statement = sparql.createStatement(sparql.connect());
+            statement.setQueryTimeout(1);
+            assertThatThrownBy(() -> statement.executeQuery("select ?s ?p ?o where {?s ?p ?o.}"))
+                    .isInstanceOf(SQLTimeoutException.class);
+            assertThat(Long.parseLong(lastBackendHeaders.get("x-request-timeout-ms"))).isBetween(1L, 1000L);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testNoQueryTimeout() throws Exception {
+        DataWorldStatement statement = sparql.createStatement(sparql.connect());
+        assertThat(statement.executeQuery("select ?s ?p ?o where {?s ?p ?o.}").next()).isTrue();
+        assertThat(lastBackendHeaders).doesNotContainKey("x-request-timeout-ms");
+    }
+
+    @Test(timeout = 10000)
+    public void testCancel() throws Exception {
+        // Hold the request on the server until the statement is cancelled
+        CountDownLatch received = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            received.countDown();
+            release.await();
+            return null;
+        }).when(lastBackendRequest).handle(any(), any(), any(), any(), any());
+
+        DataWorldStatement statement = sparql.createStatement(sparql.connect());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<ResultSet> future = executor.submit(() -> statement.executeQuery("select ?s ?p ?o where {?s ?p ?o.}"));
+            received.await();
+            statement.cancel();
+            assertThatThrownBy(future::get)
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(SQLException.class)
+                    .satisfies(e -> assertThat(((SQLException) e.getCause()).getSQLState()).isEqualTo("HY008"));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+
+        // The statement is still usable after cancelling
+        doAnswer(invocation -> null).when(lastBackendRequest).handle(any(), any(), any(), any(), any());
+        assertThat(statement.executeQuery("select ?s ?p ?o where {?s ?p ?o.}").next()).isTrue();
+    }
+
     @Test
     public void testAllNotSupported() throws Exception {
         DataWorldStatement statement = sparql.createStatement(sparql.connect());
-        assertSQLFeatureNotSupported(statement::cancel);
         assertSQLFeatureNotSupported(statement::closeOnCompletion);
         assertSQLFeatureNotSupported(() -> statement.executeUpdate("foo"));
         assertSQLFeatureNotSupported(() -> statement.executeUpdate("foo", 3));
@@ -0,0 +1,131 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.transport;
+
+import org.junit.Test;
+
+import java.sql.SQLTransientConnectionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static world.data.jdbc.internal.transport.CircuitBreaker.Outcome.FAILURE;
+import static world.data.jdbc.internal.transport.CircuitBreaker.Outcome.IGNORED;
+import static world.data.jdbc.internal.transport.CircuitBreaker.Outcome.SUCCESS;
+
+public class CircuitBreakerTest {
+
+    @Test
+    public void testOpensAtThreshold() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("test", 50, 60_000);
+        for (int i = 0; i < 5; i++) {
+            record(breaker, SUCCESS);
+            assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        }
+        for (int i = 0; i < 4; i++) {
+            record(breaker, FAILURE);
+            assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        }
+        record(breaker, FAILURE);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(breaker::acquire)
+                .isInstanceOf(SQLTransientConnectionException.class)
+                .hasMessageContaining("Requests to 'test' are failing");
+    }
+
+    @Test
+    public void testMinRequests() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("test", 50, 60_000);
+        for (int i = 0; i < 9; i++) {
+            record(breaker, FAILURE);
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void testIgnoredOutcomes() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("test", 50, 60_000);
+        for (int i = 0; i < 100; i++) {
+            record(breaker, IGNORED);
+        }
+        for (int i = 0; i < 10; i++) {
+            record(breaker, FAILURE);
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    public void testSlidingWindow() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("test", 50, 60_000);
+        for (int i = 0; i < 10; i++) {
+            record(breaker, SUCCESS);
+        }
+        for (int i = 0; i < 9; i++) {
+            record(breaker, FAILURE);
+        }
+        // Older failures age out of the window
+        for (int i = 0; i < 20; i++) {
+            record(breaker, SUCCESS);
+        }
+        for (int i = 0; i < 9; i++) {
+            record(breaker, FAILURE);
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        record(breaker, FAILURE);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    public void testHalfOpenProbe() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("test", 100, 0);
+        for (int i = 0; i < 10; i++) {
+            record(breaker, FAILURE);
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        // The open interval has passed, a single probe is allowed
+        assertThat(breaker.acquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThatThrownBy(breaker::acquire).isInstanceOf(SQLTransientConnectionException.class);
+
+        // A failed probe opens the breaker again
+        breaker.release(true, FAILURE);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        // An ignored probe lets another probe through
+        assertThat(breaker.acquire()).isTrue();
+        breaker.release(true, IGNORED);
+        assertThat(breaker.acquire()).isTrue();
+
+        // A successful probe closes the breaker
+        breaker.release(true, SUCCESS);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.acquire()).isFalse();
+    }
+
+    @Test
+    public void testShared() {
+        assertThat(CircuitBreaker.forEndpoint("a", 50, 1000)).isSameAs(CircuitBreaker.forEndpoint("a", 50, 1000));
+        assertThat(CircuitBreaker.forEndpoint("a", 50, 1000)).isNotSameAs(CircuitBreaker.forEndpoint("b", 50, 1000));
+        assertThat(CircuitBreaker.forEndpoint("a", 50, 1000)).isNotSameAs(CircuitBreaker.forEndpoint("a", 60, 1000));
+    }
+
+    private void record(CircuitBreaker breaker, CircuitBreaker.Outcome outcome) throws Exception {
+        breaker.release(breaker.acquire(), outcome);
+    }
+}
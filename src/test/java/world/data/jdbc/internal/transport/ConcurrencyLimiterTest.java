@@ -0,0 +1,143 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.transport;
+
+import org.junit.Test;
+import world.data.jdbc.internal.util.CancelToken;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ConcurrencyLimiterTest {
+
+    @Test
+    public void testLimit() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 2);
+        limiter.acquire(new CancelToken(), 0);
+        limiter.acquire(new CancelToken(), 0);
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+        assertThatThrownBy(() -> limiter.acquire(new CancelToken(), 10))
+                .isInstanceOf(SQLTransientException.class)
+                .hasMessageContaining("2 requests in flight");
+        limiter.release(false);
+        limiter.acquire(new CancelToken(), 0);
+    }
+
+    @Test
+    public void testWaitForSlot() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 1);
+        limiter.acquire(new CancelToken(), 0);
+        CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> {
+            try {
+                limiter.acquire(new CancelToken(), 10_000);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        assertThat(waiter.isDone()).isFalse();
+        limiter.release(false);
+        waiter.get(5, TimeUnit.SECONDS);
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    public void testWaitWithoutTimeout() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 1);
+        limiter.acquire(new CancelToken(), 0);
+        CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> {
+            try {
+                limiter.acquire(new CancelToken(), Long.MAX_VALUE);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        assertThat(waiter.isDone()).isFalse();
+        limiter.release(false);
+        waiter.get(5, TimeUnit.SECONDS);
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCancelWhileWaiting() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 1);
+        limiter.acquire(new CancelToken(), 0);
+        CancelToken cancelToken = new CancelToken();
+        CompletableFuture<SQLException> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                limiter.acquire(cancelToken, 10_000);
+                return null;
+            } catch (SQLException e) {
+                return e;
+            }
+        });
+        Thread.sleep(50);
+        cancelToken.cancel();
+        assertThat(waiter.get(5, TimeUnit.SECONDS).getMessage()).isEqualTo("Statement was cancelled");
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    public void testAdditiveIncreaseMultiplicativeDecrease() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 20);
+        limiter.acquire(new CancelToken(), 0);
+        for (int i = 0; i < 7; i++) {
+            limiter.release(true);
+            limiter.acquire(new CancelToken(), 0);
+        }
+        // 20 * 0.9^7 = 9.56
+        assertThat(limiter.getLimit()).isEqualTo(9);
+        limiter.release(false);
+
+        // Successes below the limit don't raise it
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire(new CancelToken(), 0);
+            limiter.release(false);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(9);
+
+        // Successes at the limit raise it by about one per limit's worth of requests, up to the maximum
+        for (int i = 0; i < 9; i++) {
+            limiter.acquire(new CancelToken(), 0);
+        }
+        for (int i = 0; i < 1000; i++) {
+            limiter.release(false);
+            while (limiter.getInFlight() < limiter.getLimit()) {
+                limiter.acquire(new CancelToken(), 0);
+            }
+        }
+        assertThat(limiter.getLimit()).isEqualTo(20);
+    }
+
+    @Test
+    public void testMinimumLimit() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 2);
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire(new CancelToken(), 0);
+            limiter.release(true);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(1);
+    }
+}
@@ -30,6 +30,7 @@ import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -160,6 +161,42 @@ public class FileBackedInputStreamTest {
         }
     }
 
+    @Test(timeout = 10000)
+    public void testAbort() throws Exception {
+        // Simulate a server that sends some bytes then stalls
+        CountDownLatch stall = new CountDownLatch(1);
+        InputStream contentIn = new FilterInputStream(new ByteArrayInputStream(genSampleBytes(8000))) {
+            @Override
+            public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+                int count = super.read(b, off, len);
+                if (count == -1) {
+                    try {
+                        stall.await();
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                }
+                return count;
+            }
+        };
+        try (FileBackedInputStream in = new FileBackedInputStream(contentIn, 0, newCachedExecutor())) {
+            Thread reader = Thread.currentThread();
+            newCachedExecutor().execute(() -> {
+                // Wait for the reader to block waiting for more content
+                while (reader.getState() != Thread.State.WAITING) {
+                    Thread.yield();
+                }
+                in.abort();
+            });
+            //noinspection ResultOfMethodCallIgnored
+            assertThatThrownBy(() -> in.skip(10000))
+                    .isExactlyInstanceOf(IOException.class)
+                    .hasMessage("Download was cancelled.");
+        } finally {
+            stall.countDown();
+        }
+    }
+
     private byte[] genSampleBytes(int length) {
         byte[] buf = new byte[length];
         for (int i = 0; i < buf.length; i++) {
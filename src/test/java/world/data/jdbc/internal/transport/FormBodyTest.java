@@ -0,0 +1,90 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.transport;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URLEncoder;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FormBodyTest {
+    @Test
+    public void testMatchesUrlEncoder() throws Exception {
+        String[] values = {
+                "",
+                "select * from t where a = ? and b in ('x', \"y\")",
+                "azAZ09.-*_ ~!@#$%^&()+={}[]|\\:;'<>,/?\t\n",
+                "café üß € 中文",
+                "emoji 😀 pair",
+                "lone \ud83d high and \ude00 low",
+        };
+        for (String value : values) {
+            byte[] actual = new FormBody(0).add("$name", value).toByteArray();
+            String expected = URLEncoder.encode("$name", "UTF-8") + "=" + URLEncoder.encode(value, "UTF-8");
+            assertThat(new String(actual, US_ASCII)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testMultipleParams() throws Exception {
+        byte[] query = new FormBody(0).add("query", "select 1").toByteArray();
+        FormBody body = new FormBody(4)
+                .addEncoded(query)
+                .add("$p", "\"x\"")
+                .add("maxRowsReturned", "10");
+        String expected = "query=select+1&%24p=%22x%22&maxRowsReturned=10";
+        assertThat(body.size()).isEqualTo(expected.length());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        assertThat(out.toString("US-ASCII")).isEqualTo(expected);
+        assertThat(new String(body.toByteArray(), US_ASCII)).isEqualTo(expected);
+    }
+
+    @Test
+    public void testCompress() throws Exception {
+        String query = String.join(" ", Collections.nCopies(100, "<http://example.com/s>"));
+        FormBody body = new FormBody(0).add("query", query);
+        assertThat(body.compress(RequestCompression.NONE, 0)).isSameAs(body);
+        assertThat(body.compress(RequestCompression.GZIP, body.size() + 1)).isSameAs(body);
+
+        FormBody gzip = body.compress(RequestCompression.GZIP, 0);
+        assertThat(gzip.getContentEncoding()).isEqualTo("gzip");
+        assertThat(gzip.size()).isLessThan(body.size());
+        assertThat(IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(gzip.toByteArray()))))
+                .isEqualTo(body.toByteArray());
+
+        FormBody deflate = body.compress(RequestCompression.DEFLATE, 0);
+        assertThat(deflate.getContentEncoding()).isEqualTo("deflate");
+        assertThat(IOUtils.toByteArray(new InflaterInputStream(new ByteArrayInputStream(deflate.toByteArray()))))
+                .isEqualTo(body.toByteArray());
+
+        // Incompressible bodies are sent as-is
+        FormBody tiny = new FormBody(0).add("q", "x");
+        assertThat(tiny.compress(RequestCompression.GZIP, 0)).isSameAs(tiny);
+    }
+}
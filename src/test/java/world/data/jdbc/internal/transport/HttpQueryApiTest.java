@@ -0,0 +1,412 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.transport;
+
+import fi.iki.elonen.NanoHTTPD;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import world.data.jdbc.ExportFormat;
+import world.data.jdbc.UncheckedSQLException;
+import world.data.jdbc.internal.metrics.QueryListeners;
+import world.data.jdbc.internal.util.CancelToken;
+import world.data.jdbc.testing.CloserResource;
+import world.data.jdbc.testing.NanoHTTPDResource;
+import world.data.jdbc.testing.Utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.SQLTransientException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HttpQueryApiTest {
+    private static final Queue<NanoHTTPD.Response.Status> statuses = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger requestCount = new AtomicInteger();
+    private static final Queue<Long> delays = new ConcurrentLinkedQueue<>();
+    private static volatile String retryAfter;
+    private static volatile String contentEncoding;
+    private static volatile byte[] requestBody;
+    private static volatile String accept;
+    private static volatile String csvBody;
+
+    @ClassRule
+    public static final NanoHTTPDResource proxiedServer = new NanoHTTPDResource(3333) {
+        @Override
+        protected NanoHTTPD.Response serve(NanoHTTPD.IHTTPSession session) throws Exception {
+            requestCount.incrementAndGet();
+            contentEncoding = session.getHeaders().get("content-encoding");
+            accept = session.getHeaders().get("accept");
+            requestBody = IOUtils.toByteArray(session.getInputStream(), Long.parseLong(session.getHeaders().get("content-length")));
+            Long delay = delays.poll();
+            if (delay != null) {
+                Thread.sleep(delay);
+            }
+            NanoHTTPD.Response.Status status = statuses.poll();
+            if (status != null) {
+                NanoHTTPD.Response response = newResponse(status, "text/plain", status.getDescription());
+                if (retryAfter != null) {
+                    response.addHeader("Retry-After", retryAfter);
+                }
+                return response;
+            }
+            if (csvBody != null && accept.startsWith("text/csv")) {
+                return newResponse(NanoHTTPD.Response.Status.OK, "text/csv", csvBody);
+            }
+            String body = IOUtils.toString(getClass().getResourceAsStream("/select.json"), UTF_8);
+            return newResponse(NanoHTTPD.Response.Status.OK, Utils.TYPE_SPARQL_RESULTS, body);
+        }
+    };
+
+    @Rule
+    public final CloserResource closer = new CloserResource();
+
+    @Before
+    public void setup() {
+        statuses.clear();
+        delays.clear();
+        requestCount.set(0);
+        retryAfter = null;
+        contentEncoding = null;
+        requestBody = null;
+        accept = null;
+        csvBody = null;
+    }
+
+    @Test
+    public void testRetryTransientStatus() throws Exception {
+        statuses.add(NanoHTTPD.Response.Status.SERVICE_UNAVAILABLE);
+        statuses.add(NanoHTTPD.Response.Status.TOO_MANY_REQUESTS);
+        retryAfter = "0";
+        Response response = execute(newApi(RetryPolicy.DEFAULTS));
+        assertThat(response.getRows().hasNext()).isTrue();
+        assertThat(requestCount.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void testRetriesExhausted() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            statuses.add(NanoHTTPD.Response.Status.SERVICE_UNAVAILABLE);
+        }
+        HttpQueryApi api = newApi(RetryPolicy.DEFAULTS.toBuilder().maxAttempts(2).initialBackoffMillis(1).build());
+        assertThatThrownBy(() -> execute(api))
+                .isInstanceOf(SQLTransientException.class)
+                .hasMessageContaining("failed with response 503");
+        assertThat(requestCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testNoRetryOnClientError() throws Exception {
+        statuses.add(NanoHTTPD.Response.Status.BAD_REQUEST);
+        assertThatThrownBy(() -> execute(newApi(RetryPolicy.DEFAULTS)))
+                .isInstanceOf(SQLException.class)
+                .isNotInstanceOf(SQLTransientException.class);
+        assertThat(requestCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testNoRetryWhenRetryAfterTooLong() throws Exception {
+        statuses.add(NanoHTTPD.Response.Status.TOO_MANY_REQUESTS);
+        retryAfter = "3600";
+        assertThatThrownBy(() -> execute(newApi(RetryPolicy.DEFAULTS)))
+                .isInstanceOf(SQLTransientException.class);
+        assertThat(requestCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRetryDisabled() throws Exception {
+        statuses.add(NanoHTTPD.Response.Status.SERVICE_UNAVAILABLE);
+        assertThatThrownBy(() -> execute(newApi(RetryPolicy.NONE)))
+                .isInstanceOf(SQLTransientException.class);
+        assertThat(requestCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testHedgeSlowRequest() throws Exception {
+        HttpQueryApi api = newApi(TransportOptions.builder().hedgePercentile(50).build());
+        warmUp(api);
+
+        // The original request stalls, the hedge request sent after the p50 latency responds first
+        delays.add(10_000L);
+        long start = System.nanoTime();
+        Response response = execute(api);
+        assertThat(response.getRows().hasNext()).isTrue();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(5_000);
+        assertThat(requestCount.get()).isEqualTo(2);
+        assertThat(api.getMonitor().getHedgedRequestCount()).isEqualTo(1);
+        assertThat(api.getMonitor().getHedgeWinCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testHedgeDisabled() throws Exception {
+        HttpQueryApi api = newApi(TransportOptions.DEFAULTS);
+        warmUp(api);
+
+        delays.add(500L);
+        Response response = execute(api);
+        assertThat(response.getRows().hasNext()).isTrue();
+        assertThat(requestCount.get()).isEqualTo(1);
+        assertThat(api.getMonitor().getHedgedRequestCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testCircuitBreaker() throws Exception {
+        HttpQueryApi api = newApi("http://localhost:3333/sparql/breaker/open", TransportOptions.builder()
+                .retryPolicy(RetryPolicy.NONE)
+                .circuitBreakerThreshold(50)
+                .build());
+        for (int i = 0; i < 10; i++) {
+            statuses.add(NanoHTTPD.Response.Status.INTERNAL_ERROR);
+            assertThatThrownBy(() -> execute(api))
+                    .isInstanceOf(SQLException.class)
+                    .matches(e -> ((SQLException) e).getErrorCode() == 500);
+        }
+        assertThat(api.getMonitor().getCircuitBreakerState()).isEqualTo("OPEN");
+
+        // Fails fast without sending a request
+        assertThatThrownBy(() -> execute(api))
+                .isInstanceOf(SQLTransientConnectionException.class)
+                .hasMessageContaining("are failing");
+        assertThat(requestCount.get()).isEqualTo(10);
+    }
+
+    @Test
+    public void testCircuitBreakerIgnoresClientErrors() throws Exception {
+        HttpQueryApi api = newApi("http://localhost:3333/sparql/breaker/closed", TransportOptions.builder()
+                .circuitBreakerThreshold(50)
+                .build());
+        for (int i = 0; i < 10; i++) {
+            statuses.add(NanoHTTPD.Response.Status.BAD_REQUEST);
+            assertThatThrownBy(() -> execute(api)).isInstanceOf(SQLException.class);
+        }
+        assertThat(api.getMonitor().getCircuitBreakerState()).isEqualTo("CLOSED");
+        assertThat(execute(api).getRows().hasNext()).isTrue();
+    }
+
+    @Test
+    public void testConcurrencyLimit() throws Exception {
+        HttpQueryApi api = newApi("http://localhost:3333/sparql/limit/test", TransportOptions.builder()
+                .maxConcurrentQueries(4)
+                .build());
+        assertThat(execute(api).getRows().hasNext()).isTrue();
+        assertThat(api.getMonitor().getConcurrencyLimit()).isEqualTo(4);
+        assertThat(api.getMonitor().getConcurrencyLimitInFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void testConcurrencyLimitWithoutConnectTimeout() throws Exception {
+        // connectTimeout=0 means no timeout, a query over the limit waits for a slot instead of failing immediately
+        String endpoint = "http://localhost:3333/sparql/limit/unbounded";
+        HttpQueryApi api = newApi(endpoint, TransportOptions.builder()
+                .maxConcurrentQueries(1)
+                .connectTimeoutMillis(0)
+                .build());
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.forEndpoint(endpoint, 1);
+        limiter.acquire(new CancelToken(), 0);
+        CompletableFuture<Response> query = CompletableFuture.supplyAsync(() -> {
+            try {
+                return execute(api);
+            } catch (SQLException e) {
+                throw new UncheckedSQLException(e);
+            }
+        });
+        Thread.sleep(100);
+        assertThat(query.isDone()).isFalse();
+        limiter.release(false);
+        assertThat(query.get(5, TimeUnit.SECONDS).getRows().hasNext()).isTrue();
+    }
+
+    @Test
+    public void testRateLimitThrottled() throws Exception {
+        HttpQueryApi api = newApi("http://localhost:3333/sparql/rate/test", TransportOptions.builder()
+                .retryPolicy(RetryPolicy.NONE)
+                .rateLimitPerMinute(6000)
+                .build());
+        assertThat(api.getMonitor().getRateLimitPerMinute()).isEqualTo(6000);
+        statuses.add(NanoHTTPD.Response.Status.TOO_MANY_REQUESTS);
+        retryAfter = "0";
+        assertThatThrownBy(() -> execute(api)).isInstanceOf(SQLTransientException.class);
+        assertThat(api.getMonitor().getRateLimitPerMinute()).isEqualTo(3000);
+        assertThat(execute(api).getRows().hasNext()).isTrue();
+        assertThat(api.getMonitor().getRateLimitPerMinute()).isEqualTo(3300);
+    }
+
+    @Test
+    public void testRequestCompression() throws Exception {
+        HttpQueryApi api = newApi(TransportOptions.builder()
+                .requestCompression(RequestCompression.GZIP)
+                .requestCompressionThreshold(1000)
+                .build());
+        String bigQuery = "select * { values ?s { " + String.join(" ", Collections.nCopies(500, "<http://x/s>")) + " } }";
+        assertThat(execute(api, bigQuery).getRows().hasNext()).isTrue();
+        assertThat(contentEncoding).isEqualTo("gzip");
+        assertThat(IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(requestBody)), UTF_8))
+                .isEqualTo(Utils.queryParam("query", bigQuery));
+
+        // Small requests aren't compressed
+        execute(api);
+        assertThat(contentEncoding).isNull();
+        assertThat(new String(requestBody, UTF_8)).isEqualTo(Utils.queryParam("query", "select * {?s ?p ?o}"));
+    }
+
+    @Test
+    public void testRequestCompressionRejected() throws Exception {
+        HttpQueryApi api = newApi(TransportOptions.builder()
+                .requestCompression(RequestCompression.DEFLATE)
+                .requestCompressionThreshold(0)
+                .build());
+        String query = "select * { ?s ?p ?o . ?o ?p ?s . ?s ?p ?o . ?o ?p ?s }";
+        statuses.add(NanoHTTPD.Response.Status.UNSUPPORTED_MEDIA_TYPE);
+        assertThat(execute(api, query).getRows().hasNext()).isTrue();
+        assertThat(requestCount.get()).isEqualTo(2);
+        assertThat(contentEncoding).isNull();
+
+        // Compression stays off for the connection
+        execute(api, query);
+        assertThat(requestCount.get()).isEqualTo(3);
+        assertThat(contentEncoding).isNull();
+    }
+
+    @Test
+    public void testExecuteQueries() throws Exception {
+        HttpQueryApi api = newApi(RetryPolicy.NONE);
+        BoundQuery query = new BoundQuery(EncodedQuery.of("select * {?s ?p ?o}"), Collections.emptyMap());
+        int rowsPerQuery = countRows(execute(api));
+
+        Response response = api.executeQueries(Arrays.asList(query, query, query), null, null, 0, new CancelToken());
+        closer.register(response.getCleanup());
+        assertThat(countRows(response)).isEqualTo(3 * rowsPerQuery);
+
+        // One failure fails the whole query
+        statuses.add(NanoHTTPD.Response.Status.BAD_REQUEST);
+        assertThatThrownBy(() -> api.executeQueries(Arrays.asList(query, query, query), null, null, 0, new CancelToken()))
+                .isInstanceOf(SQLException.class)
+                .hasMessageContaining("400");
+    }
+
+    @Test
+    public void testExecuteQueriesBoundedThreads() throws Exception {
+        // Sub-queries are dispatched as slots free up, a big batch doesn't start a thread per sub-query
+        HttpQueryApi api = newApi(RetryPolicy.NONE);
+        BoundQuery query = new BoundQuery(EncodedQuery.of("select * {?s ?p ?o}"), Collections.emptyMap());
+        Response response = api.executeQueries(Collections.nCopies(40, query), null, null, 0, new CancelToken());
+        closer.register(response.getCleanup());
+        // A finished worker may not be idle yet when the next sub-query is dispatched, allow some slack
+        assertThat(api.getMonitor().getDownloadPoolLargestSize()).isLessThanOrEqualTo(8);
+    }
+
+    @Test
+    public void testExportQuery() throws Exception {
+        HttpQueryApi api = newApi(RetryPolicy.NONE);
+        StringBuilder csv = new StringBuilder("a,b\r\n");
+        for (int i = 0; i < 20000; i++) {
+            csv.append(i).append(",\"x\"\"y\"\r\n");
+        }
+        csvBody = csv.toString();
+
+        // The server supports the format, the response is copied verbatim
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Response response = api.exportQuery(EncodedQuery.of("select * {?s ?p ?o}"), Collections.emptyMap(),
+                null, null, 0, new CancelToken(), ExportFormat.CSV, Channels.newChannel(out));
+        response.getCleanup().close();
+        assertThat(accept).startsWith("text/csv, ");
+        assertThat(response.getRows()).isNull();
+        assertThat(response.getBytesExported()).isEqualTo(csvBody.length());
+        assertThat(new String(out.toByteArray(), UTF_8)).isEqualTo(csvBody);
+
+        // The server doesn't support the format, the response is parsed for the caller to transcode
+        csvBody = null;
+        out.reset();
+        response = api.exportQuery(EncodedQuery.of("select * {?s ?p ?o}"), Collections.emptyMap(),
+                null, null, 0, new CancelToken(), ExportFormat.CSV, Channels.newChannel(out));
+        closer.register(response.getCleanup());
+        assertThat(response.getBytesExported()).isNull();
+        assertThat(response.getRows().hasNext()).isTrue();
+        assertThat(out.size()).isZero();
+    }
+
+    private static int countRows(Response response) {
+        int count = 0;
+        for (Iterator<?> rows = response.getRows(); rows.hasNext(); rows.next()) {
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void testParseRetryAfter() {
+        assertThat(HttpQueryApi.parseRetryAfter(null)).isEqualTo(-1);
+        assertThat(HttpQueryApi.parseRetryAfter("garbage")).isEqualTo(-1);
+        assertThat(HttpQueryApi.parseRetryAfter("2")).isEqualTo(2000);
+        assertThat(HttpQueryApi.parseRetryAfter("-2")).isEqualTo(0);
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now().plusMinutes(1));
+        assertThat(HttpQueryApi.parseRetryAfter(date)).isBetween(50_000L, 60_000L);
+    }
+
+    private HttpQueryApi newApi(RetryPolicy retryPolicy) throws Exception {
+        return newApi(TransportOptions.builder().retryPolicy(retryPolicy).build());
+    }
+
+    private HttpQueryApi newApi(TransportOptions options) throws Exception {
+        return newApi("http://localhost:3333/sparql/dave/dataset", options);
+    }
+
+    private HttpQueryApi newApi(String endpoint, TransportOptions options) throws Exception {
+        return closer.register(new HttpQueryApi(new URL(endpoint), "test", null, QueryListeners.NOOP, options));
+    }
+
+    /** Records enough fast responses to establish the latency percentiles used for hedging. */
+    private void warmUp(HttpQueryApi api) throws Exception {
+        for (int i = 0; i < 20; i++) {
+            execute(api).getCleanup().close();
+        }
+        assertThat(api.getMonitor().getFirstByteMillisP50()).isGreaterThanOrEqualTo(1);
+        requestCount.set(0);
+    }
+
+    private Response execute(HttpQueryApi api) throws SQLException {
+        return execute(api, "select * {?s ?p ?o}");
+    }
+
+    private Response execute(HttpQueryApi api, String query) throws SQLException {
+        Response response = api.executeQuery(EncodedQuery.of(query), Collections.emptyMap(),
+                null, null, 0, new CancelToken());
+        closer.register(response.getCleanup());
+        return response;
+    }
+}
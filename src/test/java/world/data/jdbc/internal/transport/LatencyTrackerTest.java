@@ -0,0 +1,70 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.transport;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LatencyTrackerTest {
+
+    @Test
+    public void testPercentiles() {
+        LatencyTracker tracker = new LatencyTracker(100, 10);
+        for (int i = 100; i >= 1; i--) {
+            tracker.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        assertThat(tracker.getPercentileMillis(50)).isEqualTo(50);
+        assertThat(tracker.getPercentileMillis(99)).isEqualTo(99);
+        assertThat(tracker.getPercentileMillis(100)).isEqualTo(100);
+        assertThat(tracker.getPercentileMillis(0)).isEqualTo(1);
+    }
+
+    @Test
+    public void testMinSamples() {
+        LatencyTracker tracker = new LatencyTracker(100, 10);
+        for (int i = 0; i < 9; i++) {
+            tracker.record(TimeUnit.MILLISECONDS.toNanos(5));
+        }
+        assertThat(tracker.getPercentileMillis(50)).isEqualTo(-1);
+        tracker.record(TimeUnit.MILLISECONDS.toNanos(5));
+        assertThat(tracker.getPercentileMillis(50)).isEqualTo(5);
+    }
+
+    @Test
+    public void testSlidingWindow() {
+        LatencyTracker tracker = new LatencyTracker(10, 10);
+        for (int i = 0; i < 10; i++) {
+            tracker.record(TimeUnit.SECONDS.toNanos(1));
+        }
+        for (int i = 0; i < 10; i++) {
+            tracker.record(TimeUnit.MILLISECONDS.toNanos(2));
+        }
+        assertThat(tracker.getPercentileMillis(99)).isEqualTo(2);
+    }
+
+    @Test
+    public void testRoundsUp() {
+        LatencyTracker tracker = new LatencyTracker(1, 1);
+        tracker.record(1);
+        assertThat(tracker.getPercentileMillis(50)).isEqualTo(1);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.transport;
+
+import org.junit.Test;
+import world.data.jdbc.internal.metrics.QueryListeners;
+import world.data.jdbc.internal.metrics.QueryTracker;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.sql.SQLException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class QueryApiMonitorTest {
+
+    @Test
+    public void testInFlightQueries() throws Exception {
+        QueryApiMonitor monitor = newMonitor();
+        QueryTracker tracker1 = QueryTracker.start(monitor, "http://localhost/sql/agent/dataset", "select 1");
+        QueryTracker tracker2 = QueryTracker.start(monitor, "http://localhost/sql/agent/dataset", "select 2");
+        tracker2.addSpillBytes(1000);
+        monitor.attach(tracker2, mock(HttpURLConnection.class));
+
+        assertThat(monitor.getTotalQueryCount()).isEqualTo(2);
+        assertThat(monitor.getInFlightQueryCount()).isEqualTo(2);
+        assertThat(monitor.getInFlightQueries())
+                .extracting(QueryApiMonitorMXBean.InFlightQuery::getQuery)
+                .containsExactly("select 1", "select 2");
+        assertThat(monitor.getSpillBytesOnDisk()).isEqualTo(1000);
+
+        tracker1.finish(new SQLException("HTTP request failed with response 400"));
+        tracker2.finish(null);
+        assertThat(monitor.getInFlightQueryCount()).isEqualTo(0);
+        assertThat(monitor.getFailedQueryCount()).isEqualTo(1);
+        assertThat(monitor.getSpillBytesOnDisk()).isEqualTo(0);
+        assertThat(monitor.getTotalSpillBytes()).isEqualTo(1000);
+    }
+
+    @Test
+    public void testCancelQuery() throws Exception {
+        QueryApiMonitor monitor = newMonitor();
+        QueryTracker tracker = QueryTracker.start(monitor, "http://localhost/sql/agent/dataset", "select 1");
+        HttpURLConnection connection = mock(HttpURLConnection.class);
+        monitor.attach(tracker, connection);
+
+        assertThat(monitor.cancelQuery(tracker.getInfo().getId())).isTrue();
+        verify(connection).disconnect();
+
+        tracker.finish(null);
+        assertThat(monitor.cancelQuery(tracker.getInfo().getId())).isFalse();
+    }
+
+    @Test
+    public void testMBeanAttributes() throws Exception {
+        QueryApiMonitor monitor = newMonitor();
+        QueryTracker.start(monitor, "http://localhost/sql/agent/dataset", "select 1");
+        monitor.recordHttpError(503);
+        monitor.recordHttpError(503);
+        monitor.recordHttpError(401);
+
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        ObjectName name = new ObjectName("world.data.jdbc:type=QueryApi");
+        server.registerMBean(monitor, name);
+
+        CompositeData[] queries = (CompositeData[]) server.getAttribute(name, "InFlightQueries");
+        assertThat(queries).hasSize(1);
+        assertThat(queries[0].get("query")).isEqualTo("select 1");
+
+        TabularData errors = (TabularData) server.getAttribute(name, "ErrorCountsByHttpStatus");
+        assertThat(errors.get(new Object[]{503}).get("value")).isEqualTo(2L);
+        assertThat(errors.get(new Object[]{401}).get("value")).isEqualTo(1L);
+        assertThat(server.getAttribute(name, "DownloadPoolSize")).isEqualTo(0);
+    }
+
+    @Test
+    public void testRegistration() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName pattern = new ObjectName("world.data.jdbc:type=QueryApi,endpoint=\"http://localhost:3333/sql/monitor/test\",*");
+        HttpQueryApi api = new HttpQueryApi(new URL("http://localhost:3333/sql/monitor/test"), "test", null,
+                QueryListeners.NOOP, TransportOptions.builder().jmxEnabled(true).build());
+        assertThat(server.queryNames(pattern, null)).hasSize(1);
+        api.close();
+        assertThat(server.queryNames(pattern, null)).isEmpty();
+    }
+
+    @Test
+    public void testRegistrationDisabledByDefault() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName pattern = new ObjectName("world.data.jdbc:type=QueryApi,endpoint=\"http://localhost:3333/sql/monitor/off\",*");
+        HttpQueryApi api = new HttpQueryApi(new URL("http://localhost:3333/sql/monitor/off"), "test", null);
+        try {
+            assertThat(server.queryNames(pattern, null)).isEmpty();
+        } finally {
+            api.close();
+        }
+    }
+
+    private QueryApiMonitor newMonitor() {
+        return new QueryApiMonitor("http://localhost/sql/agent/dataset",
+                new ThreadPoolExecutor(0, 1, 60, TimeUnit.SECONDS, new SynchronousQueue<>()));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.transport;
+
+import org.junit.Test;
+import world.data.jdbc.internal.util.CancelToken;
+
+import java.sql.SQLTransientException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RateLimiterTest {
+
+    @Test
+    public void testBurst() throws Exception {
+        RateLimiter limiter = new RateLimiter("test", 1, 3);
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire(new CancelToken(), 0);
+        }
+        assertThat(elapsedMillis(start)).isLessThan(500);
+        assertThatThrownBy(() -> limiter.acquire(new CancelToken(), 100))
+                .isInstanceOf(SQLTransientException.class)
+                .hasMessageContaining("Request rate limit for 'test' exceeded");
+    }
+
+    @Test
+    public void testWaitForPermit() throws Exception {
+        RateLimiter limiter = new RateLimiter("test", 20, 1);
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire(new CancelToken(), 1000);
+        }
+        // The first permit is immediate, the rest are spaced 50 ms apart
+        assertThat(elapsedMillis(start)).isBetween(150L, 2000L);
+    }
+
+    @Test
+    public void testCancelWhileWaiting() throws Exception {
+        RateLimiter limiter = new RateLimiter("test", 0.1, 1);
+        limiter.acquire(new CancelToken(), 0);
+        CancelToken cancelToken = new CancelToken();
+        cancelToken.cancel();
+        assertThatThrownBy(() -> limiter.acquire(cancelToken, 60_000))
+                .hasMessage("Statement was cancelled");
+    }
+
+    @Test
+    public void testThrottled() throws Exception {
+        RateLimiter limiter = new RateLimiter("test", 100, 10);
+        limiter.throttled(5_000);
+        assertThat(limiter.getPermitsPerSecond()).isEqualTo(50);
+
+        // Concurrent 429 responses only halve the rate once
+        limiter.throttled(5_000);
+        assertThat(limiter.getPermitsPerSecond()).isEqualTo(50);
+
+        // No permits until the Retry-After delay passes
+        assertThatThrownBy(() -> limiter.acquire(new CancelToken(), 4_000))
+                .isInstanceOf(SQLTransientException.class);
+
+        // The rate recovers as requests succeed
+        for (int i = 0; i < 5; i++) {
+            limiter.succeeded();
+        }
+        assertThat(limiter.getPermitsPerSecond()).isEqualTo(75);
+        for (int i = 0; i < 100; i++) {
+            limiter.succeeded();
+        }
+        assertThat(limiter.getPermitsPerSecond()).isEqualTo(100);
+    }
+
+    @Test
+    public void testShared() {
+        assertThat(RateLimiter.forEndpoint("a", "token", 1, 1)).isSameAs(RateLimiter.forEndpoint("a", "token", 1, 1));
+        assertThat(RateLimiter.forEndpoint("a", "token", 1, 1)).isNotSameAs(RateLimiter.forEndpoint("a", "other", 1, 1));
+        assertThat(RateLimiter.forEndpoint("a", null, 1, 1)).isNotSameAs(RateLimiter.forEndpoint("b", null, 1, 1));
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.transport;
+
+import org.junit.Rule;
+import org.junit.Test;
+import world.data.jdbc.internal.util.AbstractIterator;
+import world.data.jdbc.testing.CloserResource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class ReadAheadIteratorTest {
+
+    @Rule
+    public final CloserResource closer = new CloserResource();
+
+    @Test
+    public void testOrder() throws Exception {
+        List<Integer> expected = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+        AutoCloseable cleanup = mock(AutoCloseable.class);
+        try (ReadAheadIterator<Integer> iter = new ReadAheadIterator<>(expected.iterator(), cleanup, 7, 3, newCachedExecutor())) {
+            List<Integer> actual = new ArrayList<>();
+            iter.forEachRemaining(actual::add);
+            assertThat(actual).isEqualTo(expected);
+            assertThat(iter.hasNext()).isFalse();
+        }
+        verify(cleanup).close();
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        try (ReadAheadIterator<Integer> iter = new ReadAheadIterator<>(Collections.emptyIterator(), null, 7, 3, newCachedExecutor())) {
+            assertThat(iter.hasNext()).isFalse();
+        }
+    }
+
+    @Test
+    public void testException() throws Exception {
+        Iterator<Integer> source = new AbstractIterator<Integer>() {
+            private int next;
+
+            @Override
+            protected Integer computeNext() {
+                if (next == 10) {
+                    throw new UncheckedIOException(new IOException("Unexpected end of input"));
+                }
+                return next++;
+            }
+        };
+        try (ReadAheadIterator<Integer> iter = new ReadAheadIterator<>(source, null, 4, 3, newCachedExecutor())) {
+            for (int i = 0; i < 10; i++) {
+                assertThat(iter.next()).isEqualTo(i);
+            }
+            assertThatThrownBy(iter::hasNext)
+                    .isExactlyInstanceOf(UncheckedIOException.class)
+                    .hasMessageContaining("Unexpected end of input");
+        }
+    }
+
+    @Test
+    public void testEarlyClose() throws Exception {
+        // An unbounded source, the background thread must stop once the buffer is full and the iterator is closed
+        AtomicInteger count = new AtomicInteger();
+        Iterator<Integer> source = new AbstractIterator<Integer>() {
+            @Override
+            protected Integer computeNext() {
+                return count.getAndIncrement();
+            }
+        };
+        AutoCloseable cleanup = mock(AutoCloseable.class);
+        ReadAheadIterator<Integer> iter = new ReadAheadIterator<>(source, cleanup, 4, 2, newCachedExecutor());
+        assertThat(iter.next()).isEqualTo(0);
+        iter.close();
+        verify(cleanup).close();
+
+        // Parsing is bounded by the buffered batches, the consumed batch and the batch in progress
+        assertThat(count.get()).isLessThanOrEqualTo(5 * 4);
+    }
+
+    @Test
+    public void testAbandoned() throws Exception {
+        // The reader drops the iterator without closing it, the background thread must not be pinned forever
+        AtomicInteger count = new AtomicInteger();
+        CountDownLatch cleanedUp = new CountDownLatch(1);
+        readOneAndAbandon(count, cleanedUp::countDown);
+        for (int i = 0; i < 500 && cleanedUp.getCount() > 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertThat(cleanedUp.getCount()).isEqualTo(0);
+        assertThat(count.get()).isLessThanOrEqualTo(5 * 4);
+    }
+
+    private void readOneAndAbandon(AtomicInteger count, AutoCloseable cleanup) {
+        Iterator<Integer> source = new AbstractIterator<Integer>() {
+            @Override
+            protected Integer computeNext() {
+                return count.getAndIncrement();
+            }
+        };
+        ReadAheadIterator<Integer> iter = new ReadAheadIterator<>(source, cleanup, 4, 2, newCachedExecutor(), 10);
+        assertThat(iter.next()).isEqualTo(0);
+    }
+
+    private ExecutorService newCachedExecutor() {
+        return closer.register(Executors.newCachedThreadPool(), ExecutorService::shutdown);
+    }
+}
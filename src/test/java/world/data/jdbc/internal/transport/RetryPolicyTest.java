@@ -0,0 +1,50 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.transport;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RetryPolicyTest {
+
+    @Test
+    public void testBackoff() {
+        RetryPolicy policy = RetryPolicy.builder().maxAttempts(5).initialBackoffMillis(100).maxBackoffMillis(300).build();
+        for (int i = 0; i < 100; i++) {
+            assertThat(policy.getDelayMillis(1, -1)).isBetween(0L, 100L);
+            assertThat(policy.getDelayMillis(2, -1)).isBetween(0L, 200L);
+            assertThat(policy.getDelayMillis(3, -1)).isBetween(0L, 300L);
+            assertThat(policy.getDelayMillis(4, -1)).isBetween(0L, 300L);
+        }
+        assertThat(policy.getDelayMillis(5, -1)).isEqualTo(-1);
+    }
+
+    @Test
+    public void testRetryAfter() {
+        RetryPolicy policy = RetryPolicy.builder().maxBackoffMillis(10).maxRetryAfterMillis(5000).build();
+        assertThat(policy.getDelayMillis(1, 2000)).isEqualTo(2000);
+        assertThat(policy.getDelayMillis(1, 5001)).isEqualTo(-1);
+    }
+
+    @Test
+    public void testNone() {
+        assertThat(RetryPolicy.NONE.getDelayMillis(1, -1)).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * dw-jdbc
+ * Copyright 2017 data.world, Inc.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * This product includes software developed at data.world, Inc.(http://www.data.world/).
+ */
+package world.data.jdbc.internal.util;
+
+import org.junit.Test;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class ResourceManagerTest {
+
+    @Test
+    public void testRegisterAndRemove() throws Exception {
+        ResourceManager resources = new ResourceManager();
+        AutoCloseable first = mock(AutoCloseable.class);
+        Closeable second = mock(Closeable.class);
+        resources.register(first);
+        resources.register(second);
+        resources.register(second);
+        assertThat(resources.size()).isEqualTo(2);
+        assertThat(resources.getAll(Closeable.class)).containsExactly(second);
+
+        resources.remove(second);
+        assertThat(resources.getAll(AutoCloseable.class)).containsExactly(first);
+        resources.remove(second);
+        assertThat(resources.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        ResourceManager resources = new ResourceManager();
+        AutoCloseable first = mock(AutoCloseable.class);
+        AutoCloseable second = mock(AutoCloseable.class);
+        doThrow(new IllegalStateException("first")).when(first).close();
+        resources.register(first);
+        resources.register(second);
+        assertThatThrownBy(resources::close).hasMessage("first");
+        verify(first).close();
+        verify(second).close();
+    }
+
+    @Test
+    public void testGarbageCollected() throws Exception {
+        ResourceManager resources = new ResourceManager();
+        resources.register(mock(AutoCloseable.class));
+        AutoCloseable retained = mock(AutoCloseable.class);
+        resources.register(retained);
+        for (int i = 0; i < 100 && resources.size() > 1; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertThat(resources.size()).isEqualTo(1);
+        assertThat(resources.getAll(AutoCloseable.class)).containsExactly(retained);
+    }
+
+    @Test
+    public void testConcurrentRegisterAndRemove() throws Exception {
+        ResourceManager resources = new ResourceManager();
+        AutoCloseable retained = mock(AutoCloseable.class);
+        resources.register(retained);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        AutoCloseable resource = new AutoCloseable() {
+                            @Override
+                            public void close() {
+                            }
+                        };
+                        resources.register(resource);
+                        resources.remove(resource);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(resources.getAll(AutoCloseable.class)).containsExactly(retained);
+    }
+}